@@ -25,23 +25,39 @@ package com.example.movies;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcAutoConfiguration;
 import io.swagger.v3.oas.annotations.OpenAPIDefinition;
 import io.swagger.v3.oas.annotations.info.Info;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.context.annotation.Bean;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 
+import java.time.Duration;
+
 @OpenAPIDefinition(
     info = @Info(title = "Movies API", version = "v1", description = "API documentation for Movies application")
 )
-@SpringBootApplication
+// R2DBC используется только для /rx через собственный пул (ReactiveCatalogService):
+// бин ConnectionFactory из автоконфигурации отключил бы JDBC DataSource
+@SpringBootApplication(exclude = R2dbcAutoConfiguration.class)
 public class MoviesApplication {
 
     public static void main(String[] args) {
         SpringApplication.run(MoviesApplication.class, args);
     }
 
+    // java.net.http.HttpClient паркует виртуальные потоки, не занимая потоки-носители;
+    // таймауты не дают медленному внешнему API удерживать запросы бесконечно
     @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
+    public RestTemplate restTemplate(RestTemplateBuilder builder,
+                                     @Value("${movies.http.connect-timeout:5s}") Duration connectTimeout,
+                                     @Value("${movies.http.read-timeout:10s}") Duration readTimeout) {
+        return builder
+                .requestFactory(JdkClientHttpRequestFactory.class)
+                .connectTimeout(connectTimeout)
+                .readTimeout(readTimeout)
+                .build();
     }
 }
@@ -0,0 +1,90 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025 Kudzeri
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.example.movies.config;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Подтягивает последовательности идентификаторов к уже существующим данным.
+ * Таблицы, созданные до перехода с IDENTITY на последовательности, содержат id,
+ * о которых новая последовательность ничего не знает. Выполняется до старта веб-сервера.
+ */
+@Component
+public class IdSequenceSynchronizer {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdSequenceSynchronizer.class);
+
+    // Должно совпадать с allocationSize в @SequenceGenerator сущностей
+    static final int ALLOCATION_SIZE = 50;
+
+    private static final Map<String, String> SEQUENCES = new LinkedHashMap<>();
+    static {
+        SEQUENCES.put("genres", "genres_seq");
+        SEQUENCES.put("authors", "authors_seq");
+        SEQUENCES.put("movies", "movies_seq");
+        SEQUENCES.put("reviews", "reviews_seq");
+        SEQUENCES.put("roles", "roles_seq");
+        SEQUENCES.put("users", "users_seq");
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @PostConstruct
+    public void synchronize() {
+        Dialect dialect = entityManagerFactory.unwrap(SessionFactoryImplementor.class).getJdbcServices().getDialect();
+        SEQUENCES.forEach((table, sequence) -> {
+            try {
+                synchronize(dialect, table, sequence);
+            } catch (Exception ex) {
+                logger.error("Ошибка при синхронизации последовательности {} с таблицей {}", sequence, table, ex);
+            }
+        });
+    }
+
+    private void synchronize(Dialect dialect, String table, String sequence) {
+        Long maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM " + table, Long.class);
+        Long next = jdbcTemplate.queryForObject(dialect.getSequenceSupport().getSequenceNextValString(sequence), Long.class);
+        // Оптимизатор pooled считает полученное значение верхней границей блока из ALLOCATION_SIZE id
+        if (maxId != null && maxId > 0 && next != null && next - ALLOCATION_SIZE < maxId) {
+            long restartWith = maxId + ALLOCATION_SIZE + 1;
+            jdbcTemplate.execute("ALTER SEQUENCE " + sequence + " RESTART WITH " + restartWith);
+            logger.info("Последовательность {} перезапущена с {} (max id в {} = {})", sequence, restartWith, table, maxId);
+        }
+    }
+}
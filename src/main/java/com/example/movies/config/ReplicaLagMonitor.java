@@ -0,0 +1,88 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025 Kudzeri
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.example.movies.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Периодически измеряет отставание реплики запросом lag-query (секунды) и решает,
+ * можно ли отправлять на неё чтение. Без lag-query проверяется только доступность.
+ */
+public class ReplicaLagMonitor {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaLagMonitor.class);
+
+    private final JdbcTemplate replicaJdbcTemplate;
+    private final String lagQuery;
+    private final Duration maxLag;
+
+    private volatile boolean usable = true;
+    private volatile Double lagSeconds;
+    private volatile Instant checkedAt;
+
+    public ReplicaLagMonitor(DataSource replica, String lagQuery, Duration maxLag) {
+        this.replicaJdbcTemplate = new JdbcTemplate(replica);
+        this.lagQuery = lagQuery == null || lagQuery.isBlank() ? "SELECT 0" : lagQuery;
+        this.maxLag = maxLag;
+    }
+
+    @Scheduled(fixedDelayString = "${movies.datasource.replica.lag-check-interval:5s}")
+    public void check() {
+        boolean wasUsable = usable;
+        try {
+            Double lag = replicaJdbcTemplate.queryForObject(lagQuery, Double.class);
+            lagSeconds = lag;
+            usable = lag != null && lag * 1000 <= maxLag.toMillis();
+        } catch (Exception ex) {
+            lagSeconds = null;
+            usable = false;
+            if (wasUsable) {
+                logger.warn("Реплика недоступна: {}", ex.getMessage());
+            }
+        }
+        checkedAt = Instant.now();
+        if (wasUsable && !usable && lagSeconds != null) {
+            logger.warn("Отставание реплики {} с превышает {}, чтение переключено на основную БД", lagSeconds, maxLag);
+        } else if (!wasUsable && usable) {
+            logger.info("Реплика снова используется для чтения, отставание {} с", lagSeconds);
+        }
+    }
+
+    // Ошибка получения соединения: до следующей проверки читаем с основной БД
+    void markUnavailable() {
+        usable = false;
+    }
+
+    public boolean isUsable() { return usable; }
+    public Double getLagSeconds() { return lagSeconds; }
+    public Instant getCheckedAt() { return checkedAt; }
+    public Duration getMaxLag() { return maxLag; }
+}
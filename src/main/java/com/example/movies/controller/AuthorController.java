@@ -25,16 +25,31 @@ package com.example.movies.controller;
 
 import com.example.movies.model.Author;
 import com.example.movies.repository.AuthorRepository;
+import com.example.movies.service.CatalogChangedEvent;
+import com.example.movies.service.CatalogDeleteService;
+import com.example.movies.service.CatalogDeleteService.DeleteResult;
+import com.example.movies.service.EntityPatchService;
+import com.example.movies.service.FieldProjectionService;
 
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/admin/authors")
@@ -43,12 +58,25 @@ public class AuthorController {
 
     private static final Logger logger = LoggerFactory.getLogger(AuthorController.class);
 
+    private static final Set<String> PATCHABLE = Set.of("name", "biography");
+
     @Autowired
     private AuthorRepository authorRepository;
+    @Autowired
+    private EntityPatchService entityPatchService;
+    @Autowired
+    private CatalogDeleteService catalogDeleteService;
+    @Autowired
+    private FieldProjectionService fieldProjectionService;
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
 
     @Operation(summary = "Получение авторов", description = "Возвращает список всех авторов")
     @GetMapping
-    public List<Author> getAll() {
+    public List<?> getAll(@Parameter(description = SparseFields.DESCRIPTION) @RequestParam(required = false) String fields) {
+        if (SparseFields.requested(fields)) {
+            return fieldProjectionService.findAll(SparseFields.parse(fieldProjectionService, Author.class, fields), null, Sort.by("id"), null);
+        }
         try {
             return authorRepository.findAll();
         } catch(Exception ex) {
@@ -57,15 +85,20 @@ public class AuthorController {
         }
     }
 
-    @Operation(summary = "Получение автора по ИД", description = "Возвращает автора по переданному ИД")
+    @Operation(summary = "Получение автора по ИД", description = "Возвращает автора по переданному ИД; версия строки передаётся в заголовке ETag")
     @GetMapping("/{id}")
-    public Author getById(@PathVariable Long id) {
+    public ResponseEntity<?> getById(@PathVariable Long id,
+                                     @Parameter(description = SparseFields.DESCRIPTION) @RequestParam(required = false) String fields) {
+        if (SparseFields.requested(fields)) {
+            Map<String, Object> author = fieldProjectionService.findById(SparseFields.parse(fieldProjectionService, Author.class, fields), id).orElse(null);
+            return ETags.ok(author, SparseFields.version(author));
+        }
         try {
             Optional<Author> author = authorRepository.findById(id);
-            return author.orElse(null);
+            return ETags.ok(author.orElse(null), author.map(Author::getVersion).orElse(null));
         } catch(Exception ex) {
             logger.error("Ошибка при получении автора с ИД {}", id, ex);
-            return null;
+            return ResponseEntity.ok(null);
         }
     }
 
@@ -73,7 +106,9 @@ public class AuthorController {
     @PostMapping
     public Author create(@RequestBody Author author) {
         try {
-            return authorRepository.save(author);
+            Author saved = authorRepository.save(author);
+            eventPublisher.publishEvent(CatalogChangedEvent.authors(List.of(saved.getId())));
+            return saved;
         } catch(Exception ex) {
             logger.error("Ошибка при создании автора", ex);
             return null;
@@ -88,7 +123,9 @@ public class AuthorController {
             if (author != null) {
                 author.setName(authorDetails.getName());
                 author.setBiography(authorDetails.getBiography());
-                return authorRepository.save(author);
+                Author saved = authorRepository.save(author);
+                eventPublisher.publishEvent(CatalogChangedEvent.authors(List.of(id)));
+                return saved;
             }
             return null;
         } catch(Exception ex) {
@@ -97,13 +134,31 @@ public class AuthorController {
         }
     }
 
-    @Operation(summary = "Удаление автора", description = "Удаляет автора по ИД")
+    @Operation(summary = "Частичное обновление автора", description = "Изменяет только переданные поля (name, biography) одним UPDATE; при заголовке If-Match обновляет только указанную версию, иначе 412")
+    @PatchMapping("/{id}")
+    public ResponseEntity<Void> patch(@PathVariable Long id,
+                                      @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                      @RequestBody Map<String, Object> changes) {
+        EntityPatchService.PatchResult result;
+        try {
+            result = entityPatchService.patch(Author.class, id, ETags.parseIfMatch(ifMatch), changes, PATCHABLE);
+        } catch(IllegalArgumentException | DataIntegrityViolationException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ex.getMessage(), ex);
+        } catch(Exception ex) {
+            logger.error("Ошибка при частичном обновлении автора с ИД {}", id, ex);
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Error patching author", ex);
+        }
+        return ETags.patched(result, "Author", id);
+    }
+
+    @Operation(summary = "Удаление автора", description = "Удаляет автора по ИД вместе с его фильмами и отзывами одной транзакцией из трёх множественных DELETE")
     @DeleteMapping("/{id}")
-    public void delete(@PathVariable Long id) {
+    public DeleteResult delete(@PathVariable Long id) {
         try {
-            authorRepository.deleteById(id);
+            return catalogDeleteService.deleteAuthor(id);
         } catch(Exception ex) {
             logger.error("Ошибка при удалении автора с ИД {}", id, ex);
+            return null;
         }
     }
 }
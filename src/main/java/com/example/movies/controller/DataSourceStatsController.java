@@ -0,0 +1,86 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025 Kudzeri
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.example.movies.controller;
+
+import com.example.movies.config.ReadReplicaRoutingDataSource;
+import com.example.movies.config.ReplicaLagMonitor;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.swagger.v3.oas.annotations.Operation;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/admin/datasource")
+@PreAuthorize("hasAuthority('ROLE_ADMIN')")
+public class DataSourceStatsController {
+
+    @Autowired
+    private List<HikariDataSource> pools;
+
+    @Autowired
+    private ObjectProvider<ReadReplicaRoutingDataSource> routingDataSource;
+
+    @Operation(summary = "Статистика пулов соединений", description = "Возвращает загрузку каждого пула HikariCP и, если настроена реплика, распределение соединений между основной БД и репликой")
+    @GetMapping("/pools")
+    public Map<String, Object> getPoolStats() {
+        Map<String, Object> poolStats = new LinkedHashMap<>();
+        for (HikariDataSource pool : pools) {
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("maximumPoolSize", pool.getMaximumPoolSize());
+            stats.put("minimumIdle", pool.getMinimumIdle());
+            HikariPoolMXBean mxBean = pool.getHikariPoolMXBean();
+            if (mxBean != null) {
+                stats.put("activeConnections", mxBean.getActiveConnections());
+                stats.put("idleConnections", mxBean.getIdleConnections());
+                stats.put("totalConnections", mxBean.getTotalConnections());
+                stats.put("threadsAwaitingConnection", mxBean.getThreadsAwaitingConnection());
+            }
+            poolStats.put(pool.getPoolName(), stats);
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("pools", poolStats);
+        ReadReplicaRoutingDataSource routing = routingDataSource.getIfAvailable();
+        if (routing != null) {
+            ReplicaLagMonitor monitor = routing.getLagMonitor();
+            Map<String, Object> routingStats = new LinkedHashMap<>();
+            routingStats.put("primaryConnections", routing.getPrimaryConnections());
+            routingStats.put("replicaConnections", routing.getReplicaConnections());
+            routingStats.put("replicaFallbacks", routing.getReplicaFallbacks());
+            routingStats.put("replicaUsable", monitor.isUsable());
+            routingStats.put("replicaLagSeconds", monitor.getLagSeconds());
+            routingStats.put("maxLagSeconds", monitor.getMaxLag().toMillis() / 1000.0);
+            routingStats.put("lagCheckedAt", monitor.getCheckedAt());
+            result.put("routing", routingStats);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025 Kudzeri
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.example.movies.controller;
+
+import com.example.movies.service.EntityPatchService.PatchResult;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.server.ResponseStatusException;
+
+// ETag = значение колонки version; If-Match превращается в условие WHERE version = ?
+final class ETags {
+
+    private ETags() { }
+
+    static <T> ResponseEntity<T> ok(T body, Long version) {
+        if (body == null || version == null) {
+            return ResponseEntity.ok(body);
+        }
+        return ResponseEntity.ok().eTag(version.toString()).body(body);
+    }
+
+    // null или "*" – обновление без проверки версии
+    static Long parseIfMatch(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        if (tag.startsWith("W/")) {
+            tag = tag.substring(2);
+        }
+        if (tag.length() >= 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+            tag = tag.substring(1, tag.length() - 1);
+        }
+        try {
+            return Long.parseLong(tag);
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("Invalid If-Match header: " + ifMatch);
+        }
+    }
+
+    static ResponseEntity<Void> patched(PatchResult result, String entity, Long id) {
+        return switch (result.outcome()) {
+            case UPDATED -> result.version() != null
+                    ? ResponseEntity.noContent().eTag(result.version().toString()).build()
+                    : ResponseEntity.noContent().build();
+            case NOT_FOUND -> throw new ResponseStatusException(HttpStatus.NOT_FOUND, entity + " " + id + " not found");
+            case VERSION_MISMATCH -> throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED,
+                    entity + " " + id + " was modified by another request");
+        };
+    }
+}
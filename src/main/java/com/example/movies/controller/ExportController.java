@@ -0,0 +1,86 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025 Kudzeri
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.example.movies.controller;
+
+import com.example.movies.service.CatalogExportService;
+import io.swagger.v3.oas.annotations.Operation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+@RestController
+@RequestMapping("/admin/export")
+@PreAuthorize("hasAuthority('ROLE_ADMIN')")
+public class ExportController {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExportController.class);
+
+    private static final MediaType NDJSON = MediaType.valueOf("application/x-ndjson");
+
+    @Autowired
+    private CatalogExportService catalogExportService;
+
+    @Operation(summary = "Экспорт фильмов", description = "Потоково выгружает все фильмы с авторами и жанрами в формате NDJSON")
+    @GetMapping("/movies")
+    public ResponseEntity<StreamingResponseBody> exportMovies() {
+        StreamingResponseBody body = out -> {
+            try {
+                long count = catalogExportService.exportMovies(out);
+                logger.info("Экспорт фильмов завершён: {} записей", count);
+            } catch(Exception ex) {
+                logger.error("Ошибка при экспорте фильмов", ex);
+                throw ex;
+            }
+        };
+        return ndjson("movies.ndjson", body);
+    }
+
+    @Operation(summary = "Экспорт отзывов", description = "Потоково выгружает все отзывы в формате NDJSON")
+    @GetMapping("/reviews")
+    public ResponseEntity<StreamingResponseBody> exportReviews() {
+        StreamingResponseBody body = out -> {
+            try {
+                long count = catalogExportService.exportReviews(out);
+                logger.info("Экспорт отзывов завершён: {} записей", count);
+            } catch(Exception ex) {
+                logger.error("Ошибка при экспорте отзывов", ex);
+                throw ex;
+            }
+        };
+        return ndjson("reviews.ndjson", body);
+    }
+
+    private static ResponseEntity<StreamingResponseBody> ndjson(String filename, StreamingResponseBody body) {
+        return ResponseEntity.ok()
+                .contentType(NDJSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + filename)
+                .body(body);
+    }
+}
@@ -25,16 +25,26 @@ package com.example.movies.controller;
 
 import com.example.movies.model.Genre;
 import com.example.movies.repository.GenreRepository;
+import com.example.movies.service.CatalogChangedEvent;
+import com.example.movies.service.EntityPatchService;
 
 import io.swagger.v3.oas.annotations.Operation;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/admin/genres")
@@ -43,8 +53,14 @@ public class GenreController {
 
     private static final Logger logger = LoggerFactory.getLogger(GenreController.class);
 
+    private static final Set<String> PATCHABLE = Set.of("name");
+
     @Autowired
     private GenreRepository genreRepository;
+    @Autowired
+    private EntityPatchService entityPatchService;
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
 
     @Operation(summary = "Получение жанров", description = "Возвращает список всех жанров")
     @GetMapping
@@ -57,15 +73,15 @@ public class GenreController {
         }
     }
 
-    @Operation(summary = "Получение жанра по ИД", description = "Возвращает жанр по переданному ИД")
+    @Operation(summary = "Получение жанра по ИД", description = "Возвращает жанр по переданному ИД; версия строки передаётся в заголовке ETag")
     @GetMapping("/{id}")
-    public Genre getById(@PathVariable Long id) {
+    public ResponseEntity<Genre> getById(@PathVariable Long id) {
         try {
             Optional<Genre> genre = genreRepository.findById(id);
-            return genre.orElse(null);
+            return ETags.ok(genre.orElse(null), genre.map(Genre::getVersion).orElse(null));
         } catch(Exception ex) {
             logger.error("Ошибка при получении жанра с ИД {}", id, ex);
-            return null;
+            return ResponseEntity.ok(null);
         }
     }
 
@@ -87,7 +103,9 @@ public class GenreController {
             Genre genre = genreRepository.findById(id).orElse(null);
             if (genre != null) {
                 genre.setName(genreDetails.getName());
-                return genreRepository.save(genre);
+                Genre saved = genreRepository.save(genre);
+                eventPublisher.publishEvent(CatalogChangedEvent.genres(List.of(id)));
+                return saved;
             }
             return null;
         } catch(Exception ex) {
@@ -96,11 +114,29 @@ public class GenreController {
         }
     }
 
+    @Operation(summary = "Частичное обновление жанра", description = "Изменяет только переданные поля (name) одним UPDATE; при заголовке If-Match обновляет только указанную версию, иначе 412")
+    @PatchMapping("/{id}")
+    public ResponseEntity<Void> patch(@PathVariable Long id,
+                                      @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                      @RequestBody Map<String, Object> changes) {
+        EntityPatchService.PatchResult result;
+        try {
+            result = entityPatchService.patch(Genre.class, id, ETags.parseIfMatch(ifMatch), changes, PATCHABLE);
+        } catch(IllegalArgumentException | DataIntegrityViolationException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ex.getMessage(), ex);
+        } catch(Exception ex) {
+            logger.error("Ошибка при частичном обновлении жанра с ИД {}", id, ex);
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Error patching genre", ex);
+        }
+        return ETags.patched(result, "Genre", id);
+    }
+
     @Operation(summary = "Удаление жанра", description = "Удаляет жанр по ИД")
     @DeleteMapping("/{id}")
     public void delete(@PathVariable Long id) {
         try {
             genreRepository.deleteById(id);
+            eventPublisher.publishEvent(CatalogChangedEvent.genres(List.of(id)));
         } catch(Exception ex) {
             logger.error("Ошибка при удалении жанра с ИД {}", id, ex);
         }
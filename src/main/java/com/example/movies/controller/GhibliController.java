@@ -79,8 +79,8 @@ public class GhibliController {
     @Cacheable(value = CACHE_NAME, key = "#id")
     public String getFilmById(@PathVariable String id) {
         try {
-            String url = BASE_URL + "/" + id;
-            return restTemplate.getForObject(url, String.class);
+            // Шаблон URI, а не готовая строка: метрика http.client.requests помечается шаблоном, а не каждым id
+            return restTemplate.getForObject(BASE_URL + "/{id}", String.class, id);
         } catch (Exception e) {
             throw new ResponseStatusException(
                 HttpStatus.INTERNAL_SERVER_ERROR,
@@ -0,0 +1,140 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025 Kudzeri
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.example.movies.controller;
+
+import com.example.movies.model.JobStatus;
+import com.example.movies.model.JobType;
+import com.example.movies.service.CatalogSearchIndex;
+import com.example.movies.service.JobService;
+import com.example.movies.service.JobService.JobStats;
+import com.example.movies.service.JobService.JobTask;
+import com.example.movies.service.JobService.JobView;
+import com.example.movies.service.LeaderboardService;
+import com.example.movies.service.MovieRatingService;
+import com.example.movies.service.SuggestService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Фоновые задачи администратора. Задачи с входными данными ставятся своими эндпоинтами
+ * (/admin/seed, /admin/seed/synthetic, /admin/movies/import?async=true), пересборки – здесь.
+ */
+@RestController
+@RequestMapping("/admin/jobs")
+@PreAuthorize("hasAuthority('ROLE_ADMIN')")
+public class JobController {
+
+    private static final int MAX_LIMIT = 100;
+
+    @Autowired
+    private JobService jobService;
+    @Autowired
+    private MovieRatingService movieRatingService;
+    @Autowired(required = false)
+    private CatalogSearchIndex searchIndex;
+    @Autowired(required = false)
+    private SuggestService suggestService;
+    @Autowired(required = false)
+    private LeaderboardService leaderboardService;
+
+    @Operation(summary = "Список задач", description = "Последние задачи, новые первыми; прогресс выполняющихся задач обновляется не реже раза в секунду")
+    @GetMapping
+    public List<JobView> list(
+            @Parameter(description = "Статус задачи (QUEUED, RUNNING, SUCCEEDED, FAILED, CANCELLED)") @RequestParam(required = false) JobStatus status,
+            @Parameter(description = "Количество задач (1..100, по умолчанию 20)") @RequestParam(defaultValue = "20") int limit) {
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit must be between 1 and " + MAX_LIMIT);
+        }
+        return jobService.list(status, limit);
+    }
+
+    @Operation(summary = "Состояние задачи", description = "Статус, прогресс (processed из total, процент), скорость в единицах в секунду, длительность и результат")
+    @GetMapping("/{id}")
+    public JobView get(@PathVariable Long id) {
+        return jobService.find(id)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Job " + id + " not found"));
+    }
+
+    @Operation(summary = "Отмена задачи", description = "Задача из очереди не запускается, выполняющаяся останавливается после текущей порции; "
+            + "записанные порции не откатываются. 409, если задача уже завершена")
+    @PostMapping("/{id}/cancel")
+    public JobView cancel(@PathVariable Long id) {
+        try {
+            return jobService.cancel(id)
+                    .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Job " + id + " not found"));
+        } catch(IllegalStateException ex) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, ex.getMessage(), ex);
+        }
+    }
+
+    @Operation(summary = "Статистика задач", description = "Число задач, средняя и максимальная длительность и скорость обработки по типам и статусам")
+    @GetMapping("/stats")
+    public List<JobStats> stats() {
+        return jobService.stats();
+    }
+
+    @Operation(summary = "Запуск пересборки", description = "RATINGS_REBUILD, SEARCH_INDEX_REBUILD, SUGGEST_REBUILD или LEADERBOARD_REBUILD; "
+            + "ответ 202, состояние – /admin/jobs/{id}")
+    @PostMapping
+    public ResponseEntity<JobView> submit(@RequestParam JobType type) {
+        return Jobs.submit(jobService, type, null, rebuildTask(type));
+    }
+
+    // Отключённая функция проверяется до постановки, чтобы клиент получил 409, а не задачу FAILED
+    private JobTask rebuildTask(JobType type) {
+        return switch (type) {
+            case RATINGS_REBUILD -> progress -> Map.of("movies", movieRatingService.rebuild());
+            case SEARCH_INDEX_REBUILD -> {
+                CatalogSearchIndex index = require(searchIndex, type);
+                yield progress -> index.rebuild();
+            }
+            case SUGGEST_REBUILD -> {
+                SuggestService suggest = require(suggestService, type);
+                yield progress -> suggest.rebuild();
+            }
+            case LEADERBOARD_REBUILD -> {
+                LeaderboardService leaderboard = require(leaderboardService, type);
+                yield progress -> leaderboard.rebuild();
+            }
+            case SEED, SYNTHETIC_SEED, MOVIE_IMPORT -> throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    type + " jobs are submitted by their own endpoints");
+        };
+    }
+
+    private static <T> T require(T service, JobType type) {
+        if (service == null) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, type + " is not available: the feature is disabled");
+        }
+        return service;
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025 Kudzeri
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.example.movies.controller;
+
+import com.example.movies.service.LeaderboardService;
+import com.example.movies.service.LeaderboardService.LeaderboardEntry;
+import com.example.movies.service.LeaderboardService.RebuildResult;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+
+@RestController
+@ConditionalOnProperty(prefix = "movies.leaderboard", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class LeaderboardController {
+
+    private static final Logger logger = LoggerFactory.getLogger(LeaderboardController.class);
+
+    private static final int MAX_LIMIT = 100;
+
+    @Autowired
+    private LeaderboardService leaderboardService;
+
+    @Operation(summary = "Лучшие фильмы жанра", description = "Возвращает фильмы жанра по убыванию средней оценки из sorted set Redis; БД не используется")
+    @GetMapping("/movies/leaderboard/genre/{genreId}")
+    public List<LeaderboardEntry> getGenreLeaderboard(
+            @PathVariable Long genreId,
+            @Parameter(description = "Количество фильмов (1..100, по умолчанию 20)") @RequestParam(defaultValue = "20") int limit) {
+        checkLimit(limit);
+        try {
+            return leaderboardService.topInGenre(genreId, limit);
+        } catch(Exception ex) {
+            logger.error("Ошибка при чтении рейтинга жанра с ИД {}", genreId, ex);
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Leaderboard is unavailable", ex);
+        }
+    }
+
+    @Operation(summary = "Тренды недели", description = "Возвращает фильмы по числу одобренных отзывов за текущую ISO-неделю (UTC) из sorted set Redis")
+    @GetMapping("/movies/leaderboard/trending")
+    public List<LeaderboardEntry> getTrending(
+            @Parameter(description = "Количество фильмов (1..100, по умолчанию 20)") @RequestParam(defaultValue = "20") int limit) {
+        checkLimit(limit);
+        try {
+            return leaderboardService.trending(limit);
+        } catch(Exception ex) {
+            logger.error("Ошибка при чтении трендов недели", ex);
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Leaderboard is unavailable", ex);
+        }
+    }
+
+    @Operation(summary = "Пересборка рейтингов в Redis", description = "Пересобирает рейтинги жанров и тренды недели из movie_rating_stats и отзывов; обычно выполняется по расписанию")
+    @PreAuthorize("hasAuthority('ROLE_ADMIN')")
+    @PostMapping("/admin/leaderboards/rebuild")
+    public RebuildResult rebuild() {
+        try {
+            return leaderboardService.rebuild();
+        } catch(Exception ex) {
+            logger.error("Ошибка при пересборке рейтингов в Redis", ex);
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Error rebuilding leaderboards", ex);
+        }
+    }
+
+    private static void checkLimit(int limit) {
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit must be between 1 and " + MAX_LIMIT);
+        }
+    }
+}
@@ -26,18 +26,48 @@ package com.example.movies.controller;
 import com.example.movies.model.Movie;
 import com.example.movies.model.Genre;
 import com.example.movies.model.Author;
+import com.example.movies.model.JobType;
 import com.example.movies.repository.MovieRepository;
 import com.example.movies.repository.GenreRepository;
 import com.example.movies.repository.AuthorRepository;
+import com.example.movies.service.CatalogChangedEvent;
+import com.example.movies.service.CatalogDeleteService;
+import com.example.movies.service.CatalogDeleteService.DeleteResult;
+import com.example.movies.service.EntityPatchService;
+import com.example.movies.service.FieldProjectionService;
+import com.example.movies.service.JobService;
+import com.example.movies.service.JobService.JobView;
+import com.example.movies.service.MovieBulkService;
+import com.example.movies.service.MovieBulkService.BulkResult;
+import com.example.movies.service.MovieImportService;
+import com.example.movies.service.MovieImportService.ImportReport;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
 @RestController
 @RequestMapping("/admin/movies")
@@ -46,16 +76,41 @@ public class MovieController {
 
     private static final Logger logger = LoggerFactory.getLogger(MovieController.class);
 
+    private static final Set<String> PATCHABLE = Set.of("title", "description", "genre", "author");
+
     @Autowired
     private MovieRepository movieRepository;
     @Autowired
     private GenreRepository genreRepository;
     @Autowired
     private AuthorRepository authorRepository;
+    @Autowired
+    private MovieBulkService movieBulkService;
+    @Autowired
+    private MovieImportService movieImportService;
+    @Autowired
+    private EntityPatchService entityPatchService;
+    @Autowired
+    private CatalogDeleteService catalogDeleteService;
+    @Autowired
+    private FieldProjectionService fieldProjectionService;
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    @Autowired
+    private JobService jobService;
+
+    @Value("${movies.bulk.max-items:10000}")
+    private int bulkMaxItems;
+
+    @Value("${movies.import.chunk-size:500}")
+    private int importChunkSize;
 
     @Operation(summary = "Получение фильмов", description = "Возвращает список всех фильмов с информацией о жанрах и авторах")
     @GetMapping
-    public List<Movie> getAll() {
+    public List<?> getAll(@Parameter(description = SparseFields.DESCRIPTION) @RequestParam(required = false) String fields) {
+        if (SparseFields.requested(fields)) {
+            return fieldProjectionService.findAll(SparseFields.parse(fieldProjectionService, Movie.class, fields), null, Sort.by("id"), null);
+        }
         try {
             return movieRepository.findAll();
         } catch(Exception ex) {
@@ -64,15 +119,20 @@ public class MovieController {
         }
     }
 
-    @Operation(summary = "Получение фильма по ИД", description = "Возвращает фильм по указанному ИД")
+    @Operation(summary = "Получение фильма по ИД", description = "Возвращает фильм по указанному ИД; версия строки передаётся в заголовке ETag")
     @GetMapping("/{id}")
-    public Movie getById(@PathVariable Long id) {
+    public ResponseEntity<?> getById(@PathVariable Long id,
+                                     @Parameter(description = SparseFields.DESCRIPTION) @RequestParam(required = false) String fields) {
+        if (SparseFields.requested(fields)) {
+            Map<String, Object> movie = fieldProjectionService.findById(SparseFields.parse(fieldProjectionService, Movie.class, fields), id).orElse(null);
+            return ETags.ok(movie, SparseFields.version(movie));
+        }
         try {
             Optional<Movie> movie = movieRepository.findById(id);
-            return movie.orElse(null);
+            return ETags.ok(movie.orElse(null), movie.map(Movie::getVersion).orElse(null));
         } catch(Exception ex) {
             logger.error("Ошибка при получении фильма с ИД {}", id, ex);
-            return null;
+            return ResponseEntity.ok(null);
         }
     }
 
@@ -90,7 +150,9 @@ public class MovieController {
                 Optional<Author> author = authorRepository.findById(movie.getAuthor().getId());
                 author.ifPresent(movie::setAuthor);
             }
-            return movieRepository.save(movie);
+            Movie saved = movieRepository.save(movie);
+            eventPublisher.publishEvent(CatalogChangedEvent.movies(List.of(saved.getId())));
+            return saved;
         } catch(Exception ex) {
             logger.error("Ошибка при создании фильма", ex);
             return null;
@@ -113,7 +175,9 @@ public class MovieController {
                     Optional<Author> author = authorRepository.findById(movieDetails.getAuthor().getId());
                     author.ifPresent(movie::setAuthor);
                 }
-                return movieRepository.save(movie);
+                Movie saved = movieRepository.save(movie);
+                eventPublisher.publishEvent(CatalogChangedEvent.movies(List.of(id)));
+                return saved;
             }
             return null;
         } catch(Exception ex) {
@@ -122,13 +186,159 @@ public class MovieController {
         }
     }
 
-    @Operation(summary = "Удаление фильма", description = "Удаляет фильм по указанному ИД")
+    @Operation(summary = "Частичное обновление фильма", description = "Изменяет только переданные поля (title, description, genre, author) одним UPDATE; при заголовке If-Match обновляет только указанную версию, иначе 412")
+    @PatchMapping("/{id}")
+    public ResponseEntity<Void> patch(@PathVariable Long id,
+                                      @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                      @RequestBody Map<String, Object> changes) {
+        EntityPatchService.PatchResult result;
+        try {
+            result = entityPatchService.patch(Movie.class, id, ETags.parseIfMatch(ifMatch), changes, PATCHABLE);
+        } catch(IllegalArgumentException | DataIntegrityViolationException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ex.getMessage(), ex);
+        } catch(Exception ex) {
+            logger.error("Ошибка при частичном обновлении фильма с ИД {}", id, ex);
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Error patching movie", ex);
+        }
+        return ETags.patched(result, "Movie", id);
+    }
+
+    @Operation(summary = "Удаление фильма", description = "Удаляет фильм по указанному ИД вместе с его отзывами")
     @DeleteMapping("/{id}")
     public void delete(@PathVariable Long id) {
         try {
-            movieRepository.deleteById(id);
+            movieBulkService.deleteAll(List.of(id));
         } catch(Exception ex) {
             logger.error("Ошибка при удалении фильма с ИД {}", id, ex);
         }
     }
+
+    @Operation(summary = "Удаление фильмов по фильтру", description = "Удаляет все фильмы жанра и/или автора вместе с их отзывами двумя множественными DELETE; нужен хотя бы один фильтр")
+    @DeleteMapping
+    public DeleteResult deleteByFilter(@RequestParam(required = false) Long genreId,
+                                       @RequestParam(required = false) Long authorId) {
+        try {
+            DeleteResult result = catalogDeleteService.deleteMovies(genreId, authorId);
+            logger.info("Удалено фильмов: {}, отзывов: {} (genreId={}, authorId={})",
+                    result.movies(), result.reviews(), genreId, authorId);
+            return result;
+        } catch(IllegalArgumentException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ex.getMessage(), ex);
+        } catch(Exception ex) {
+            logger.error("Ошибка при удалении фильмов по фильтру genreId={}, authorId={}", genreId, authorId, ex);
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Error deleting movies", ex);
+        }
+    }
+
+    @Operation(summary = "Пакетное создание фильмов", description = "Создаёт список фильмов одной транзакцией с пакетной вставкой; жанр и автор задаются по ИД")
+    @PostMapping("/bulk")
+    public BulkResult createBulk(@RequestBody List<Movie> movies) {
+        checkBulkSize(movies.size());
+        try {
+            return movieBulkService.createAll(movies);
+        } catch(IllegalArgumentException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ex.getMessage(), ex);
+        } catch(Exception ex) {
+            logger.error("Ошибка при пакетном создании {} фильмов", movies.size(), ex);
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Error creating movies", ex);
+        }
+    }
+
+    @Operation(summary = "Пакетное обновление фильмов", description = "Обновляет список фильмов по их ИД одной транзакцией с пакетными UPDATE")
+    @PutMapping("/bulk")
+    public BulkResult updateBulk(@RequestBody List<Movie> movies) {
+        checkBulkSize(movies.size());
+        try {
+            return movieBulkService.updateAll(movies);
+        } catch(IllegalArgumentException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ex.getMessage(), ex);
+        } catch(Exception ex) {
+            logger.error("Ошибка при пакетном обновлении {} фильмов", movies.size(), ex);
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Error updating movies", ex);
+        }
+    }
+
+    @Operation(summary = "Пакетное удаление фильмов", description = "Удаляет фильмы по списку ИД вместе с их отзывами; ИД несуществующих фильмов возвращаются в missingIds")
+    @DeleteMapping("/bulk")
+    public BulkResult deleteBulk(@RequestBody List<Long> ids) {
+        checkBulkSize(ids.size());
+        try {
+            return movieBulkService.deleteAll(ids);
+        } catch(Exception ex) {
+            logger.error("Ошибка при пакетном удалении {} фильмов", ids.size(), ex);
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Error deleting movies", ex);
+        }
+    }
+
+    @Operation(summary = "Потоковый импорт фильмов", description = "Читает NDJSON (application/x-ndjson) или CSV (text/csv) построчно и коммитит порциями; "
+            + "жанры и авторы задаются по имени. При async=true тело сохраняется во временный файл, импорт выполняется фоновой задачей "
+            + "(ответ 202, состояние – /admin/jobs/{id})")
+    @PostMapping(value = "/import", consumes = {"application/x-ndjson", "text/csv"})
+    public ResponseEntity<?> importMovies(@RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+                                          @RequestParam(required = false) Integer chunkSize,
+                                          @RequestParam(defaultValue = "false") boolean async,
+                                          InputStream body) {
+        int size = chunkSize != null ? chunkSize : importChunkSize;
+        if (size < 1 || size > bulkMaxItems) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "chunkSize must be between 1 and " + bulkMaxItems);
+        }
+        MovieImportService.Format format = MediaType.parseMediaType(contentType).isCompatibleWith(MediaType.valueOf("text/csv"))
+                ? MovieImportService.Format.CSV
+                : MovieImportService.Format.NDJSON;
+        if (async) {
+            return submitImport(body, format, size);
+        }
+        try {
+            ImportReport report = movieImportService.importMovies(body, format, size);
+            logger.info("Импорт фильмов завершён: {} строк, импортировано {}, {} строк/с",
+                    report.totalRows(), report.imported(), Math.round(report.rowsPerSecond()));
+            return ResponseEntity.ok(report);
+        } catch(IllegalArgumentException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ex.getMessage(), ex);
+        } catch(Exception ex) {
+            logger.error("Ошибка при импорте фильмов", ex);
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Error importing movies", ex);
+        }
+    }
+
+    // Задача читает файл сама и удаляет его по завершении; клиент не ждёт импорта
+    private ResponseEntity<JobView> submitImport(InputStream body, MovieImportService.Format format, int size) {
+        Path file;
+        try {
+            file = Files.createTempFile("movies-import-", "." + format.name().toLowerCase());
+            Files.copy(body, file, StandardCopyOption.REPLACE_EXISTING);
+        } catch(IOException ex) {
+            logger.error("Ошибка при сохранении файла импорта", ex);
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Error storing import file", ex);
+        }
+        try {
+            return Jobs.submit(jobService, JobType.MOVIE_IMPORT, "format=" + format + ",chunkSize=" + size, progress -> {
+                try (Stream<String> lines = Files.lines(file)) {
+                    long rows = lines.filter(line -> !line.isBlank()).count();
+                    progress.setTotal(format == MovieImportService.Format.CSV ? Math.max(0, rows - 1) : rows);
+                }
+                try (InputStream in = Files.newInputStream(file)) {
+                    ImportReport report = movieImportService.importMovies(in, format, size, progress);
+                    // Отчёты по порциям растут с размером файла, в результате задачи остаются итоги и ошибки
+                    return new ImportReport(report.format(), report.totalRows(), report.imported(), report.rejected(),
+                            List.of(), report.errors(), report.elapsedMillis(), report.rowsPerSecond());
+                } finally {
+                    Files.deleteIfExists(file);
+                }
+            });
+        } catch(RuntimeException ex) {
+            try {
+                Files.deleteIfExists(file);
+            } catch(IOException deleteEx) {
+                ex.addSuppressed(deleteEx);
+            }
+            throw ex;
+        }
+    }
+
+    private void checkBulkSize(int size) {
+        if (size > bulkMaxItems) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Bulk request must contain at most " + bulkMaxItems + " items");
+        }
+    }
 }
@@ -0,0 +1,92 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025 Kudzeri
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.example.movies.controller;
+
+import com.example.movies.service.MovieRatingService;
+import com.example.movies.service.MovieRatingService.RatingSummary;
+import com.example.movies.service.MovieRatingService.TopRatedMovie;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+public class MovieRatingController {
+
+    private static final Logger logger = LoggerFactory.getLogger(MovieRatingController.class);
+
+    private static final int MAX_LIMIT = 100;
+
+    @Autowired
+    private MovieRatingService movieRatingService;
+
+    @Operation(summary = "Фильмы с лучшим рейтингом", description = "Возвращает фильмы по убыванию средней оценки одобренных отзывов из movie_rating_stats; учитываются фильмы минимум с minReviews отзывами")
+    @GetMapping("/movies/top-rated")
+    public List<TopRatedMovie> getTopRated(
+            @Parameter(description = "Количество фильмов (1..100, по умолчанию 10)") @RequestParam(defaultValue = "10") int limit,
+            @Parameter(description = "Минимальное число одобренных отзывов (по умолчанию 1)") @RequestParam(defaultValue = "1") int minReviews) {
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit must be between 1 and " + MAX_LIMIT);
+        }
+        try {
+            return movieRatingService.getTopRated(limit, Math.max(minReviews, 1));
+        } catch(Exception ex) {
+            logger.error("Ошибка при получении фильмов с лучшим рейтингом", ex);
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Error loading top rated movies", ex);
+        }
+    }
+
+    @Operation(summary = "Рейтинг фильма", description = "Возвращает число одобренных отзывов, среднюю оценку и гистограмму по звёздам (1..5) одной строкой movie_rating_stats")
+    @GetMapping("/movies/{id}/rating")
+    public RatingSummary getRating(@PathVariable Long id) {
+        try {
+            return movieRatingService.getSummary(id);
+        } catch(Exception ex) {
+            logger.error("Ошибка при получении рейтинга фильма с ИД {}", id, ex);
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Error loading movie rating", ex);
+        }
+    }
+
+    @Operation(summary = "Пересчёт рейтингов", description = "Строит movie_rating_stats заново по одобренным отзывам; нужен после изменения отзывов в обход API")
+    @PreAuthorize("hasAuthority('ROLE_ADMIN')")
+    @PostMapping("/admin/movies/ratings/rebuild")
+    public Map<String, Integer> rebuild() {
+        try {
+            int movies = movieRatingService.rebuild();
+            logger.info("Агрегаты рейтинга пересчитаны для {} фильмов", movies);
+            return Map.of("movies", movies);
+        } catch(Exception ex) {
+            logger.error("Ошибка при пересчёте агрегатов рейтинга", ex);
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Error rebuilding movie ratings", ex);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025 Kudzeri
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.example.movies.controller;
+
+import com.example.movies.dto.AuthorDto;
+import com.example.movies.dto.GenreDto;
+import com.example.movies.dto.MovieDto;
+import com.example.movies.dto.ReviewDto;
+import com.example.movies.service.ReactiveCatalogService;
+import io.swagger.v3.oas.annotations.Operation;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Неблокирующие копии read-эндпоинтов каталога под префиксом /rx: те же пути, права и JSON-формы.
+ * Списки по умолчанию отдаются JSON-массивом; с Accept: application/x-ndjson элементы пишутся
+ * по мере чтения из БД (produces не задаётся намеренно: NDJSON в produces включает поток всегда).
+ */
+@RestController
+@RequestMapping("/rx")
+@ConditionalOnProperty(prefix = "movies.r2dbc", name = "url")
+public class ReactiveCatalogController {
+
+    private static final String ADMIN = "hasAuthority('ROLE_ADMIN')";
+
+    @Autowired
+    private ReactiveCatalogService reactiveCatalogService;
+
+    @Operation(summary = "Получение фильмов (R2DBC)", description = "Реактивный аналог GET /admin/movies; с Accept: application/x-ndjson отдаётся потоком")
+    @PreAuthorize(ADMIN)
+    @GetMapping("/admin/movies")
+    public Flux<MovieDto> getMovies() {
+        return reactiveCatalogService.findMovies();
+    }
+
+    @Operation(summary = "Получение фильма по ИД (R2DBC)", description = "Реактивный аналог GET /admin/movies/{id}")
+    @PreAuthorize(ADMIN)
+    @GetMapping("/admin/movies/{id}")
+    public Mono<MovieDto> getMovie(@PathVariable Long id) {
+        return reactiveCatalogService.findMovie(id);
+    }
+
+    @Operation(summary = "Получение авторов (R2DBC)", description = "Реактивный аналог GET /admin/authors без списка фильмов автора")
+    @PreAuthorize(ADMIN)
+    @GetMapping("/admin/authors")
+    public Flux<AuthorDto> getAuthors() {
+        return reactiveCatalogService.findAuthors();
+    }
+
+    @Operation(summary = "Получение автора по ИД (R2DBC)", description = "Реактивный аналог GET /admin/authors/{id} без списка фильмов автора")
+    @PreAuthorize(ADMIN)
+    @GetMapping("/admin/authors/{id}")
+    public Mono<AuthorDto> getAuthor(@PathVariable Long id) {
+        return reactiveCatalogService.findAuthor(id);
+    }
+
+    @Operation(summary = "Получение жанров (R2DBC)", description = "Реактивный аналог GET /admin/genres")
+    @PreAuthorize(ADMIN)
+    @GetMapping("/admin/genres")
+    public Flux<GenreDto> getGenres() {
+        return reactiveCatalogService.findGenres();
+    }
+
+    @Operation(summary = "Получение жанра по ИД (R2DBC)", description = "Реактивный аналог GET /admin/genres/{id}")
+    @PreAuthorize(ADMIN)
+    @GetMapping("/admin/genres/{id}")
+    public Mono<GenreDto> getGenre(@PathVariable Long id) {
+        return reactiveCatalogService.findGenre(id);
+    }
+
+    @Operation(summary = "Получение отзывов (R2DBC)", description = "Реактивный аналог GET /reviews; с Accept: application/x-ndjson отдаётся потоком")
+    @GetMapping("/reviews")
+    public Flux<ReviewDto> getReviews() {
+        return reactiveCatalogService.findReviews();
+    }
+
+    @Operation(summary = "Получение отзыва по ИД (R2DBC)", description = "Реактивный аналог GET /reviews/{id}")
+    @GetMapping("/reviews/{id}")
+    public Mono<ReviewDto> getReview(@PathVariable Long id) {
+        return reactiveCatalogService.findReview(id);
+    }
+
+    @Operation(summary = "Получение отзывов фильма (R2DBC)", description = "Реактивный аналог GET /reviews/movie/{movieId}")
+    @GetMapping("/reviews/movie/{movieId}")
+    public Flux<ReviewDto> getReviewsByMovie(@PathVariable Long movieId) {
+        return reactiveCatalogService.findReviewsByMovie(movieId);
+    }
+}
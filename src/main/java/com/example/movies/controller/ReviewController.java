@@ -23,58 +23,100 @@
  */
 package com.example.movies.controller;
 
+import com.example.movies.dto.ModerationQueuePage;
+import com.example.movies.dto.MovieReviewsPage;
+import com.example.movies.dto.ReviewDto;
 import com.example.movies.model.Review;
 import com.example.movies.model.Movie;
 import com.example.movies.model.ReviewStatus;
 import com.example.movies.repository.ReviewRepository;
 import com.example.movies.repository.MovieRepository;
+import com.example.movies.service.CatalogDeleteService;
+import com.example.movies.service.CatalogDeleteService.DeleteResult;
+import com.example.movies.service.EntityPatchService;
+import com.example.movies.service.FieldProjectionService;
+import com.example.movies.service.FieldProjectionService.FieldSelection;
+import com.example.movies.service.ReviewService;
+import com.example.movies.service.ReviewService.BulkModerationResult;
+import com.example.movies.service.ReviewWriteBehindService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import java.net.URI;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 
 @RestController
 public class ReviewController {
 
     private static final Logger logger = LoggerFactory.getLogger(ReviewController.class);
 
+    // Статус меняется только модерацией (approve/disapprove): она проверяет PENDING и ставит moderated_at
+    private static final Set<String> PATCHABLE = Set.of("content", "rating");
+
+    private static final int MAX_QUEUE_PAGE_SIZE = 500;
+    private static final int MAX_MOVIE_REVIEWS_PAGE_SIZE = 100;
+
+    // Поля ?fields= в терминах ReviewDto и соответствующие им атрибуты Review
+    private static final Map<String, String> FIELDS = Map.of(
+            "id", "id", "movieId", "movie.id", "content", "content", "rating", "rating",
+            "reviewer", "reviewer", "status", "status", "version", "version");
+
     @Autowired
     private ReviewRepository reviewRepository;
     
     @Autowired
     private MovieRepository movieRepository;
 
-    // Новый DTO для избежания рекурсии в JSON сериализации
-    private static class ReviewDto {
-        public Long id;
-        public Long movieId;
-        public String content;
-        public double rating;
-        public String reviewer;
-        public String status;
-        
-        public ReviewDto() {
-        }
-    }
+    @Autowired
+    private CatalogDeleteService catalogDeleteService;
+
+    @Autowired
+    private ReviewService reviewService;
+
+    // Есть только при movies.reviews.write-behind.enabled=true
+    @Autowired(required = false)
+    private ReviewWriteBehindService reviewWriteBehind;
+
+    @Autowired
+    private FieldProjectionService fieldProjectionService;
+
+    @Value("${movies.bulk.max-items:10000}")
+    private int bulkMaxItems;
 
     private ReviewDto toDto(Review review) {
-        ReviewDto dto = new ReviewDto();
-        dto.id = review.getId();
-        dto.movieId = review.getMovie().getId();
-        dto.content = review.getContent();
-        dto.rating = review.getRating();
-        dto.reviewer = review.getReviewer();
-        dto.status = review.getStatus().name();
-        return dto;
+        return ReviewDto.from(review);
+    }
+
+    private FieldSelection<Review> fields(String fields) {
+        return SparseFields.parse(fieldProjectionService, Review.class, fields, FIELDS);
+    }
+
+    private static Long lastId(List<Map<String, Object>> rows) {
+        return (Long) rows.get(rows.size() - 1).get("id");
     }
     
     @Operation(summary = "Получение отзывов", description = "Возвращает список всех отзывов")
     @GetMapping("/reviews")
-    public List<ReviewDto> getAllReviews() {
+    public List<?> getAllReviews(@Parameter(description = SparseFields.DESCRIPTION) @RequestParam(required = false) String fields) {
+        if (SparseFields.requested(fields)) {
+            return fieldProjectionService.findAll(fields(fields), null, Sort.by("id"), null);
+        }
         try {
             List<Review> reviews = reviewRepository.findAll();
             return reviews.stream().map(this::toDto).toList();
@@ -84,101 +126,199 @@ public class ReviewController {
         }
     }
     
-    @Operation(summary = "Получение отзыва по ИД", description = "Возвращает отзыв по указанному ИД")
+    @Operation(summary = "Получение отзыва по ИД", description = "Возвращает отзыв по указанному ИД; версия строки передаётся в заголовке ETag")
     @GetMapping("/reviews/{id}")
-    public ReviewDto getReviewById(@PathVariable Long id) {
+    public ResponseEntity<?> getReviewById(@PathVariable Long id,
+                                           @Parameter(description = SparseFields.DESCRIPTION) @RequestParam(required = false) String fields) {
+        if (SparseFields.requested(fields)) {
+            Map<String, Object> review = fieldProjectionService.findById(fields(fields), id).orElse(null);
+            return ETags.ok(review, SparseFields.version(review));
+        }
         try {
             Optional<Review> review = reviewRepository.findById(id);
-            return review.map(this::toDto).orElse(null);
+            return ETags.ok(review.map(this::toDto).orElse(null), review.map(Review::getVersion).orElse(null));
         } catch(Exception ex) {
             logger.error("Ошибка при получении отзыва с ИД {}", id, ex);
-            return null;
+            return ResponseEntity.ok(null);
         }
     }
     
-    @Operation(summary = "Создание отзыва", description = "Создаёт новый отзыв для фильма; доступно всем аутентифицированным пользователям")
+    @Operation(summary = "Создание отзыва", description = "Создаёт новый отзыв для фильма; доступно всем аутентифицированным пользователям. В режиме отложенной записи отвечает 202 с ИД отзыва, который будет записан в течение flush-interval, или 503 при переполненной очереди")
     @PreAuthorize("isAuthenticated()")
     @PostMapping("/reviews")
-    public ReviewDto createReview(@RequestParam Long movieId,
+    public ResponseEntity<ReviewDto> createReview(@RequestParam Long movieId,
                                @RequestParam String content,
                                @RequestParam double rating,
                                @RequestParam String reviewer) {
+        if (reviewWriteBehind != null) {
+            return submitReview(movieId, content, rating, reviewer);
+        }
         try {
             Optional<Movie> movieOpt = movieRepository.findById(movieId);
             if (!movieOpt.isPresent()) {
                 logger.warn("Фильм с ИД {} не найден", movieId);
-                return null;
+                return ResponseEntity.ok(null);
             }
             Review newReview = new Review(movieOpt.get(), content, rating, reviewer);
             Review savedReview = reviewRepository.save(newReview);
-            return toDto(savedReview);
+            return ResponseEntity.ok(toDto(savedReview));
         } catch(Exception ex) {
             logger.error("Ошибка при создании отзыва для фильма с ИД {}", movieId, ex);
-            return null;
+            return ResponseEntity.ok(null);
+        }
+    }
+
+    // Проверки без обращения к БД; существование фильма проверяется при записи пакета
+    private ResponseEntity<ReviewDto> submitReview(Long movieId, String content, double rating, String reviewer) {
+        if (content.isBlank() || reviewer.isBlank() || !(rating >= 0 && rating <= 5)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "content and reviewer are required, rating must be between 0 and 5");
+        }
+        Long id;
+        try {
+            id = reviewWriteBehind.submit(movieId, content, rating, reviewer);
+        } catch(InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Review queue is unavailable", ex);
+        }
+        if (id == null) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1").build();
+        }
+        ReviewDto dto = new ReviewDto(id, movieId, content, rating, reviewer, ReviewStatus.PENDING, null);
+        return ResponseEntity.accepted().location(URI.create("/reviews/" + id)).body(dto);
+    }
+
+    @Operation(summary = "Статистика отложенной записи отзывов", description = "Размер очереди и счётчики принятых, отклонённых, записанных и отброшенных отзывов")
+    @PreAuthorize("hasAuthority('ROLE_ADMIN')")
+    @GetMapping("/admin/reviews/write-behind")
+    public ReviewWriteBehindService.Stats getWriteBehindStats() {
+        if (reviewWriteBehind == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Write-behind mode is disabled");
         }
+        return reviewWriteBehind.stats();
     }
     
-    @Operation(summary = "Обновление отзыва", description = "Обновляет отзыв и изменяет его статус; действие выполняют админы")
+    @Operation(summary = "Обновление отзыва", description = "Обновляет текст и оценку отзыва; статус меняется только через approve/disapprove; действие выполняют админы")
     @PreAuthorize("hasAuthority('ROLE_ADMIN')")
     @PutMapping("/admin/reviews/{id}")
     public ReviewDto updateReview(@PathVariable Long id,
                                @RequestBody Review reviewDetails) {
         try {
-            Optional<Review> reviewOpt = reviewRepository.findById(id);
+            Optional<Review> reviewOpt = reviewService.update(id, reviewDetails);
             if (!reviewOpt.isPresent()) {
                 logger.warn("Отзыв с ИД {} не найден", id);
                 return null;
             }
-            Review review = reviewOpt.get();
-            review.setContent(reviewDetails.getContent());
-            review.setRating(reviewDetails.getRating());
-            review.setStatus(reviewDetails.getStatus());
-            Review updatedReview = reviewRepository.save(review);
-            return toDto(updatedReview);
+            return toDto(reviewOpt.get());
         } catch(Exception ex) {
             logger.error("Ошибка при обновлении отзыва с ИД {}", id, ex);
             return null;
         }
     }
     
-    // Добавляем новый роут для одобрения отзыва
+    @Operation(summary = "Частичное обновление отзыва", description = "Изменяет только переданные поля (content, rating) одним UPDATE; статус меняется через approve/disapprove; при заголовке If-Match обновляет только указанную версию, иначе 412")
     @PreAuthorize("hasAuthority('ROLE_ADMIN')")
-    @PutMapping("/admin/reviews/{id}/approve")
-    public ReviewDto approveReview(@PathVariable Long id) {
+    @PatchMapping("/admin/reviews/{id}")
+    public ResponseEntity<Void> patchReview(@PathVariable Long id,
+                                            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                            @RequestBody Map<String, Object> changes) {
+        EntityPatchService.PatchResult result;
         try {
-            Optional<Review> reviewOpt = reviewRepository.findById(id);
-            if (!reviewOpt.isPresent()) {
-                logger.warn("Отзыв с ИД {} не найден", id);
-                return null;
-            }
-            Review review = reviewOpt.get();
-            review.setStatus(ReviewStatus.APPROVED);
-            Review approvedReview = reviewRepository.save(review);
-            return toDto(approvedReview);
+            result = reviewService.patch(id, ETags.parseIfMatch(ifMatch), changes, PATCHABLE);
+        } catch(IllegalArgumentException | DataIntegrityViolationException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ex.getMessage(), ex);
         } catch(Exception ex) {
-            logger.error("Ошибка при одобрении отзыва с ИД {}", id, ex);
-            return null;
+            logger.error("Ошибка при частичном обновлении отзыва с ИД {}", id, ex);
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Error patching review", ex);
         }
+        return ETags.patched(result, "Review", id);
+    }
+
+    // Добавляем новый роут для одобрения отзыва
+    @PreAuthorize("hasAuthority('ROLE_ADMIN')")
+    @PutMapping("/admin/reviews/{id}/approve")
+    public ReviewDto approveReview(@PathVariable Long id) {
+        return moderate(id, ReviewStatus.APPROVED);
     }
     
     // Добавляем новый роут для отклонения отзыва
     @PreAuthorize("hasAuthority('ROLE_ADMIN')")
     @PutMapping("/admin/reviews/{id}/disapprove")
     public ReviewDto disapproveReview(@PathVariable Long id) {
+        return moderate(id, ReviewStatus.REJECTED);
+    }
+
+    @Operation(summary = "Очередь модерации", description = "Возвращает отзывы в статусе PENDING от старых к новым; следующая страница запрашивается с afterId = nextAfterId")
+    @PreAuthorize("hasAuthority('ROLE_ADMIN')")
+    @GetMapping("/admin/reviews/queue")
+    public ModerationQueuePage getModerationQueue(
+            @Parameter(description = "ИД последнего отзыва предыдущей страницы (по умолчанию 0 – с начала очереди)") @RequestParam(defaultValue = "0") long afterId,
+            @Parameter(description = "Размер страницы (1..500, по умолчанию 100)") @RequestParam(defaultValue = "100") int size,
+            @Parameter(description = SparseFields.DESCRIPTION) @RequestParam(required = false) String fields) {
+        if (size < 1 || size > MAX_QUEUE_PAGE_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "size must be between 1 and " + MAX_QUEUE_PAGE_SIZE);
+        }
+        if (SparseFields.requested(fields)) {
+            Specification<Review> pending = (root, query, cb) -> cb.and(
+                    cb.equal(root.get("status"), ReviewStatus.PENDING), cb.greaterThan(root.get("id"), afterId));
+            List<Map<String, Object>> rows = fieldProjectionService.findAll(fields(fields), pending, Sort.by("id"), size);
+            return new ModerationQueuePage(rows, rows.size() == size ? lastId(rows) : null);
+        }
         try {
-            Optional<Review> reviewOpt = reviewRepository.findById(id);
-            if (!reviewOpt.isPresent()) {
-                logger.warn("Отзыв с ИД {} не найден", id);
-                return null;
-            }
-            Review review = reviewOpt.get();
-            review.setStatus(ReviewStatus.REJECTED); // changed from DISAPPROVED to REJECTED
-            Review disapprovedReview = reviewRepository.save(review);
-            return toDto(disapprovedReview);
+            List<Review> reviews = reviewService.findModerationQueue(afterId, size);
+            Long nextAfterId = reviews.size() == size ? reviews.get(reviews.size() - 1).getId() : null;
+            return new ModerationQueuePage(reviews.stream().map(this::toDto).toList(), nextAfterId);
         } catch(Exception ex) {
-            logger.error("Ошибка при отклонении отзыва с ИД {}", id, ex);
+            logger.error("Ошибка при получении очереди модерации после ИД {}", afterId, ex);
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Error loading moderation queue", ex);
+        }
+    }
+
+    @Operation(summary = "Пакетное одобрение отзывов", description = "Одобряет отзывы из списка ИД одним UPDATE; отзывы не в статусе PENDING пропускаются")
+    @PreAuthorize("hasAuthority('ROLE_ADMIN')")
+    @PutMapping("/admin/reviews/approve")
+    public BulkModerationResult approveReviews(@RequestBody List<Long> ids) {
+        return moderateAll(ids, ReviewStatus.APPROVED);
+    }
+
+    @Operation(summary = "Пакетное отклонение отзывов", description = "Отклоняет отзывы из списка ИД одним UPDATE; отзывы не в статусе PENDING пропускаются")
+    @PreAuthorize("hasAuthority('ROLE_ADMIN')")
+    @PutMapping("/admin/reviews/disapprove")
+    public BulkModerationResult disapproveReviews(@RequestBody List<Long> ids) {
+        return moderateAll(ids, ReviewStatus.REJECTED);
+    }
+
+    private BulkModerationResult moderateAll(List<Long> ids, ReviewStatus status) {
+        if (ids.size() > bulkMaxItems) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Bulk request must contain at most " + bulkMaxItems + " items");
+        }
+        try {
+            BulkModerationResult result = reviewService.moderateAll(ids, status);
+            logger.info("Пакетная модерация {}: запрошено {}, изменено {}", status, result.requested(), result.updated());
+            return result;
+        } catch(Exception ex) {
+            logger.error("Ошибка при пакетной смене статуса {} отзывов на {}", ids.size(), status, ex);
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Error moderating reviews", ex);
+        }
+    }
+
+    // Переход разрешён только из PENDING; повторная модерация возвращает 409
+    private ReviewDto moderate(Long id, ReviewStatus status) {
+        Optional<ReviewService.ModerationResult> review;
+        try {
+            review = reviewService.moderate(id, status);
+        } catch(Exception ex) {
+            logger.error("Ошибка при смене статуса отзыва с ИД {} на {}", id, status, ex);
             return null;
         }
+        if (review.isEmpty()) {
+            logger.warn("Отзыв с ИД {} не найден", id);
+            return null;
+        }
+        if (!review.get().changed()) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT,
+                    "Review " + id + " is not pending: " + review.get().review().getStatus());
+        }
+        return toDto(review.get().review());
     }
     
     @Operation(summary = "Удаление отзыва", description = "Удаляет отзыв; удалять могут пользователи, являющиеся авторами отзыва")
@@ -186,15 +326,70 @@ public class ReviewController {
     @DeleteMapping("/reviews/{id}")
     public void deleteReview(@PathVariable Long id) {
         try {
-            reviewRepository.deleteById(id);
+            if (!reviewService.delete(id)) {
+                logger.warn("Отзыв с ИД {} не найден", id);
+            }
         } catch(Exception ex) {
             logger.error("Ошибка при удалении отзыва с ИД {}", id, ex);
         }
     }
 
+    @Operation(summary = "Удаление отзывов по фильтру", description = "Удаляет отзывы с указанным статусом и/или по фильму одним множественным DELETE; нужен хотя бы один фильтр")
+    @PreAuthorize("hasAuthority('ROLE_ADMIN')")
+    @DeleteMapping("/admin/reviews")
+    public DeleteResult deleteReviewsByFilter(@RequestParam(required = false) ReviewStatus status,
+                                              @RequestParam(required = false) Long movieId) {
+        try {
+            DeleteResult result = catalogDeleteService.deleteReviews(status, movieId);
+            logger.info("Удалено отзывов: {} (status={}, movieId={})", result.reviews(), status, movieId);
+            return result;
+        } catch(IllegalArgumentException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ex.getMessage(), ex);
+        } catch(Exception ex) {
+            logger.error("Ошибка при удалении отзывов по фильтру status={}, movieId={}", status, movieId, ex);
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Error deleting reviews", ex);
+        }
+    }
+
+    @Operation(summary = "Одобренные отзывы фильма", description = "Публичный постраничный список одобренных отзывов фильма от новых к старым; следующая страница запрашивается с beforeId = nextBeforeId")
+    @GetMapping("/movies/{movieId}/reviews")
+    public MovieReviewsPage getApprovedReviewsByMovieId(
+            @PathVariable Long movieId,
+            @Parameter(description = "ИД последнего отзыва предыдущей страницы (по умолчанию – с самых новых)") @RequestParam(required = false) Long beforeId,
+            @Parameter(description = "Размер страницы (1..100, по умолчанию 20)") @RequestParam(defaultValue = "20") int size,
+            @Parameter(description = SparseFields.DESCRIPTION) @RequestParam(required = false) String fields) {
+        if (size < 1 || size > MAX_MOVIE_REVIEWS_PAGE_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "size must be between 1 and " + MAX_MOVIE_REVIEWS_PAGE_SIZE);
+        }
+        if (SparseFields.requested(fields)) {
+            long before = beforeId == null ? Long.MAX_VALUE : beforeId;
+            Specification<Review> approved = (root, query, cb) -> cb.and(
+                    cb.equal(root.get("movie").get("id"), movieId),
+                    cb.equal(root.get("status"), ReviewStatus.APPROVED),
+                    cb.lessThan(root.get("id"), before));
+            List<Map<String, Object>> rows = fieldProjectionService.findAll(fields(fields), approved, Sort.by(Sort.Direction.DESC, "id"), size);
+            return new MovieReviewsPage(rows, rows.size() == size ? lastId(rows) : null);
+        }
+        try {
+            List<ReviewDto> reviews = reviewRepository.findApprovedByMovieBefore(movieId,
+                    beforeId == null ? Long.MAX_VALUE : beforeId, Limit.of(size));
+            Long nextBeforeId = reviews.size() == size ? reviews.get(reviews.size() - 1).id : null;
+            return new MovieReviewsPage(reviews, nextBeforeId);
+        } catch(Exception ex) {
+            logger.error("Ошибка при получении одобренных отзывов фильма с ИД {}", movieId, ex);
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Error loading movie reviews", ex);
+        }
+    }
+
+    @Operation(summary = "Все отзывы фильма", description = "Возвращает отзывы фильма в любом статусе без пагинации; для публичного списка используйте /movies/{movieId}/reviews", deprecated = true)
     @PreAuthorize("permitAll()")
     @GetMapping("/reviews/movie/{movieId}")
-    public List<ReviewDto> getReviewsByMovieId(@PathVariable Long movieId) {
+    public List<?> getReviewsByMovieId(@PathVariable Long movieId,
+                                       @Parameter(description = SparseFields.DESCRIPTION) @RequestParam(required = false) String fields) {
+        if (SparseFields.requested(fields)) {
+            Specification<Review> ofMovie = (root, query, cb) -> cb.equal(root.get("movie").get("id"), movieId);
+            return fieldProjectionService.findAll(fields(fields), ofMovie, Sort.by("id"), null);
+        }
         try {
             List<Review> reviews = reviewRepository.findByMovieId(movieId);
             return reviews.stream().map(this::toDto).toList();
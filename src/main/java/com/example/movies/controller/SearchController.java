@@ -23,63 +23,313 @@
  */
 package com.example.movies.controller;
 
+import com.example.movies.dto.AuthorDto;
+import com.example.movies.dto.SearchSlice;
+import com.example.movies.dto.UnifiedSearchResult;
+import com.example.movies.dto.UnifiedSearchResult.Facet;
+import com.example.movies.dto.UnifiedSearchResult.Hit;
+import com.example.movies.dto.UnifiedSearchResult.HitType;
 import com.example.movies.model.Movie;
 import com.example.movies.model.Author;
+import com.example.movies.model.Genre;
 import com.example.movies.repository.MovieRepository;
 import com.example.movies.repository.AuthorRepository;
+import com.example.movies.service.CatalogSearch;
+import com.example.movies.service.CatalogSearch.FacetRow;
+import com.example.movies.service.CatalogSearchIndex;
+import com.example.movies.service.FieldProjectionService;
+import com.example.movies.service.FieldProjectionService.FieldSelection;
+import com.example.movies.service.FullTextSearchService;
+import com.example.movies.service.LikeCatalogSearch;
+import com.example.movies.service.SearchResultCache;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
 import org.springframework.http.HttpStatus;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
 
 @RestController
 @RequestMapping("/search")
+// Поиск только читает: одна readOnly-транзакция на запрос, при настроенной реплике – на её пуле
+@Transactional(readOnly = true)
 public class SearchController {
 
+    static final String COUNT_DESCRIPTION = "Число совпадений: exact – точное (ответ – Page с totalElements), "
+            + "estimate – оценка по статистике СУБД или индексу, none – без подсчёта; для estimate и none ответ содержит "
+            + "hasNext и estimatedTotal вместо totalElements. По умолчанию – movies.search.count.default";
+
+    private enum CountMode { EXACT, ESTIMATE, NONE }
+
+    private static final int MAX_UNIFIED_LIMIT = 50;
+    // Константа Reciprocal Rank Fusion: сглаживает разницу между первыми местами списков
+    private static final int RRF_RANK_CONSTANT = 60;
+
     @Autowired
     private MovieRepository movieRepository;
     
     @Autowired
     private AuthorRepository authorRepository;
+
+    @Autowired
+    private FieldProjectionService fieldProjectionService;
+
+    // Есть только при movies.search.index.enabled=true и movies.search.full-text.enabled=true
+    @Autowired(required = false)
+    private CatalogSearchIndex searchIndex;
+    @Autowired(required = false)
+    private FullTextSearchService fullTextSearch;
+    // Есть только при movies.search.cache.enabled=true
+    @Autowired(required = false)
+    private SearchResultCache searchCache;
+
+    @Autowired
+    private LikeCatalogSearch likeSearch;
+
+    // Режим count, если он не указан в запросе
+    @Value("${movies.search.count.default:exact}")
+    private String defaultCount;
     
-    @Operation(summary = "Поиск фильмов с пагинацией", description = "Ищет фильмы по title и description по заданному запросу. Query должен быть не менее 2 символов.")
+    @Operation(summary = "Поиск фильмов с пагинацией", description = "Ищет фильмы по title и description по заданному запросу. Query должен быть не менее 2 символов. "
+            + "В режиме полнотекстового поиска запрос разбирается как в веб-поисковике (\"фраза\", or, -слово), результаты упорядочены по релевантности")
     @GetMapping("/movies")
-    public ResponseEntity<Page<Movie>> searchMovies(
+    public ResponseEntity<?> searchMovies(
             @RequestParam String query,
             @Parameter(description = "Номер страницы (по умолчанию 0)") @RequestParam(defaultValue = "0") int page,
-            @Parameter(description = "Размер страницы (по умолчанию 10)") @RequestParam(defaultValue = "10") int size) {
+            @Parameter(description = "Размер страницы (по умолчанию 10)") @RequestParam(defaultValue = "10") int size,
+            @Parameter(description = SparseFields.DESCRIPTION) @RequestParam(required = false) String fields,
+            @Parameter(description = COUNT_DESCRIPTION) @RequestParam(required = false) String count) {
         if (query == null || query.trim().length() < 2) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Query must be at least 2 characters long");
         }
-        Page<Movie> movies = movieRepository.findByTitleContainingIgnoreCaseOrDescriptionContainingIgnoreCase(query, query, PageRequest.of(page, size));
-        movies.forEach(movie -> {
-            if (movie.getAuthor() != null && movie.getAuthor().getMovies() != null) {
-                movie.getAuthor().getMovies().clear(); // avoid recursion by clearing back–reference collection
+        FieldSelection<Movie> selection = SparseFields.requested(fields) ? SparseFields.parse(fieldProjectionService, Movie.class, fields) : null;
+        CountMode countMode = countMode(count);
+        CatalogSearch engine = engine();
+        if (engine == likeSearch && searchCache == null && countMode == CountMode.EXACT) {
+            if (selection != null) {
+                return ResponseEntity.ok(fieldProjectionService.findPage(selection,
+                        LikeCatalogSearch.containsIgnoreCase(query, "title", "description"), PageRequest.of(page, size, Sort.by("id"))));
             }
-        });
-        return ResponseEntity.ok(movies);
+            // Movie.author сериализуется без movies (@JsonIgnoreProperties), ленивая коллекция не загружается
+            return ResponseEntity.ok(movieRepository.findByTitleContainingIgnoreCaseOrDescriptionContainingIgnoreCase(query, query, PageRequest.of(page, size)));
+        }
+        PageRequest pageable = PageRequest.of(page, size);
+        String scope = "movies:" + engineName(engine);
+        Slice<Long> ids = findIds(scope, query.trim(), pageable, engine::searchMovieIds);
+        Long total = total(countMode, ids, scope, query.trim(), engine::countMovies, engine::estimateMovies);
+        if (selection != null) {
+            return ResponseEntity.ok(response(countMode, inRankOrder(ids, findProjected(selection, ids), row -> (Long) row.get("id")), ids, total));
+        }
+        List<Movie> movies = inRankOrder(ids, ids.isEmpty() ? List.of() : movieRepository.findAllWithAuthorAndGenreByIdIn(ids.getContent()), Movie::getId);
+        return ResponseEntity.ok(response(countMode, movies, ids, total));
     }
     
-    @Operation(summary = "Поиск авторов с пагинацией", description = "Ищет авторов по имени и биографии по заданному запросу. Query должен быть не менее 2 символов.")
+    @Operation(summary = "Поиск авторов с пагинацией", description = "Ищет авторов по имени и биографии по заданному запросу. Query должен быть не менее 2 символов. "
+            + "В режиме полнотекстового поиска запрос разбирается как в веб-поисковике (\"фраза\", or, -слово), результаты упорядочены по релевантности")
     @GetMapping("/authors")
-    public ResponseEntity<Page<Author>> searchAuthors(
+    public ResponseEntity<?> searchAuthors(
             @RequestParam String query,
             @Parameter(description = "Номер страницы (по умолчанию 0)") @RequestParam(defaultValue = "0") int page,
-            @Parameter(description = "Размер страницы (по умолчанию 10)") @RequestParam(defaultValue = "10") int size) {
+            @Parameter(description = "Размер страницы (по умолчанию 10)") @RequestParam(defaultValue = "10") int size,
+            @Parameter(description = SparseFields.DESCRIPTION) @RequestParam(required = false) String fields,
+            @Parameter(description = COUNT_DESCRIPTION) @RequestParam(required = false) String count) {
+        if (query == null || query.trim().length() < 2) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Query must be at least 2 characters long");
+        }
+        FieldSelection<Author> selection = SparseFields.requested(fields) ? SparseFields.parse(fieldProjectionService, Author.class, fields) : null;
+        CountMode countMode = countMode(count);
+        CatalogSearch engine = engine();
+        if (engine == likeSearch && searchCache == null && countMode == CountMode.EXACT) {
+            if (selection != null) {
+                return ResponseEntity.ok(fieldProjectionService.findPage(selection,
+                        LikeCatalogSearch.containsIgnoreCase(query, "name", "biography"), PageRequest.of(page, size, Sort.by("id"))));
+            }
+            // Авторы отдаются как AuthorDto: ленивая коллекция movies не загружается и не меняется
+            return ResponseEntity.ok(authorRepository.findByNameContainingIgnoreCaseOrBiographyContainingIgnoreCase(query, query, PageRequest.of(page, size))
+                    .map(AuthorDto::from));
+        }
+        PageRequest pageable = PageRequest.of(page, size);
+        String scope = "authors:" + engineName(engine);
+        Slice<Long> ids = findIds(scope, query.trim(), pageable, engine::searchAuthorIds);
+        Long total = total(countMode, ids, scope, query.trim(), engine::countAuthors, engine::estimateAuthors);
+        if (selection != null) {
+            return ResponseEntity.ok(response(countMode, inRankOrder(ids, findProjected(selection, ids), row -> (Long) row.get("id")), ids, total));
+        }
+        List<AuthorDto> authors = inRankOrder(ids, authorRepository.findAllById(ids.getContent()), Author::getId).stream()
+                .map(AuthorDto::from)
+                .toList();
+        return ResponseEntity.ok(response(countMode, authors, ids, total));
+    }
+
+    @Operation(summary = "Общий поиск по фильмам и авторам с фасетами", description = "Возвращает лучшие фильмы и авторов в одном списке, "
+            + "число совпадений и фасеты: сколько совпавших фильмов в каждом жанре и у лучших limit авторов. Фасеты считаются одним "
+            + "проходом по совпавшим фильмам. Оценки фильмов и авторов несравнимы, поэтому списки объединяются по рангу "
+            + "(score = 1 / (60 + место в своём списке)). Query должен быть не менее 2 символов")
+    @GetMapping
+    public UnifiedSearchResult search(
+            @RequestParam String query,
+            @Parameter(description = "Число результатов и авторов в фасете (1–50, по умолчанию 10)") @RequestParam(defaultValue = "10") int limit) {
         if (query == null || query.trim().length() < 2) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Query must be at least 2 characters long");
         }
-        Page<Author> authors = authorRepository.findByNameContainingIgnoreCaseOrBiographyContainingIgnoreCase(query, query, PageRequest.of(page, size));
-        authors.forEach(author -> {
-            if (author.getMovies() != null) {
-                author.getMovies().clear(); // avoid recursion by clearing movies collection
+        if (limit < 1 || limit > MAX_UNIFIED_LIMIT) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit must be between 1 and " + MAX_UNIFIED_LIMIT);
+        }
+        CatalogSearch engine = engine();
+        String trimmed = query.trim();
+        PageRequest top = PageRequest.of(0, limit);
+        String authorScope = "authors:" + engineName(engine);
+        Slice<Long> movieIds = findIds("movies:" + engineName(engine), trimmed, top, engine::searchMovieIds);
+        Slice<Long> authorIds = findIds(authorScope, trimmed, top, engine::searchAuthorIds);
+        long authorCount = total(CountMode.EXACT, authorIds, authorScope, trimmed, engine::countAuthors, engine::estimateAuthors);
+
+        long movieCount = 0;
+        Map<Long, Long> byGenre = new HashMap<>();
+        Map<Long, Long> byAuthor = new HashMap<>();
+        for (FacetRow row : engine.movieFacets(trimmed)) {
+            movieCount += row.movies();
+            if (row.genreId() != null) {
+                byGenre.merge(row.genreId(), row.movies(), Long::sum);
+            }
+            if (row.authorId() != null) {
+                byAuthor.merge(row.authorId(), row.movies(), Long::sum);
+            }
+        }
+        List<Map.Entry<Long, Long>> genreCounts = largest(byGenre, byGenre.size());
+        List<Map.Entry<Long, Long>> authorCounts = largest(byAuthor, limit);
+
+        // Названия и имена – по одному запросу на таблицу для результатов и фасетов вместе
+        Set<Long> namedAuthors = new HashSet<>(authorIds.getContent());
+        authorCounts.forEach(entry -> namedAuthors.add(entry.getKey()));
+        Map<Long, String> titles = names(Movie.class, "title", movieIds.getContent());
+        Map<Long, String> authorNames = names(Author.class, "name", namedAuthors);
+        Map<Long, String> genreNames = names(Genre.class, "name", byGenre.keySet());
+
+        List<Hit> results = new ArrayList<>(movieIds.getNumberOfElements() + authorIds.getNumberOfElements());
+        for (int rank = 0; rank < movieIds.getNumberOfElements(); rank++) {
+            Long id = movieIds.getContent().get(rank);
+            results.add(new Hit(HitType.MOVIE, id, titles.get(id), 1.0 / (RRF_RANK_CONSTANT + rank + 1)));
+        }
+        for (int rank = 0; rank < authorIds.getNumberOfElements(); rank++) {
+            Long id = authorIds.getContent().get(rank);
+            results.add(new Hit(HitType.AUTHOR, id, authorNames.get(id), 1.0 / (RRF_RANK_CONSTANT + rank + 1)));
+        }
+        // Сортировка устойчива: при равном месте фильм идёт раньше автора
+        results.sort(Comparator.comparingDouble(Hit::score).reversed());
+        return new UnifiedSearchResult(results.subList(0, Math.min(limit, results.size())), movieCount, authorCount,
+                genreCounts.stream().map(entry -> new Facet(entry.getKey(), genreNames.get(entry.getKey()), entry.getValue())).toList(),
+                authorCounts.stream().map(entry -> new Facet(entry.getKey(), authorNames.get(entry.getKey()), entry.getValue())).toList());
+    }
+
+    // По убыванию числа, при равенстве – по ИД
+    private static List<Map.Entry<Long, Long>> largest(Map<Long, Long> counts, int limit) {
+        return counts.entrySet().stream()
+                .sorted(Map.Entry.<Long, Long>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                .limit(limit)
+                .toList();
+    }
+
+    private <T> Map<Long, String> names(Class<T> type, String attribute, Collection<Long> ids) {
+        Map<Long, String> names = new HashMap<>();
+        if (ids.isEmpty()) {
+            return names;
+        }
+        fieldProjectionService.findAll(fieldProjectionService.parse(type, attribute), (root, q, cb) -> root.get("id").in(ids), Sort.unsorted(), null)
+                .forEach(row -> names.put((Long) row.get("id"), (String) row.get(attribute)));
+        return names;
+    }
+
+    // Встроенный индекс, затем полнотекстовый поиск PostgreSQL, иначе LIKE
+    private CatalogSearch engine() {
+        if (searchIndex != null && searchIndex.isAvailable()) {
+            return searchIndex;
+        }
+        return fullTextSearch != null && fullTextSearch.isAvailable() ? fullTextSearch : likeSearch;
+    }
+
+    // У разных движков разный порядок и состав результатов, поэтому в ключе кэша есть имя движка
+    private String engineName(CatalogSearch engine) {
+        return engine == searchIndex ? "index" : engine == fullTextSearch ? "full-text" : "like";
+    }
+
+    private CountMode countMode(String count) {
+        String mode = count != null ? count : defaultCount;
+        try {
+            return CountMode.valueOf(mode.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "count must be one of: exact, estimate, none");
+        }
+    }
+
+    private Slice<Long> findIds(String scope, String query, PageRequest pageable, BiFunction<String, Pageable, Slice<Long>> search) {
+        if (searchCache == null) {
+            return search.apply(query, pageable);
+        }
+        return searchCache.get(scope, query, pageable, () -> search.apply(query, pageable));
+    }
+
+    /**
+     * Число совпадений для режима count. Если страница последняя, число известно без запроса; иначе точное
+     * значение считается движком (и кэшируется отдельно от страниц), а оценка не меньше уже увиденного.
+     */
+    private Long total(CountMode countMode, Slice<Long> ids, String scope, String query,
+                       ToLongFunction<String> count, Function<String, Long> estimate) {
+        long offset = ids.getPageable().getOffset();
+        long seen = offset + ids.getNumberOfElements();
+        boolean last = !ids.hasNext() && (ids.hasContent() || offset == 0);
+        return switch (countMode) {
+            case NONE -> null;
+            case ESTIMATE -> {
+                Long estimated = last ? Long.valueOf(seen) : estimate.apply(query);
+                yield estimated == null ? null : Math.max(estimated, ids.hasNext() ? seen + 1 : seen);
             }
-        });
-        return ResponseEntity.ok(authors);
+            case EXACT -> last ? seen
+                    : searchCache != null ? searchCache.count(scope, query, () -> count.applyAsLong(query)) : count.applyAsLong(query);
+        };
+    }
+
+    private static Object response(CountMode countMode, List<?> rows, Slice<Long> ids, Long total) {
+        if (countMode == CountMode.EXACT) {
+            return new PageImpl<>(rows, ids.getPageable(), total);
+        }
+        return new SearchSlice(rows, ids.getNumber(), ids.getSize(), ids.hasNext(), total);
+    }
+
+    private <T> List<Map<String, Object>> findProjected(FieldSelection<T> selection, Slice<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        return fieldProjectionService.findAll(selection, (root, q, cb) -> root.get("id").in(ids.getContent()), Sort.unsorted(), null);
+    }
+
+    // Ранжирование – в движке, строки страницы загружаются по первичному ключу (IN без порядка)
+    // и раскладываются в порядке ранжирования
+    private static <T> List<T> inRankOrder(Slice<Long> ids, List<T> rows, Function<T, Long> id) {
+        Map<Long, T> byId = new HashMap<>();
+        rows.forEach(row -> byId.put(id.apply(row), row));
+        return ids.getContent().stream().map(byId::get).filter(Objects::nonNull).toList();
     }
 }
@@ -0,0 +1,66 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025 Kudzeri
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.example.movies.controller;
+
+import com.example.movies.service.CatalogSearchIndex;
+import com.example.movies.service.CatalogSearchIndex.Stats;
+import io.swagger.v3.oas.annotations.Operation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+@RestController
+@RequestMapping("/admin/search/index")
+@PreAuthorize("hasAuthority('ROLE_ADMIN')")
+@ConditionalOnProperty(prefix = "movies.search.index", name = "enabled", havingValue = "true")
+public class SearchIndexController {
+
+    private static final Logger logger = LoggerFactory.getLogger(SearchIndexController.class);
+
+    @Autowired
+    private CatalogSearchIndex searchIndex;
+
+    @Operation(summary = "Состояние поискового индекса", description = "Число документов, терминов и постингов, оценка объёма в памяти, "
+            + "число необработанных изменений и задержка между коммитом и обновлением индекса")
+    @GetMapping
+    public Stats getStats() {
+        return searchIndex.getStats();
+    }
+
+    @Operation(summary = "Пересборка поискового индекса", description = "Собирает индекс заново из БД; обычно выполняется только при старте")
+    @PostMapping("/rebuild")
+    public Stats rebuild() {
+        try {
+            return searchIndex.rebuild();
+        } catch(Exception ex) {
+            logger.error("Ошибка при пересборке поискового индекса", ex);
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Error rebuilding search index", ex);
+        }
+    }
+}
@@ -25,10 +25,20 @@ package com.example.movies.controller;
 
 import com.example.movies.model.*;
 import com.example.movies.repository.*;
+import com.example.movies.service.CatalogChangedEvent;
+import com.example.movies.service.JobService;
+import com.example.movies.service.JobService.JobProgress;
+import com.example.movies.service.JobService.JobView;
+import com.example.movies.service.MovieRatingService;
+import com.example.movies.service.SyntheticDataGenerator;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 import java.util.*;
 import java.util.concurrent.ThreadLocalRandom;
 
@@ -47,9 +57,19 @@ public class SeederController {
     @Autowired
     private UserRepository userRepository;
     @Autowired
+    private MovieRatingStatsRepository movieRatingStatsRepository;
+    @Autowired
+    private MovieRatingService movieRatingService;
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    @Autowired
     private RoleRepository roleRepository;
     @Autowired
     private BCryptPasswordEncoder passwordEncoder;
+    @Autowired
+    private SyntheticDataGenerator syntheticDataGenerator;
+    @Autowired
+    private JobService jobService;
 
     // Constants for seeding
     private static final List<String> GENRE_NAMES = List.of(
@@ -63,39 +83,47 @@ public class SeederController {
         "Stanley Kubrick", "Peter Jackson", "Alfred Hitchcock", "David Fincher"
     );
     
+    // Шаги заполнения для прогресса задачи: очистка, справочники, фильмы, пользователи, отзывы, рейтинги
+    private static final int SEED_STEPS = 6;
+
+    /**
+     * Заполнение выполняется фоновой задачей: ответ 202 с её состоянием, ход – /admin/jobs/{id}.
+     */
     @PostMapping("/seed")
     @PreAuthorize("hasAuthority('ROLE_ADMIN')")
-    public String seedData() {
+    public ResponseEntity<JobView> seedData() {
+        return Jobs.submit(jobService, JobType.SEED, null, this::seed);
+    }
+
+    private Map<String, Integer> seed(JobProgress progress) {
+        progress.setTotal(SEED_STEPS);
         // Clean existing data if needed (optional)
         reviewRepository.deleteAll();
+        movieRatingStatsRepository.deleteAllInBatch();
         movieRepository.deleteAll();
         genreRepository.deleteAll();
         authorRepository.deleteAll();
         userRepository.deleteAll();
+        step(progress);
 
-        // Create genres
-        List<Genre> genres = new ArrayList<>();
-        for(String name : GENRE_NAMES) {
-            Genre genre = new Genre(name);
-            genres.add(genreRepository.save(genre));
-        }
+        // Create genres (saveAll: вставки уходят пакетами hibernate.jdbc.batch_size)
+        List<Genre> genres = genreRepository.saveAll(GENRE_NAMES.stream().map(Genre::new).toList());
         
         // Create authors
-        List<Author> authors = new ArrayList<>();
-        for(String name : AUTHOR_NAMES) {
-            Author author = new Author(name, "Biography of " + name);
-            authors.add(authorRepository.save(author));
-        }
-        
+        List<Author> authors = authorRepository.saveAll(AUTHOR_NAMES.stream()
+                .map(name -> new Author(name, "Biography of " + name)).toList());
+        step(progress);
+
         // Create movies
         List<Movie> movies = new ArrayList<>();
         for (int i = 1; i <= 24; i++) {
             Genre genre = genres.get(ThreadLocalRandom.current().nextInt(genres.size()));
             Author author = authors.get(ThreadLocalRandom.current().nextInt(authors.size()));
-            Movie movie = new Movie("Movie " + i, "Description for Movie " + i, genre, author);
-            movies.add(movieRepository.save(movie));
+            movies.add(new Movie("Movie " + i, "Description for Movie " + i, genre, author));
         }
-        
+        movies = movieRepository.saveAll(movies);
+        step(progress);
+
         // Create roles if missing
         Role userRole = roleRepository.findByName("ROLE_USER");
         if(userRole == null) {
@@ -106,20 +134,25 @@ public class SeederController {
             adminRole = roleRepository.save(new Role("ROLE_ADMIN"));
         }
         
-        // Create 14 regular users and 3 admins with same password "123123"
-        List<User> regularUsers = new ArrayList<>();
+        // Create 14 regular users and 3 admins with same password "123123".
+        // BCrypt намеренно медленный, поэтому одинаковый пароль хешируется один раз
+        String passwordHash = passwordEncoder.encode("123123");
+        List<User> users = new ArrayList<>();
         for (int i = 1; i <= 14; i++) {
-            User user = new User("user" + i, passwordEncoder.encode("123123"));
+            User user = new User("user" + i, passwordHash);
             user.setRoles(new HashSet<>(Arrays.asList(userRole)));
-            regularUsers.add(userRepository.save(user));
+            users.add(user);
         }
         for (int i = 1; i <= 3; i++) {
-            User admin = new User("admin" + i, passwordEncoder.encode("123123"));
+            User admin = new User("admin" + i, passwordHash);
             admin.setRoles(new HashSet<>(Arrays.asList(adminRole)));
-            userRepository.save(admin);
+            users.add(admin);
         }
-        
+        List<User> regularUsers = userRepository.saveAll(users).subList(0, 14);
+        step(progress);
+
         // Create reviews for each movie (between 0 and 5 reviews)
+        List<Review> reviews = new ArrayList<>();
         for (Movie movie : movies) {
             int reviewsCount = ThreadLocalRandom.current().nextInt(6);
             for (int j = 1; j <= reviewsCount; j++) {
@@ -129,10 +162,50 @@ public class SeederController {
                 Review review = new Review(movie, "Review " + j + " for " + movie.getTitle(), rating, reviewerUser.getUsername());
                 // Set review as approved
                 review.setStatus(ReviewStatus.APPROVED);
-                reviewRepository.save(review);
+                reviews.add(review);
             }
         }
-        
-        return "Database seeding complete.";
+        reviewRepository.saveAll(reviews);
+        step(progress);
+
+        // Отзывы сохранены напрямую со статусом APPROVED, поэтому агрегаты строим одним запросом
+        movieRatingService.rebuild();
+        eventPublisher.publishEvent(CatalogChangedEvent.all());
+        progress.advance(1);
+
+        return Map.of("genres", genres.size(), "authors", authors.size(), "movies", movies.size(),
+                "users", users.size(), "reviews", reviews.size());
+    }
+
+    // Отмена проверяется между шагами: уже выполненные шаги не откатываются
+    private static void step(JobProgress progress) {
+        progress.advance(1);
+        progress.checkCancelled();
+    }
+
+    /**
+     * Синтетический каталог для нагрузочного тестирования (см. SyntheticDataGenerator): данные
+     * дописываются к существующим, при одном seed результат воспроизводим. Параметры проверяются
+     * сразу (400), генерация выполняется фоновой задачей; отчёт – в результате задачи.
+     */
+    @PostMapping("/seed/synthetic")
+    @PreAuthorize("hasAuthority('ROLE_ADMIN')")
+    public ResponseEntity<JobView> seedSyntheticData(
+            @RequestParam(defaultValue = "1000") int authors,
+            @RequestParam(defaultValue = "10000") int movies,
+            @RequestParam(defaultValue = "100000") int reviews,
+            @RequestParam(defaultValue = "42") long seed,
+            @RequestParam(defaultValue = "1.0") double zipf,
+            @RequestParam(defaultValue = "4") int parallelism) {
+        SyntheticDataGenerator.Spec spec = new SyntheticDataGenerator.Spec(authors, movies, reviews, seed, zipf, parallelism);
+        try {
+            SyntheticDataGenerator.validate(spec);
+        } catch(IllegalArgumentException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ex.getMessage(), ex);
+        }
+        String parameters = "authors=" + authors + ",movies=" + movies + ",reviews=" + reviews + ",seed=" + seed
+                + ",zipf=" + zipf + ",parallelism=" + parallelism;
+        return Jobs.submit(jobService, JobType.SYNTHETIC_SEED, parameters,
+                progress -> syntheticDataGenerator.generate(spec, progress));
     }
 }
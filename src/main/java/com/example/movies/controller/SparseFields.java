@@ -0,0 +1,60 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025 Kudzeri
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.example.movies.controller;
+
+import com.example.movies.service.FieldProjectionService;
+import com.example.movies.service.FieldProjectionService.FieldSelection;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Map;
+
+// ?fields= на чтении: без параметра отдаётся полная сущность, с ним – только выбранные колонки
+final class SparseFields {
+
+    static final String DESCRIPTION = "Поля ответа через запятую, например id,title,author.name; из БД читаются только их колонки";
+
+    private SparseFields() { }
+
+    static boolean requested(String fields) {
+        return fields != null && !fields.isBlank();
+    }
+
+    static <T> FieldSelection<T> parse(FieldProjectionService service, Class<T> type, String fields) {
+        return parse(service, type, fields, Map.of());
+    }
+
+    static <T> FieldSelection<T> parse(FieldProjectionService service, Class<T> type, String fields, Map<String, String> aliases) {
+        try {
+            return service.parse(type, fields, aliases);
+        } catch (IllegalArgumentException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ex.getMessage(), ex);
+        }
+    }
+
+    // ETag выставляется, только если среди запрошенных полей есть version
+    static Long version(Map<String, Object> row) {
+        return row != null && row.get("version") instanceof Long version ? version : null;
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025 Kudzeri
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.example.movies.controller;
+
+import com.example.movies.service.SuggestService;
+import com.example.movies.service.SuggestService.Suggestion;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+
+// Отдельно от SearchController: подсказки не открывают транзакцию и не берут соединение из пула
+@RestController
+@RequestMapping("/search")
+@ConditionalOnProperty(prefix = "movies.search.suggest", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class SuggestController {
+
+    @Autowired
+    private SuggestService suggestService;
+
+    @Operation(summary = "Подсказки поиска", description = "Названия фильмов и имена авторов, начинающиеся с префикса (с начала или с любого слова), "
+            + "по убыванию популярности; отвечает из памяти без обращения к БД")
+    @GetMapping("/suggest")
+    public List<Suggestion> suggest(
+            @Parameter(description = "Введённый префикс") @RequestParam String q,
+            @Parameter(description = "Количество подсказок (1..20, по умолчанию 10)") @RequestParam(defaultValue = "10") int limit) {
+        if (limit < 1 || limit > SuggestService.MAX_LIMIT) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit must be between 1 and " + SuggestService.MAX_LIMIT);
+        }
+        return suggestService.suggest(q, limit);
+    }
+}
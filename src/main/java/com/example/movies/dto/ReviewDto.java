@@ -0,0 +1,57 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025 Kudzeri
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.example.movies.dto;
+
+import com.example.movies.model.Review;
+import com.example.movies.model.ReviewStatus;
+
+// DTO для избежания рекурсии в JSON сериализации
+public class ReviewDto {
+    public Long id;
+    public Long movieId;
+    public String content;
+    public double rating;
+    public String reviewer;
+    public String status;
+    public Long version;
+
+    public ReviewDto() {
+    }
+
+    // Для JPQL-проекции select new ...: movie_id читается из строки отзыва, Movie не загружается
+    public ReviewDto(Long id, Long movieId, String content, double rating, String reviewer, ReviewStatus status, Long version) {
+        this.id = id;
+        this.movieId = movieId;
+        this.content = content;
+        this.rating = rating;
+        this.reviewer = reviewer;
+        this.status = status.name();
+        this.version = version;
+    }
+
+    public static ReviewDto from(Review review) {
+        return new ReviewDto(review.getId(), review.getMovie().getId(), review.getContent(), review.getRating(),
+                review.getReviewer(), review.getStatus(), review.getVersion());
+    }
+}
@@ -34,13 +34,13 @@ import java.io.IOException;
 import java.time.Instant;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 @Component
 public class RateLimiterFilter implements Filter {
 
     private static final int MAX_REQUESTS_PER_MINUTE = 5;
-    private final Map<String, ClientRequestInfo> clientRequestMap = new ConcurrentHashMap<>();
+    private final Map<String, AtomicReference<Window>> clientRequestMap = new ConcurrentHashMap<>();
 
     @Override
     public void doFilter(jakarta.servlet.ServletRequest request, jakarta.servlet.ServletResponse response, FilterChain chain)
@@ -65,23 +65,16 @@ public class RateLimiterFilter implements Filter {
         return request.getRemoteAddr(); // Use IP address for public APIs
     }
 
+    // Без synchronized: окно обновляется CAS-ом, виртуальные потоки не закрепляются на носителе
     private boolean isRateLimitExceeded(String clientIdentifier) {
-        ClientRequestInfo requestInfo = clientRequestMap.computeIfAbsent(clientIdentifier, k -> new ClientRequestInfo());
-        synchronized (requestInfo) {
-            long currentTime = Instant.now().getEpochSecond();
-            if (currentTime - requestInfo.timestamp > 60) {
-                requestInfo.timestamp = currentTime;
-                requestInfo.requestCount.set(0);
-            }
-            if (requestInfo.requestCount.incrementAndGet() > MAX_REQUESTS_PER_MINUTE) {
-                return true;
-            }
-        }
-        return false;
+        AtomicReference<Window> window = clientRequestMap.computeIfAbsent(clientIdentifier,
+                k -> new AtomicReference<>(new Window(Instant.now().getEpochSecond(), 0)));
+        long currentTime = Instant.now().getEpochSecond();
+        Window updated = window.updateAndGet(current -> currentTime - current.startSecond() > 60
+                ? new Window(currentTime, 1)
+                : new Window(current.startSecond(), current.requestCount() + 1));
+        return updated.requestCount() > MAX_REQUESTS_PER_MINUTE;
     }
 
-    private static class ClientRequestInfo {
-        long timestamp = Instant.now().getEpochSecond();
-        AtomicInteger requestCount = new AtomicInteger(0);
-    }
+    private record Window(long startSecond, int requestCount) { }
 }
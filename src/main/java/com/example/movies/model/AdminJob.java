@@ -0,0 +1,102 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025 Kudzeri
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.example.movies.model;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+/**
+ * Фоновая операция администратора: состояние, прогресс и результат хранятся в БД, поэтому их видно
+ * с любого экземпляра приложения и после завершения. Пока задача выполняется, её экземпляр раз в
+ * heartbeat-interval обновляет heartbeatAt; задачи без пульса (экземпляр остановлен) помечаются FAILED.
+ */
+@Entity
+@Table(name = "admin_jobs", indexes = @Index(name = "idx_admin_jobs_status", columnList = "status, heartbeat_at"))
+public class AdminJob {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "admin_jobs_seq")
+    @SequenceGenerator(name = "admin_jobs_seq", sequenceName = "admin_jobs_seq", allocationSize = 50)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 32)
+    private JobType type;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private JobStatus status = JobStatus.QUEUED;
+
+    // Параметры запуска в виде key=value через запятую – для журнала, задача получает их из кода
+    @Column(length = 1000)
+    private String parameters;
+
+    private long processed;
+    private Long total;
+
+    // Результат задачи в JSON
+    @Column(length = 4000)
+    private String result;
+
+    @Column(length = 1000)
+    private String error;
+
+    @Column(name = "cancel_requested", nullable = false)
+    private boolean cancelRequested;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+    @Column(name = "started_at")
+    private Instant startedAt;
+    @Column(name = "finished_at")
+    private Instant finishedAt;
+    @Column(name = "heartbeat_at")
+    private Instant heartbeatAt;
+    @Column(name = "duration_millis")
+    private Long durationMillis;
+
+    public AdminJob() { }
+
+    public AdminJob(JobType type, String parameters) {
+        this.type = type;
+        this.parameters = parameters;
+        this.createdAt = Instant.now();
+        this.heartbeatAt = createdAt;
+    }
+
+    public Long getId() { return id; }
+    public JobType getType() { return type; }
+    public JobStatus getStatus() { return status; }
+    public String getParameters() { return parameters; }
+    public long getProcessed() { return processed; }
+    public Long getTotal() { return total; }
+    public String getResult() { return result; }
+    public String getError() { return error; }
+    public boolean isCancelRequested() { return cancelRequested; }
+    public Instant getCreatedAt() { return createdAt; }
+    public Instant getStartedAt() { return startedAt; }
+    public Instant getFinishedAt() { return finishedAt; }
+    public Instant getHeartbeatAt() { return heartbeatAt; }
+    public Long getDurationMillis() { return durationMillis; }
+}
@@ -23,14 +23,31 @@
  */
 package com.example.movies.model;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.DynamicUpdate;
 
+// Справочник жанров почти не меняется – держим его в кэше второго уровня
 @Entity
 @Table(name = "genres")
+@DynamicUpdate
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.NONSTRICT_READ_WRITE, region = "genres")
 public class Genre {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "genres_seq")
+    @SequenceGenerator(name = "genres_seq", sequenceName = "genres_seq", allocationSize = 50)
     private Long id;
+
+    // Оптимистическая блокировка; существующие строки получают 0 при добавлении колонки
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Long version;
     
     private String name;
     
@@ -38,6 +55,7 @@ public class Genre {
     public Genre(String name) { this.name = name; }
     
     public Long getId() { return id; }
+    public Long getVersion() { return version; }
     public String getName() { return name; }
     public void setName(String name) { this.name = name; }
 }
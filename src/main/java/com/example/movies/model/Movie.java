@@ -23,20 +23,35 @@
  */
 package com.example.movies.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
+import org.hibernate.annotations.ColumnDefault;
 
 @Entity
 @Table(name = "movies")
+// Без @DynamicUpdate: динамические UPDATE Hibernate не объединяет в JDBC-пакеты, а фильмы
+// обновляются пакетно (/admin/movies/bulk); частичные изменения идут через PATCH
 public class Movie {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "movies_seq")
+    @SequenceGenerator(name = "movies_seq", sequenceName = "movies_seq", allocationSize = 50)
     private Long id;
 
+    // Оптимистическая блокировка; существующие строки получают 0 при добавлении колонки
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Long version;
+
     private String title;
     private String description;
 
+    // Обратная ссылка author.movies не сериализуется, иначе JSON уходит в бесконечную рекурсию
     @ManyToOne
     @JoinColumn(name = "author_id", nullable = false)
+    @JsonIgnoreProperties("movies")
     private Author author;
 
     @ManyToOne
@@ -53,6 +68,7 @@ public class Movie {
     }
 
     public Long getId() { return id; }
+    public Long getVersion() { return version; }
     public String getTitle() { return title; }
     public void setTitle(String title) { this.title = title; }
     public String getDescription() { return description; }
@@ -0,0 +1,111 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025 Kudzeri
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.example.movies.model;
+
+import jakarta.persistence.*;
+
+/**
+ * Агрегаты одобренных отзывов фильма: количество, сумма оценок, средняя оценка и гистограмма
+ * по звёздам (оценка округляется до целого в пределах 1..5). Обновляется инкрементально в той же
+ * транзакции, что и отзыв, поэтому чтение средней оценки не зависит от числа отзывов.
+ */
+@Entity
+@Table(name = "movie_rating_stats", indexes = {
+        @Index(name = "idx_movie_rating_stats_top", columnList = "average_rating DESC, review_count DESC")
+})
+public class MovieRatingStats {
+
+    public static final int BUCKETS = 5;
+
+    @Id
+    @Column(name = "movie_id")
+    private Long movieId;
+
+    @MapsId
+    @OneToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "movie_id")
+    private Movie movie;
+
+    @Column(name = "review_count", nullable = false)
+    private int reviewCount;
+
+    @Column(name = "rating_sum", nullable = false)
+    private double ratingSum;
+
+    @Column(name = "average_rating", nullable = false)
+    private double averageRating;
+
+    @Column(nullable = false)
+    private int bucket1;
+    @Column(nullable = false)
+    private int bucket2;
+    @Column(nullable = false)
+    private int bucket3;
+    @Column(nullable = false)
+    private int bucket4;
+    @Column(nullable = false)
+    private int bucket5;
+
+    public MovieRatingStats() { }
+
+    public MovieRatingStats(Movie movie) {
+        this.movie = movie;
+    }
+
+    public static int bucketOf(double rating) {
+        return (int) Math.max(1, Math.min(BUCKETS, Math.round(rating)));
+    }
+
+    public void add(double rating) {
+        apply(rating, 1);
+    }
+
+    public void remove(double rating) {
+        apply(rating, -1);
+    }
+
+    private void apply(double rating, int delta) {
+        reviewCount += delta;
+        ratingSum += delta * rating;
+        switch (bucketOf(rating)) {
+            case 1 -> bucket1 += delta;
+            case 2 -> bucket2 += delta;
+            case 3 -> bucket3 += delta;
+            case 4 -> bucket4 += delta;
+            default -> bucket5 += delta;
+        }
+        if (reviewCount <= 0) {
+            reviewCount = 0;
+            ratingSum = 0;
+        }
+        averageRating = reviewCount == 0 ? 0 : ratingSum / reviewCount;
+    }
+
+    public Long getMovieId() { return movieId; }
+    public Movie getMovie() { return movie; }
+    public int getReviewCount() { return reviewCount; }
+    public double getRatingSum() { return ratingSum; }
+    public double getAverageRating() { return averageRating; }
+    public int[] getHistogram() { return new int[] { bucket1, bucket2, bucket3, bucket4, bucket5 }; }
+}
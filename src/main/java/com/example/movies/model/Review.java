@@ -23,16 +23,38 @@
  */
 package com.example.movies.model;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.DynamicUpdate;
+
+import java.time.Instant;
 
 @Entity
-@Table(name = "reviews")
+// Очередь модерации читается по (status, id): WHERE status = 'PENDING' AND id > ? ORDER BY id
+@Table(name = "reviews", indexes = {
+        @Index(name = "idx_reviews_status_id", columnList = "status, id"),
+        // Одобренные отзывы фильма: WHERE movie_id = ? AND status = 'APPROVED' AND id < ? ORDER BY id DESC
+        @Index(name = "idx_reviews_movie_status_id", columnList = "movie_id, status, id"),
+        // Одобрения за неделю для пересборки трендов: WHERE status = 'APPROVED' AND moderated_at >= ? AND moderated_at < ?
+        @Index(name = "idx_reviews_status_moderated_at", columnList = "status, moderated_at")
+})
+@DynamicUpdate
 public class Review {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "reviews_seq")
+    @SequenceGenerator(name = "reviews_seq", sequenceName = "reviews_seq", allocationSize = 50)
     private Long id;
+
+    // Оптимистическая блокировка; существующие строки получают 0 при добавлении колонки
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Long version;
     
-    @ManyToOne
+    // Фильм загружается лениво: для DTO и экспорта достаточно movie_id из самой строки
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "movie_id")
     private Movie movie;
     
@@ -41,6 +63,11 @@ public class Review {
     
     @Enumerated(EnumType.STRING)
     private ReviewStatus status = ReviewStatus.PENDING;
+
+    // Время модерации (approve/disapprove); по нему строится недельный рейтинг трендов
+    @Column(name = "moderated_at")
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Instant moderatedAt;
     
     // Reviewer username – review authorship is tracked as a simple String.
     private String reviewer;
@@ -57,6 +84,7 @@ public class Review {
     
     // ...existing getters/setters...
     public Long getId() { return id; }
+    public Long getVersion() { return version; }
     public Movie getMovie() { return movie; }
     public void setMovie(Movie movie) { this.movie = movie; }
     public String getContent() { return content; }
@@ -65,6 +93,7 @@ public class Review {
     public void setRating(double rating) { this.rating = rating; }
     public ReviewStatus getStatus() { return status; }
     public void setStatus(ReviewStatus status) { this.status = status; }
+    public Instant getModeratedAt() { return moderatedAt; }
     public String getReviewer() { return reviewer; }
     public void setReviewer(String reviewer) { this.reviewer = reviewer; }
 }
@@ -24,13 +24,21 @@
 package com.example.movies.model;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.Immutable;
 
+// Роли только создаются и никогда не изменяются: @Immutable согласует сущность с кэшем READ_ONLY
 @Entity
+@Immutable
 @Table(name = "roles")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_ONLY, region = "roles")
 public class Role {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "roles_seq")
+    @SequenceGenerator(name = "roles_seq", sequenceName = "roles_seq", allocationSize = 50)
     private Long id;
 
     @Column(unique = true)
@@ -43,7 +51,7 @@ public class Role {
         this.name = name;
     }
 
-    // getters/setters
+    // getters
     public Long getId() {
         return id;
     }
@@ -51,8 +59,4 @@ public class Role {
     public String getName() {
         return name;
     }
-
-    public void setName(String name) {
-        this.name = name;
-    }
 }
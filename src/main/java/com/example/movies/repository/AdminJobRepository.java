@@ -0,0 +1,91 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025 Kudzeri
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.example.movies.repository;
+
+import com.example.movies.model.AdminJob;
+import com.example.movies.model.JobStatus;
+import com.example.movies.service.JobService.JobStatsRow;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Состояние задач меняется точечными UPDATE, а не через сущность: строку одновременно обновляют
+ * исполнитель (прогресс, пульс) и запрос отмены, и ни один не должен затирать поля другого.
+ */
+@Repository
+public interface AdminJobRepository extends JpaRepository<AdminJob, Long> {
+
+    // Фильтр null означает «любой статус»; новые задачи первыми
+    @Query("select j from AdminJob j where :status is null or j.status = :status order by j.id desc")
+    List<AdminJob> findLatest(@Param("status") JobStatus status, Pageable pageable);
+
+    @Query("select j.id from AdminJob j where j.id in :ids and j.cancelRequested = true")
+    List<Long> findCancelRequested(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query("update AdminJob j set j.status = com.example.movies.model.JobStatus.RUNNING, j.startedAt = :now, j.heartbeatAt = :now "
+            + "where j.id = :id and j.status = com.example.movies.model.JobStatus.QUEUED")
+    int markRunning(@Param("id") Long id, @Param("now") Instant now);
+
+    @Modifying
+    @Query("update AdminJob j set j.processed = :processed, j.total = :total, j.heartbeatAt = :now where j.id = :id")
+    int updateProgress(@Param("id") Long id, @Param("processed") long processed, @Param("total") Long total,
+                       @Param("now") Instant now);
+
+    @Modifying
+    @Query("update AdminJob j set j.heartbeatAt = :now where j.id in :ids")
+    int touch(@Param("ids") Collection<Long> ids, @Param("now") Instant now);
+
+    @Modifying
+    @Query("update AdminJob j set j.status = :status, j.processed = :processed, j.total = :total, j.result = :result, "
+            + "j.error = :error, j.finishedAt = :now, j.heartbeatAt = :now, j.durationMillis = :durationMillis where j.id = :id")
+    int finish(@Param("id") Long id, @Param("status") JobStatus status, @Param("processed") long processed,
+               @Param("total") Long total, @Param("result") String result, @Param("error") String error,
+               @Param("now") Instant now, @Param("durationMillis") Long durationMillis);
+
+    @Modifying
+    @Query("update AdminJob j set j.cancelRequested = true where j.id = :id "
+            + "and j.status in (com.example.movies.model.JobStatus.QUEUED, com.example.movies.model.JobStatus.RUNNING)")
+    int requestCancel(@Param("id") Long id);
+
+    // Задачи экземпляров, переставших обновлять пульс (остановлены или упали)
+    @Modifying
+    @Query("update AdminJob j set j.status = com.example.movies.model.JobStatus.FAILED, j.error = :error, j.finishedAt = :now "
+            + "where j.status in (com.example.movies.model.JobStatus.QUEUED, com.example.movies.model.JobStatus.RUNNING) "
+            + "and j.heartbeatAt < :staleBefore")
+    int failStale(@Param("staleBefore") Instant staleBefore, @Param("now") Instant now, @Param("error") String error);
+
+    @Query("select new com.example.movies.service.JobService$JobStatsRow(j.type, j.status, count(j), avg(j.durationMillis), "
+            + "max(j.durationMillis), sum(j.processed), sum(j.durationMillis)) "
+            + "from AdminJob j group by j.type, j.status order by j.type, j.status")
+    List<JobStatsRow> summarize();
+}
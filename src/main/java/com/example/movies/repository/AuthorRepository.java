@@ -25,13 +25,38 @@ package com.example.movies.repository;
 
 import com.example.movies.model.Author;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface AuthorRepository extends JpaRepository<Author, Long> {
     List<Author> findByNameContainingIgnoreCaseOrBiographyContainingIgnoreCase(String name, String biography);
     Page<Author> findByNameContainingIgnoreCaseOrBiographyContainingIgnoreCase(String name, String biography, Pageable pageable);
+
+    // Полнотекстовый поиск по колонке search_vector (см. FullTextSearchService): ИД в порядке ts_rank
+    @Query(value = "SELECT a.id FROM authors a WHERE a.search_vector @@ websearch_to_tsquery(CAST(:config AS regconfig), :query) "
+            + "ORDER BY ts_rank(a.search_vector, websearch_to_tsquery(CAST(:config AS regconfig), :query)) DESC, a.id",
+            nativeQuery = true)
+    Slice<Long> searchIdsFullText(@Param("query") String query, @Param("config") String config, Pageable pageable);
+
+    @Query(value = "SELECT count(*) FROM authors a WHERE a.search_vector @@ websearch_to_tsquery(CAST(:config AS regconfig), :query)",
+            nativeQuery = true)
+    long countFullText(@Param("query") String query, @Param("config") String config);
+    Optional<Author> findFirstByName(String name);
+
+    // ИД и имя без загрузки сущностей (подсказки поиска)
+    @Query("select a.id, a.name from Author a")
+    List<Object[]> findAllIdAndName();
+
+    // Без загрузки Author.movies: фильмы и отзывы удаляются заранее множественными DELETE
+    @Modifying
+    @Query("delete from Author a where a.id = :id")
+    int deleteWithoutCascade(@Param("id") Long id);
 }
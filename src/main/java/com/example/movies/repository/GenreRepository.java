@@ -27,6 +27,9 @@ import com.example.movies.model.Genre;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Optional;
+
 @Repository
 public interface GenreRepository extends JpaRepository<Genre, Long> {
+    Optional<Genre> findFirstByName(String name);
 }
@@ -0,0 +1,100 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025 Kudzeri
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.example.movies.repository;
+
+import com.example.movies.model.MovieRatingStats;
+import com.example.movies.service.LeaderboardService.LeaderboardRow;
+import com.example.movies.service.MovieRatingService.TopRatedMovie;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+@Repository
+public interface MovieRatingStatsRepository extends JpaRepository<MovieRatingStats, Long> {
+
+    // Идёт по индексу idx_movie_rating_stats_top и останавливается после limit строк
+    @Query("select new com.example.movies.service.MovieRatingService$TopRatedMovie("
+            + "m.id, m.title, s.averageRating, s.reviewCount) "
+            + "from MovieRatingStats s join s.movie m "
+            + "where s.reviewCount >= :minReviews "
+            + "order by s.averageRating desc, s.reviewCount desc")
+    List<TopRatedMovie> findTopRated(@Param("minReviews") int minReviews, Pageable pageable);
+
+    String LEADERBOARD_ROW = "select new com.example.movies.service.LeaderboardService$LeaderboardRow("
+            + "m.id, m.title, m.genre.id, s.averageRating, s.reviewCount) "
+            + "from MovieRatingStats s join s.movie m ";
+
+    @Query(LEADERBOARD_ROW + "where s.reviewCount >= :minReviews")
+    Stream<LeaderboardRow> streamLeaderboardRows(@Param("minReviews") int minReviews);
+
+    // Строка есть у любого существующего фильма: без одобренных отзывов агрегаты нулевые
+    @Query("select new com.example.movies.service.LeaderboardService$LeaderboardRow("
+            + "m.id, m.title, m.genre.id, coalesce(s.averageRating, 0.0), coalesce(s.reviewCount, 0)) "
+            + "from Movie m left join MovieRatingStats s on s.movieId = m.id where m.id = :movieId")
+    Optional<LeaderboardRow> findLeaderboardRow(@Param("movieId") Long movieId);
+
+    @Modifying
+    @Query("delete from MovieRatingStats s where s.movieId in :movieIds")
+    int deleteByMovieIdIn(@Param("movieIds") Collection<Long> movieIds);
+
+    // Агрегаты после пересчёта: ИД фильма, средняя оценка, число отзывов – без загрузки сущностей
+    @Query("select s.movieId, s.averageRating, s.reviewCount from MovieRatingStats s where s.movieId in :movieIds")
+    List<Object[]> findAggregates(@Param("movieIds") Collection<Long> movieIds);
+
+    @Modifying
+    @Query("delete from MovieRatingStats s where s.movieId in (select m.id from Movie m "
+            + "where (:genreId is null or m.genre.id = :genreId) and (:authorId is null or m.author.id = :authorId))")
+    int deleteByMovieFilter(@Param("genreId") Long genreId, @Param("authorId") Long authorId);
+
+    // Пересчёт с нуля по одобренным отзывам; границы корзин совпадают с MovieRatingStats.bucketOf
+    String REBUILD_SELECT = """
+            SELECT movie_id, COUNT(*), SUM(rating), AVG(rating),
+                   SUM(CASE WHEN rating < 1.5 THEN 1 ELSE 0 END),
+                   SUM(CASE WHEN rating >= 1.5 AND rating < 2.5 THEN 1 ELSE 0 END),
+                   SUM(CASE WHEN rating >= 2.5 AND rating < 3.5 THEN 1 ELSE 0 END),
+                   SUM(CASE WHEN rating >= 3.5 AND rating < 4.5 THEN 1 ELSE 0 END),
+                   SUM(CASE WHEN rating >= 4.5 THEN 1 ELSE 0 END)
+            FROM reviews
+            WHERE status = 'APPROVED' AND movie_id IS NOT NULL
+            """;
+
+    String REBUILD_INSERT = "INSERT INTO movie_rating_stats "
+            + "(movie_id, review_count, rating_sum, average_rating, bucket1, bucket2, bucket3, bucket4, bucket5) ";
+
+    @Modifying
+    @Query(value = REBUILD_INSERT + REBUILD_SELECT + " GROUP BY movie_id", nativeQuery = true)
+    int insertFromApprovedReviews();
+
+    @Modifying
+    @Query(value = REBUILD_INSERT + REBUILD_SELECT + " AND movie_id IN (:movieIds) GROUP BY movie_id", nativeQuery = true)
+    int insertFromApprovedReviews(@Param("movieIds") Collection<Long> movieIds);
+}
@@ -24,15 +24,78 @@
 package com.example.movies.repository;
 
 import com.example.movies.model.Movie;
+import com.example.movies.service.SuggestService.MovieSuggestRow;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface MovieRepository extends JpaRepository<Movie, Long> {
     List<Movie> findByTitleContainingIgnoreCaseOrDescriptionContainingIgnoreCase(String title, String description);
     Page<Movie> findByTitleContainingIgnoreCaseOrDescriptionContainingIgnoreCase(String title, String description, Pageable pageable);
+
+    // Полнотекстовый поиск по колонке search_vector (см. FullTextSearchService): ИД в порядке ts_rank
+    @Query(value = "SELECT m.id FROM movies m WHERE m.search_vector @@ websearch_to_tsquery(CAST(:config AS regconfig), :query) "
+            + "ORDER BY ts_rank(m.search_vector, websearch_to_tsquery(CAST(:config AS regconfig), :query)) DESC, m.id",
+            nativeQuery = true)
+    Slice<Long> searchIdsFullText(@Param("query") String query, @Param("config") String config, Pageable pageable);
+
+    @Query(value = "SELECT count(*) FROM movies m WHERE m.search_vector @@ websearch_to_tsquery(CAST(:config AS regconfig), :query)",
+            nativeQuery = true)
+    long countFullText(@Param("query") String query, @Param("config") String config);
+
+    // Фасеты полнотекстового поиска: число совпавших фильмов по паре (жанр, автор) одним запросом
+    @Query(value = "SELECT m.genre_id, m.author_id, count(*) FROM movies m "
+            + "WHERE m.search_vector @@ websearch_to_tsquery(CAST(:config AS regconfig), :query) GROUP BY m.genre_id, m.author_id",
+            nativeQuery = true)
+    List<Object[]> countFullTextByGenreAndAuthor(@Param("query") String query, @Param("config") String config);
+
+    // Подсказки поиска: популярность фильма – число одобренных отзывов из movie_rating_stats
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("select new com.example.movies.service.SuggestService$MovieSuggestRow(m.id, m.title, m.author.id, coalesce(s.reviewCount, 0)) "
+            + "from Movie m left join MovieRatingStats s on s.movieId = m.id")
+    Stream<MovieSuggestRow> streamSuggestRows();
+
+    @Query("select m from Movie m join fetch m.author join fetch m.genre where m.id in :ids")
+    List<Movie> findAllWithAuthorAndGenreByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Однопроходное чтение для экспорта: курсор с fetch size, без кэша и снимков для dirty checking
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+        @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false")
+    })
+    @Query("select m from Movie m join fetch m.author join fetch m.genre")
+    Stream<Movie> streamAllWithAuthorAndGenre();
+
+    @Modifying
+    @Query("delete from Movie m where m.id in :ids")
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Существующие фильмы из списка, заблокированные до конца транзакции в порядке ИД (без взаимоблокировок)
+    @Query(value = "SELECT id FROM movies WHERE id IN (:ids) ORDER BY id FOR UPDATE", nativeQuery = true)
+    List<Long> lockIdsByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Фильтр null означает «любой»; отзывы удаляются заранее через ReviewRepository.deleteByMovieFilter
+    // ИД фильмов, которые удалит deleteByFilter с теми же параметрами
+    @Query("select m.id from Movie m where (:genreId is null or m.genre.id = :genreId) "
+            + "and (:authorId is null or m.author.id = :authorId)")
+    List<Long> findIdsByFilter(@Param("genreId") Long genreId, @Param("authorId") Long authorId);
+
+    @Modifying
+    @Query("delete from Movie m where (:genreId is null or m.genre.id = :genreId) "
+            + "and (:authorId is null or m.author.id = :authorId)")
+    int deleteByFilter(@Param("genreId") Long genreId, @Param("authorId") Long authorId);
 }
@@ -23,12 +23,82 @@
  */
 package com.example.movies.repository;
 
+import com.example.movies.dto.ReviewDto;
 import com.example.movies.model.Review;
+import com.example.movies.model.ReviewStatus;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface ReviewRepository extends JpaRepository<Review, Long> {
     List<Review> findByMovieId(Long movieId);
+
+    // Однопроходное чтение для экспорта: курсор с fetch size, без кэша и снимков для dirty checking
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+        @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false")
+    })
+    @Query("select r from Review r")
+    Stream<Review> streamAll();
+
+    // Модерация одним условным UPDATE: 0 строк – отзыва нет или он уже не в статусе PENDING
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("update Review r set r.status = :status, r.moderatedAt = :moderatedAt, r.version = r.version + 1 "
+            + "where r.id = :id and r.status = com.example.movies.model.ReviewStatus.PENDING")
+    int moderate(@Param("id") Long id, @Param("status") ReviewStatus status, @Param("moderatedAt") Instant moderatedAt);
+
+    @Modifying
+    @Query("delete from Review r where r.movie.id in :movieIds")
+    int deleteByMovieIdIn(@Param("movieIds") Collection<Long> movieIds);
+
+    @Modifying
+    @Query("delete from Review r where r.movie.id in (select m.id from Movie m "
+            + "where (:genreId is null or m.genre.id = :genreId) and (:authorId is null or m.author.id = :authorId))")
+    int deleteByMovieFilter(@Param("genreId") Long genreId, @Param("authorId") Long authorId);
+
+    @Modifying
+    @Query("delete from Review r where (:status is null or r.status = :status) "
+            + "and (:movieId is null or r.movie.id = :movieId)")
+    int deleteByFilter(@Param("status") ReviewStatus status, @Param("movieId") Long movieId);
+
+    // Число одобрений модератором по фильмам за период – для пересборки недельного рейтинга трендов
+    @Query("select r.movie.id, count(r) from Review r where r.status = com.example.movies.model.ReviewStatus.APPROVED "
+            + "and r.moderatedAt >= :from and r.moderatedAt < :to group by r.movie.id")
+    List<Object[]> countApprovalsByMovie(@Param("from") Instant from, @Param("to") Instant to);
+
+    // Одобренные отзывы фильма от новых к старым, keyset по индексу idx_reviews_movie_status_id
+    @Query("select new com.example.movies.dto.ReviewDto(r.id, r.movie.id, r.content, r.rating, r.reviewer, r.status, r.version) "
+            + "from Review r where r.movie.id = :movieId and r.status = com.example.movies.model.ReviewStatus.APPROVED "
+            + "and r.id < :beforeId order by r.id desc")
+    List<ReviewDto> findApprovedByMovieBefore(@Param("movieId") Long movieId, @Param("beforeId") long beforeId, Limit limit);
+
+    // Очередь модерации: keyset по индексу idx_reviews_status_id вместо OFFSET
+    @Query("select r from Review r where r.status = com.example.movies.model.ReviewStatus.PENDING "
+            + "and r.id > :afterId order by r.id")
+    List<Review> findPendingAfter(@Param("afterId") long afterId, Limit limit);
+
+    // Один UPDATE на весь список: ИД передаются одним параметром-массивом, а не списком IN (...)
+    @Modifying(clearAutomatically = true)
+    @Query(value = "UPDATE reviews SET status = :status, moderated_at = :moderatedAt, version = version + 1 "
+            + "WHERE id = ANY(:ids) AND status = 'PENDING'", nativeQuery = true)
+    int moderateAll(@Param("ids") Long[] ids, @Param("status") String status, @Param("moderatedAt") Instant moderatedAt);
+
+    // Фильмы, у которых deleteByFilter удалит одобренные отзывы (их агрегаты рейтинга нужно пересчитать)
+    @Query("select distinct r.movie.id from Review r where r.status = com.example.movies.model.ReviewStatus.APPROVED "
+            + "and (:status is null or r.status = :status) and (:movieId is null or r.movie.id = :movieId)")
+    List<Long> findApprovedMovieIdsByFilter(@Param("status") ReviewStatus status, @Param("movieId") Long movieId);
 }
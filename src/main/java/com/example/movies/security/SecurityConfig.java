@@ -27,6 +27,8 @@ import com.example.movies.service.CustomUserDetailsService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointRequest;
+import org.springframework.core.annotation.Order;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.AuthenticationProvider;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
@@ -42,6 +44,8 @@ import org.springframework.web.cors.CorsConfigurationSource;
 import java.util.Arrays;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import com.example.movies.filter.RateLimiterFilter;
+import jakarta.servlet.DispatcherType;
+import org.springframework.http.HttpMethod;
 
 @Configuration
 @EnableMethodSecurity
@@ -76,6 +80,22 @@ public class SecurityConfig {
                    .build();
     }
 
+    // Эндпоинты Actuator доступны только на порту управления (management.server.port), который не
+    // публикуется наружу: Prometheus опрашивает их без токена, JWT и ограничение частоты к ним не применяются
+    @Bean
+    @Order(1)
+    public SecurityFilterChain managementFilterChain(HttpSecurity http) throws Exception {
+        http
+            .securityMatcher(EndpointRequest.toAnyEndpoint())
+            .csrf(csrf -> csrf.disable())
+            .authorizeHttpRequests(auth -> auth.anyRequest().permitAll())
+            .sessionManagement(session -> session
+                .sessionCreationPolicy(SessionCreationPolicy.STATELESS)
+            );
+
+        return http.build();
+    }
+
     @Bean
     public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
 
@@ -84,7 +104,11 @@ public class SecurityConfig {
             .csrf(csrf -> csrf.disable())
             .formLogin(form -> form.disable())  // disable default login page
             .authorizeHttpRequests(auth -> auth
+                    // Асинхронная отдача (потоковый экспорт) уже прошла авторизацию на исходном запросе
+                    .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                     .requestMatchers("/auth/**","/ghibli/**", "/swagger-ui/**", "/v3/api-docs/**", "/swagger-ui.html").permitAll()
+                    // Одобренные отзывы фильма публичны
+                    .requestMatchers(HttpMethod.GET, "/movies/*/reviews").permitAll()
                     .anyRequest().authenticated()
             )
             .sessionManagement(session -> session
@@ -101,8 +125,9 @@ public class SecurityConfig {
         CorsConfiguration configuration = new CorsConfiguration();
         // Adjust the allowed origin(s) as needed
         configuration.setAllowedOrigins(Arrays.asList("http://localhost:3000"));
-        configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "DELETE", "OPTIONS"));
+        configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "PATCH", "DELETE", "OPTIONS"));
         configuration.setAllowedHeaders(Arrays.asList("*"));
+        configuration.setExposedHeaders(Arrays.asList("ETag"));
         configuration.setAllowCredentials(true);
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
         source.registerCorsConfiguration("/**", configuration);
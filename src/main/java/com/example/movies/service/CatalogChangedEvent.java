@@ -0,0 +1,66 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025 Kudzeri
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.example.movies.service;
+
+import com.example.movies.model.Author;
+import com.example.movies.model.Genre;
+import com.example.movies.model.Movie;
+
+import java.util.Collection;
+import java.util.Set;
+
+/**
+ * Изменение каталога для производных структур (поисковый индекс). Публикуется всеми путями записи
+ * фильмов, авторов и жанров; слушатели получают его после фиксации транзакции. Изменение автора
+ * или жанра затрагивает и все их фильмы; full – изменения без известных ИД (сидер), нужна пересборка.
+ */
+public record CatalogChangedEvent(Set<Long> movieIds, Set<Long> authorIds, Set<Long> genreIds, boolean full) {
+
+    public static CatalogChangedEvent movies(Collection<Long> ids) {
+        return new CatalogChangedEvent(Set.copyOf(ids), Set.of(), Set.of(), false);
+    }
+
+    public static CatalogChangedEvent authors(Collection<Long> ids) {
+        return new CatalogChangedEvent(Set.of(), Set.copyOf(ids), Set.of(), false);
+    }
+
+    public static CatalogChangedEvent genres(Collection<Long> ids) {
+        return new CatalogChangedEvent(Set.of(), Set.of(), Set.copyOf(ids), false);
+    }
+
+    public static CatalogChangedEvent all() {
+        return new CatalogChangedEvent(Set.of(), Set.of(), Set.of(), true);
+    }
+
+    // Для EntityPatchService: тип сущности известен только во время выполнения
+    public static CatalogChangedEvent of(Class<?> type, Long id) {
+        if (type == Movie.class) {
+            return movies(Set.of(id));
+        }
+        if (type == Author.class) {
+            return authors(Set.of(id));
+        }
+        return type == Genre.class ? genres(Set.of(id)) : null;
+    }
+}
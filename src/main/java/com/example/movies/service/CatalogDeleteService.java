@@ -0,0 +1,107 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025 Kudzeri
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.example.movies.service;
+
+import com.example.movies.model.ReviewStatus;
+import com.example.movies.repository.AuthorRepository;
+import com.example.movies.repository.MovieRatingStatsRepository;
+import com.example.movies.repository.MovieRepository;
+import com.example.movies.repository.ReviewRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Удаление каталога множественными DELETE в порядке зависимостей отзывы → агрегаты рейтинга →
+ * фильмы → автор. ИД удаляемых фильмов читаются заранее одним запросом для MoviesDeletedEvent.
+ * Каскад Author.movies (CascadeType.ALL + orphanRemoval) загружал каждый фильм в persistence
+ * context и удалял строки по одной; здесь число операторов не зависит от числа фильмов.
+ */
+@Service
+public class CatalogDeleteService {
+
+    @Autowired
+    private AuthorRepository authorRepository;
+    @Autowired
+    private MovieRepository movieRepository;
+    @Autowired
+    private ReviewRepository reviewRepository;
+    @Autowired
+    private MovieRatingStatsRepository movieRatingStatsRepository;
+    @Autowired
+    private MovieRatingService movieRatingService;
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    public record DeleteResult(int reviews, int movies, int authors) { }
+
+    @Transactional
+    public DeleteResult deleteAuthor(Long authorId) {
+        List<Long> movieIds = movieRepository.findIdsByFilter(null, authorId);
+        int reviews = reviewRepository.deleteByMovieFilter(null, authorId);
+        movieRatingStatsRepository.deleteByMovieFilter(null, authorId);
+        int movies = movieRepository.deleteByFilter(null, authorId);
+        int authors = authorRepository.deleteWithoutCascade(authorId);
+        eventPublisher.publishEvent(CatalogChangedEvent.authors(List.of(authorId)));
+        publishDeleted(movieIds);
+        return new DeleteResult(reviews, movies, authors);
+    }
+
+    @Transactional
+    public DeleteResult deleteMovies(Long genreId, Long authorId) {
+        if (genreId == null && authorId == null) {
+            throw new IllegalArgumentException("At least one of genreId, authorId is required");
+        }
+        List<Long> movieIds = movieRepository.findIdsByFilter(genreId, authorId);
+        int reviews = reviewRepository.deleteByMovieFilter(genreId, authorId);
+        movieRatingStatsRepository.deleteByMovieFilter(genreId, authorId);
+        int movies = movieRepository.deleteByFilter(genreId, authorId);
+        // Фильмы автора или жанра переиндексируются целиком: удалённые пропадут из индекса
+        eventPublisher.publishEvent(new CatalogChangedEvent(Set.of(),
+                authorId != null ? Set.of(authorId) : Set.of(), genreId != null ? Set.of(genreId) : Set.of(), false));
+        publishDeleted(movieIds);
+        return new DeleteResult(reviews, movies, 0);
+    }
+
+    @Transactional
+    public DeleteResult deleteReviews(ReviewStatus status, Long movieId) {
+        if (status == null && movieId == null) {
+            throw new IllegalArgumentException("At least one of status, movieId is required");
+        }
+        List<Long> affectedMovies = reviewRepository.findApprovedMovieIdsByFilter(status, movieId);
+        int reviews = reviewRepository.deleteByFilter(status, movieId);
+        movieRatingService.recompute(affectedMovies);
+        return new DeleteResult(reviews, 0, 0);
+    }
+
+    private void publishDeleted(List<Long> movieIds) {
+        if (!movieIds.isEmpty()) {
+            eventPublisher.publishEvent(MoviesDeletedEvent.of(movieIds));
+        }
+    }
+}
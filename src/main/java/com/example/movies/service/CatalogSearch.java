@@ -0,0 +1,62 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025 Kudzeri
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.example.movies.service;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+
+import java.util.List;
+
+/**
+ * Поиск для /search: возвращает страницу ИД в порядке релевантности, строки ответа загружаются по ним.
+ * Страница не содержит общего числа совпадений: точное число и его оценка запрашиваются отдельно и
+ * только когда они нужны ответу.
+ */
+public interface CatalogSearch {
+
+    /** Число совпавших фильмов с данным жанром и автором (ИД null – у фильма нет жанра или автора) */
+    record FacetRow(Long genreId, Long authorId, long movies) { }
+
+    boolean isAvailable();
+
+    /** Страница ИД без подсчёта всех совпадений: hasNext – по лишней строке (LIMIT size + 1) */
+    Slice<Long> searchMovieIds(String query, Pageable pageable);
+
+    Slice<Long> searchAuthorIds(String query, Pageable pageable);
+
+    long countMovies(String query);
+
+    long countAuthors(String query);
+
+    /** Дешёвая оценка числа совпадений (статистика планировщика, индекс); null – оценки нет */
+    Long estimateMovies(String query);
+
+    Long estimateAuthors(String query);
+
+    /**
+     * Совпавшие фильмы, сгруппированные по паре (жанр, автор), за один проход по результатам поиска:
+     * из этих строк складываются и счётчики по жанрам, и счётчики по авторам, и общее число фильмов.
+     */
+    List<FacetRow> movieFacets(String query);
+}
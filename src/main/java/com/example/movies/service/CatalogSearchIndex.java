@@ -0,0 +1,379 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025 Kudzeri
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.example.movies.service;
+
+import com.example.movies.model.Author;
+import com.example.movies.model.Movie;
+import com.example.movies.repository.AuthorRepository;
+import com.example.movies.repository.MovieRepository;
+import com.example.movies.service.InvertedIndex.Field;
+import com.example.movies.service.InvertedIndex.Hits;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Встроенный поисковый индекс каталога для /search: термины названия, описания, имени автора и жанра
+ * фильма (и имени и биографии автора) в памяти приложения, ранжирование BM25, поиск без обращения к БД.
+ * <p>
+ * Собирается целиком при старте, затем обновляется раз в refresh-interval по CatalogChangedEvent:
+ * изменённые фильмы и авторы перечитываются из БД по ИД, отсутствующие удаляются из индекса.
+ * Изменение автора или жанра переиндексирует все их фильмы. Задержка между коммитом и появлением
+ * изменения в поиске видна в getStats(). Каждый экземпляр приложения держит свой индекс.
+ */
+@Service
+@ConditionalOnProperty(prefix = "movies.search.index", name = "enabled", havingValue = "true")
+public class CatalogSearchIndex implements CatalogSearch {
+
+    private static final Logger logger = LoggerFactory.getLogger(CatalogSearchIndex.class);
+
+    private static final int LOAD_CHUNK_SIZE = 1000;
+
+    // Веса полей: совпадение в названии или имени важнее совпадения в описании
+    private static final int TITLE_WEIGHT = 3;
+    private static final int REFERENCE_WEIGHT = 2;
+    private static final int TEXT_WEIGHT = 1;
+
+    public record Stats(boolean ready, int movies, int authors, int terms, long postings, long estimatedBytes,
+                        int pendingChanges, long lagMillis, long lastRefreshLagMillis,
+                        Instant lastRebuildAt, long lastRebuildMillis) { }
+
+    // Изменения каталога применены к индексу: результаты поиска, полученные до этого, могли быть устаревшими
+    public record RefreshedEvent(Instant refreshedAt) { }
+
+    // ИД автора и жанра фильма в индексе: по ним находятся фильмы, затронутые изменением автора или жанра
+    private record MovieRefs(Long authorId, Long genreId) { }
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private MovieRepository movieRepository;
+
+    @Autowired
+    private AuthorRepository authorRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    // Индексы заменяются целиком при пересборке; инкрементальные изменения – под блокировкой записи
+    private final ReentrantReadWriteLock indexLock = new ReentrantReadWriteLock();
+    private volatile InvertedIndex movies;
+    private InvertedIndex authors;
+    private Map<Long, MovieRefs> movieRefs = new HashMap<>();
+
+    // Без synchronized: виртуальные потоки не закрепляются на носителе во время чтения из БД
+    private final ReentrantLock refreshLock = new ReentrantLock();
+    private final ReentrantLock pendingLock = new ReentrantLock();
+    private Set<Long> pendingMovies = new HashSet<>();
+    private Set<Long> pendingAuthors = new HashSet<>();
+    private Set<Long> pendingGenres = new HashSet<>();
+    private boolean pendingFull;
+    private long pendingSince;
+
+    private volatile long lastRefreshLagMillis;
+    private volatile Instant lastRebuildAt;
+    private volatile long lastRebuildMillis;
+
+    // Без транзакции (запись через save() репозитория) событие обрабатывается сразу
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        pendingLock.lock();
+        try {
+            pendingMovies.addAll(event.movieIds());
+            pendingAuthors.addAll(event.authorIds());
+            pendingGenres.addAll(event.genreIds());
+            pendingFull |= event.full();
+            if (pendingSince == 0) {
+                pendingSince = System.nanoTime();
+            }
+        } finally {
+            pendingLock.unlock();
+        }
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return movies != null;
+    }
+
+    @Override
+    public Slice<Long> searchMovieIds(String query, Pageable pageable) {
+        Hits hits = search(query, (int) pageable.getOffset(), pageable.getPageSize(), true);
+        return new SliceImpl<>(hits.ids(), pageable, pageable.getOffset() + hits.ids().size() < hits.total());
+    }
+
+    @Override
+    public Slice<Long> searchAuthorIds(String query, Pageable pageable) {
+        Hits hits = search(query, (int) pageable.getOffset(), pageable.getPageSize(), false);
+        return new SliceImpl<>(hits.ids(), pageable, pageable.getOffset() + hits.ids().size() < hits.total());
+    }
+
+    // Индекс знает число совпадений точно и считает его без сортировки, поэтому оценка равна точному значению
+    @Override
+    public long countMovies(String query) {
+        return search(query, 0, 0, true).total();
+    }
+
+    @Override
+    public long countAuthors(String query) {
+        return search(query, 0, 0, false).total();
+    }
+
+    @Override
+    public Long estimateMovies(String query) {
+        return countMovies(query);
+    }
+
+    @Override
+    public Long estimateAuthors(String query) {
+        return countAuthors(query);
+    }
+
+    @Override
+    public List<FacetRow> movieFacets(String query) {
+        Map<MovieRefs, long[]> counts = new HashMap<>();
+        indexLock.readLock().lock();
+        try {
+            movies.forEachMatch(query, id -> counts.computeIfAbsent(movieRefs.get(id), refs -> new long[1])[0]++);
+        } finally {
+            indexLock.readLock().unlock();
+        }
+        List<FacetRow> rows = new ArrayList<>(counts.size());
+        counts.forEach((refs, count) -> rows.add(new FacetRow(refs.genreId(), refs.authorId(), count[0])));
+        return rows;
+    }
+
+    private Hits search(String query, int offset, int limit, boolean searchMovies) {
+        indexLock.readLock().lock();
+        try {
+            return (searchMovies ? movies : authors).search(query, offset, limit);
+        } finally {
+            indexLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Применяет накопленные изменения; первый запуск (при старте) собирает индекс целиком.
+     * Транзакция не readOnly: перечитывать только что изменённые строки нужно с основной БД, а не с реплики.
+     */
+    @Scheduled(fixedDelayString = "${movies.search.index.refresh-interval:1s}")
+    @Transactional
+    public void refresh() {
+        boolean refreshed = false;
+        refreshLock.lock();
+        try {
+            Set<Long> movieIds;
+            Set<Long> authorIds;
+            Set<Long> genreIds;
+            boolean full;
+            long since;
+            pendingLock.lock();
+            try {
+                movieIds = pendingMovies;
+                authorIds = pendingAuthors;
+                genreIds = pendingGenres;
+                full = pendingFull;
+                since = pendingSince;
+                pendingMovies = new HashSet<>();
+                pendingAuthors = new HashSet<>();
+                pendingGenres = new HashSet<>();
+                pendingFull = false;
+                pendingSince = 0;
+            } finally {
+                pendingLock.unlock();
+            }
+            if (movies == null || full) {
+                rebuildIndex();
+                refreshed = true;
+            } else if (since != 0) {
+                apply(movieIds, authorIds, genreIds);
+                refreshed = true;
+            }
+            if (since != 0) {
+                lastRefreshLagMillis = (System.nanoTime() - since) / 1_000_000;
+            }
+        } catch (Exception ex) {
+            logger.error("Ошибка при обновлении поискового индекса", ex);
+        } finally {
+            refreshLock.unlock();
+        }
+        if (refreshed) {
+            eventPublisher.publishEvent(new RefreshedEvent(Instant.now()));
+        }
+    }
+
+    @Transactional
+    public Stats rebuild() {
+        refreshLock.lock();
+        try {
+            rebuildIndex();
+        } finally {
+            refreshLock.unlock();
+        }
+        eventPublisher.publishEvent(new RefreshedEvent(Instant.now()));
+        return getStats();
+    }
+
+    private void rebuildIndex() {
+        long startedAt = System.nanoTime();
+        InvertedIndex newMovies = new InvertedIndex();
+        InvertedIndex newAuthors = new InvertedIndex();
+        Map<Long, MovieRefs> newRefs = new HashMap<>();
+        try (Stream<Movie> rows = movieRepository.streamAllWithAuthorAndGenre()) {
+            rows.forEach(movie -> {
+                index(newMovies, newRefs, movie);
+                entityManager.detach(movie);
+            });
+        }
+        authorRepository.findAll().forEach(author -> index(newAuthors, author));
+        indexLock.writeLock().lock();
+        try {
+            movies = newMovies;
+            authors = newAuthors;
+            movieRefs = newRefs;
+        } finally {
+            indexLock.writeLock().unlock();
+        }
+        lastRebuildAt = Instant.now();
+        lastRebuildMillis = (System.nanoTime() - startedAt) / 1_000_000;
+        logger.info("Поисковый индекс собран за {} мс: фильмов {}, авторов {}, терминов {}",
+                lastRebuildMillis, newMovies.size(), newAuthors.size(), newMovies.termCount() + newAuthors.termCount());
+    }
+
+    private void apply(Set<Long> movieIds, Set<Long> authorIds, Set<Long> genreIds) {
+        Set<Long> affectedMovies = new HashSet<>(movieIds);
+        indexLock.readLock().lock();
+        try {
+            movieRefs.forEach((movieId, refs) -> {
+                if (authorIds.contains(refs.authorId()) || genreIds.contains(refs.genreId())) {
+                    affectedMovies.add(movieId);
+                }
+            });
+        } finally {
+            indexLock.readLock().unlock();
+        }
+        // Фильмы, перешедшие к автору или в жанр, приходят в movieIds вместе со сменой ссылки
+        reload(new ArrayList<>(affectedMovies), movieRepository::findAllWithAuthorAndGenreByIdIn, Movie::getId,
+                movie -> index(movies, movieRefs, movie), id -> {
+                    movies.remove(id);
+                    movieRefs.remove(id);
+                });
+        reload(new ArrayList<>(authorIds), authorRepository::findAllById, Author::getId,
+                author -> index(authors, author), authors::remove);
+        logger.debug("Поисковый индекс обновлён: фильмов {}, авторов {}", affectedMovies.size(), authorIds.size());
+    }
+
+    private <T> void reload(List<Long> ids, Function<List<Long>, List<T>> loader,
+                            Function<T, Long> idOf,
+                            Consumer<T> put, Consumer<Long> remove) {
+        for (int from = 0; from < ids.size(); from += LOAD_CHUNK_SIZE) {
+            List<Long> chunk = ids.subList(from, Math.min(from + LOAD_CHUNK_SIZE, ids.size()));
+            List<T> rows = loader.apply(chunk);
+            Set<Long> missing = new HashSet<>(chunk);
+            indexLock.writeLock().lock();
+            try {
+                for (T row : rows) {
+                    missing.remove(idOf.apply(row));
+                    put.accept(row);
+                }
+                missing.forEach(remove);
+            } finally {
+                indexLock.writeLock().unlock();
+            }
+            entityManager.clear();
+        }
+    }
+
+    private static void index(InvertedIndex index, Map<Long, MovieRefs> refs, Movie movie) {
+        Author author = movie.getAuthor();
+        List<Field> fields = new ArrayList<>(4);
+        fields.add(new Field(movie.getTitle(), TITLE_WEIGHT));
+        fields.add(new Field(movie.getDescription(), TEXT_WEIGHT));
+        if (author != null) {
+            fields.add(new Field(author.getName(), REFERENCE_WEIGHT));
+        }
+        if (movie.getGenre() != null) {
+            fields.add(new Field(movie.getGenre().getName(), REFERENCE_WEIGHT));
+        }
+        index.put(movie.getId(), fields);
+        refs.put(movie.getId(), new MovieRefs(author != null ? author.getId() : null,
+                movie.getGenre() != null ? movie.getGenre().getId() : null));
+    }
+
+    private static void index(InvertedIndex index, Author author) {
+        index.put(author.getId(), List.of(new Field(author.getName(), TITLE_WEIGHT), new Field(author.getBiography(), TEXT_WEIGHT)));
+    }
+
+    public Stats getStats() {
+        int pending;
+        long since;
+        pendingLock.lock();
+        try {
+            pending = pendingMovies.size() + pendingAuthors.size() + pendingGenres.size() + (pendingFull ? 1 : 0);
+            since = pendingSince;
+        } finally {
+            pendingLock.unlock();
+        }
+        indexLock.readLock().lock();
+        try {
+            boolean ready = movies != null;
+            return new Stats(ready,
+                    ready ? movies.size() : 0,
+                    ready ? authors.size() : 0,
+                    ready ? movies.termCount() + authors.termCount() : 0,
+                    ready ? movies.postingCount() + authors.postingCount() : 0,
+                    ready ? movies.estimatedBytes() + authors.estimatedBytes() : 0,
+                    pending,
+                    since != 0 ? (System.nanoTime() - since) / 1_000_000 : 0,
+                    lastRefreshLagMillis, lastRebuildAt, lastRebuildMillis);
+        } finally {
+            indexLock.readLock().unlock();
+        }
+    }
+}
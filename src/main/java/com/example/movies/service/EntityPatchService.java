@@ -0,0 +1,155 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025 Kudzeri
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.example.movies.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaUpdate;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
+import jakarta.persistence.metamodel.EntityType;
+import jakarta.persistence.metamodel.SingularAttribute;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Частичное обновление сущностей одним оператором
+ * {@code UPDATE ... SET <переданные поля>, version = version + 1 WHERE id = ? [AND version = ?]}
+ * без предварительного SELECT. Связи ManyToOne задаются как {@code {"id": ...}}; существование связанной
+ * строки проверяется в том же UPDATE (EXISTS), а неизвестный ИД связи – ошибка IllegalArgumentException.
+ * Версия в условии берётся из If-Match; строка, изменённая кем-то другим, не обновляется.
+ */
+@Service
+public class EntityPatchService {
+
+    public enum Outcome { UPDATED, NOT_FOUND, VERSION_MISMATCH }
+
+    // version известна только при условном обновлении: без If-Match новую версию не читаем
+    public record PatchResult(Outcome outcome, Long version) { }
+
+    private record Reference(String attribute, Class<?> type, Long id) { }
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Transactional
+    public <T> PatchResult patch(Class<T> type, Long id, Long expectedVersion,
+                                 Map<String, Object> changes, Set<String> patchable) {
+        if (changes.isEmpty()) {
+            throw new IllegalArgumentException("Patch must contain at least one field");
+        }
+        EntityType<T> entity = entityManager.getMetamodel().entity(type);
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaUpdate<T> update = cb.createCriteriaUpdate(type);
+        Root<T> root = update.from(type);
+
+        List<Reference> references = new ArrayList<>();
+        for (Map.Entry<String, Object> change : changes.entrySet()) {
+            if (!patchable.contains(change.getKey())) {
+                throw new IllegalArgumentException("Field cannot be patched: " + change.getKey());
+            }
+            SingularAttribute<? super T, ?> attribute = entity.getSingularAttribute(change.getKey());
+            if (attribute.isAssociation() && change.getValue() != null) {
+                Reference reference = new Reference(attribute.getName(), attribute.getJavaType(), referenceId(attribute, change.getValue()));
+                references.add(reference);
+                update.set(root.get(attribute.getName()), entityManager.getReference(reference.type(), reference.id()));
+            } else {
+                update.set(root.get(attribute.getName()), convert(attribute, change.getValue()));
+            }
+        }
+        Path<Long> version = root.get("version");
+        update.set(version, cb.sum(version, 1L));
+
+        Predicate predicate = cb.equal(root.get("id"), id);
+        if (expectedVersion != null) {
+            predicate = cb.and(predicate, cb.equal(version, expectedVersion));
+        }
+        // Несуществующая связанная строка не даёт обновить ни одной строки вместо нарушения внешнего ключа
+        for (Reference reference : references) {
+            Subquery<Long> exists = update.subquery(Long.class);
+            Root<?> target = exists.from(reference.type());
+            exists.select(target.get("id")).where(cb.equal(target.get("id"), reference.id()));
+            predicate = cb.and(predicate, cb.exists(exists));
+        }
+        update.where(predicate);
+
+        if (entityManager.createQuery(update).executeUpdate() == 1) {
+            CatalogChangedEvent event = CatalogChangedEvent.of(type, id);
+            if (event != null) {
+                eventPublisher.publishEvent(event);
+            }
+            return new PatchResult(Outcome.UPDATED, expectedVersion != null ? expectedVersion + 1 : null);
+        }
+        // Отличаем отсутствующую строку от устаревшей версии и неизвестной связи только на пути ошибки
+        if (entityManager.find(type, id) == null) {
+            return new PatchResult(Outcome.NOT_FOUND, null);
+        }
+        for (Reference reference : references) {
+            if (entityManager.find(reference.type(), reference.id()) == null) {
+                throw new IllegalArgumentException("Unknown " + reference.attribute() + " id: " + reference.id());
+            }
+        }
+        return new PatchResult(Outcome.VERSION_MISMATCH, null);
+    }
+
+    private Object convert(SingularAttribute<?, ?> attribute, Object value) {
+        Class<?> javaType = attribute.getJavaType();
+        if (value == null) {
+            if (attribute.isAssociation() || javaType.isPrimitive()) {
+                throw new IllegalArgumentException(attribute.getName() + " must not be null");
+            }
+            return null;
+        }
+        try {
+            return objectMapper.convertValue(value, javaType);
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalArgumentException("Invalid value for " + attribute.getName(), ex);
+        }
+    }
+
+    private static Long referenceId(SingularAttribute<?, ?> attribute, Object value) {
+        Object id = value instanceof Map<?, ?> map ? map.get("id") : null;
+        if (!(id instanceof Number number)) {
+            throw new IllegalArgumentException(attribute.getName() + " must be an object with a numeric id");
+        }
+        return number.longValue();
+    }
+}
@@ -0,0 +1,237 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025 Kudzeri
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.example.movies.service;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.From;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import jakarta.persistence.metamodel.Attribute;
+import jakarta.persistence.metamodel.EntityType;
+import jakarta.persistence.metamodel.ManagedType;
+import jakarta.persistence.metamodel.SingularAttribute;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeSet;
+
+/**
+ * Разреженные наборы полей ({@code ?fields=title,author.name}): в SELECT попадают только колонки
+ * запрошенных полей, а результат – упорядоченные Map, которые Jackson пишет без остальных свойств.
+ * Имена полей совпадают с JSON полного ответа; связь ManyToOne без вложенного поля раскрывается во все
+ * её простые атрибуты, коллекции не выбираются. id возвращается всегда.
+ */
+@Service
+public class FieldProjectionService {
+
+    // fields – имена в JSON (через точку – вложенный объект), paths – соответствующие пути атрибутов
+    public record FieldSelection<T>(Class<T> type, List<String> fields, List<String> paths) { }
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public <T> FieldSelection<T> parse(Class<T> type, String fields) {
+        return parse(type, fields, Map.of());
+    }
+
+    /**
+     * aliases задают допустимые поля ответа, если JSON отличается от сущности (ReviewDto.movieId → movie.id);
+     * при непустом aliases другие поля не принимаются.
+     */
+    public <T> FieldSelection<T> parse(Class<T> type, String fields, Map<String, String> aliases) {
+        EntityType<T> entity = entityManager.getMetamodel().entity(type);
+        Map<String, String> selected = new LinkedHashMap<>();
+        selected.put("id", "id");
+        for (String raw : fields.split(",")) {
+            String field = raw.trim();
+            if (field.isEmpty()) {
+                continue;
+            }
+            if (!aliases.isEmpty() && !aliases.containsKey(field)) {
+                throw new IllegalArgumentException("Unknown field: " + field);
+            }
+            String path = aliases.getOrDefault(field, field);
+            String[] parts = path.split("\\.");
+            Attribute<?, ?> attribute = parts.length <= 2 ? attribute(entity, parts[0]) : null;
+            if (attribute == null || attribute.isCollection()) {
+                throw new IllegalArgumentException("Unknown field: " + field);
+            }
+            if (!attribute.isAssociation()) {
+                if (parts.length > 1) {
+                    throw new IllegalArgumentException("Unknown field: " + field);
+                }
+                selected.put(field, path);
+                continue;
+            }
+            EntityType<?> target = entityManager.getMetamodel().entity(attribute.getJavaType());
+            if (parts.length == 2) {
+                Attribute<?, ?> nested = attribute(target, parts[1]);
+                if (nested == null || nested.isAssociation() || nested.isCollection()) {
+                    throw new IllegalArgumentException("Unknown field: " + field);
+                }
+                selected.put(field, path);
+            } else {
+                TreeSet<String> names = new TreeSet<>();
+                for (SingularAttribute<?, ?> nested : target.getSingularAttributes()) {
+                    if (!nested.isAssociation()) {
+                        names.add(nested.getName());
+                    }
+                }
+                names.forEach(name -> selected.put(field + "." + name, path + "." + name));
+            }
+        }
+        return new FieldSelection<>(type, List.copyOf(selected.keySet()), List.copyOf(selected.values()));
+    }
+
+    private static Attribute<?, ?> attribute(ManagedType<?> type, String name) {
+        return type.getAttributes().stream().filter(a -> a.getName().equals(name)).findFirst().orElse(null);
+    }
+
+    @Transactional(readOnly = true)
+    public <T> List<Map<String, Object>> findAll(FieldSelection<T> selection, Specification<T> where, Sort sort, Integer limit) {
+        TypedQuery<Tuple> query = query(selection, where, sort);
+        if (limit != null) {
+            query.setMaxResults(limit);
+        }
+        return toMaps(selection, query.getResultList());
+    }
+
+    @Transactional(readOnly = true)
+    public <T> Optional<Map<String, Object>> findById(FieldSelection<T> selection, Object id) {
+        Specification<T> byId = (root, query, cb) -> cb.equal(root.get("id"), id);
+        return findAll(selection, byId, Sort.unsorted(), 1).stream().findFirst();
+    }
+
+    // Как Spring Data: запрос количества не выполняется, если страница неполная
+    @Transactional(readOnly = true)
+    public <T> Page<Map<String, Object>> findPage(FieldSelection<T> selection, Specification<T> where, Pageable pageable) {
+        TypedQuery<Tuple> query = query(selection, where, pageable.getSort());
+        query.setFirstResult((int) pageable.getOffset());
+        query.setMaxResults(pageable.getPageSize());
+        List<Map<String, Object>> content = toMaps(selection, query.getResultList());
+        return PageableExecutionUtils.getPage(content, pageable, () -> count(selection.type(), where));
+    }
+
+    // Без запроса количества: hasNext определяется лишней строкой (LIMIT size + 1)
+    @Transactional(readOnly = true)
+    public <T> Slice<Map<String, Object>> findSlice(FieldSelection<T> selection, Specification<T> where, Pageable pageable) {
+        TypedQuery<Tuple> query = query(selection, where, pageable.getSort());
+        query.setFirstResult((int) pageable.getOffset());
+        query.setMaxResults(pageable.getPageSize() + 1);
+        List<Map<String, Object>> content = toMaps(selection, query.getResultList());
+        boolean hasNext = content.size() > pageable.getPageSize();
+        return new SliceImpl<>(hasNext ? content.subList(0, pageable.getPageSize()) : content, pageable, hasNext);
+    }
+
+    private <T> TypedQuery<Tuple> query(FieldSelection<T> selection, Specification<T> where, Sort sort) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<T> root = query.from(selection.type());
+        Map<String, From<?, ?>> joins = new HashMap<>();
+        List<Selection<?>> columns = new ArrayList<>();
+        for (String path : selection.paths()) {
+            columns.add(path(root, joins, path));
+        }
+        query.multiselect(columns);
+        if (where != null) {
+            Predicate predicate = where.toPredicate(root, query, cb);
+            if (predicate != null) {
+                query.where(predicate);
+            }
+        }
+        query.orderBy(QueryUtils.toOrders(sort, root, cb));
+        return entityManager.createQuery(query);
+    }
+
+    // ИД связи читается из внешнего ключа; остальные вложенные поля – через LEFT JOIN, один на связь
+    private static Path<?> path(Root<?> root, Map<String, From<?, ?>> joins, String path) {
+        int dot = path.indexOf('.');
+        if (dot < 0) {
+            return root.get(path);
+        }
+        String association = path.substring(0, dot);
+        String attribute = path.substring(dot + 1);
+        if (attribute.equals("id")) {
+            return root.get(association).get("id");
+        }
+        return joins.computeIfAbsent(association, name -> root.join(name, JoinType.LEFT)).get(attribute);
+    }
+
+    @Transactional(readOnly = true)
+    public <T> long count(Class<T> type, Specification<T> where) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<T> root = query.from(type);
+        query.select(cb.count(root));
+        if (where != null) {
+            Predicate predicate = where.toPredicate(root, query, cb);
+            if (predicate != null) {
+                query.where(predicate);
+            }
+        }
+        return entityManager.createQuery(query).getSingleResult();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Map<String, Object>> toMaps(FieldSelection<?> selection, List<Tuple> rows) {
+        List<Map<String, Object>> result = new ArrayList<>(rows.size());
+        for (Tuple row : rows) {
+            Map<String, Object> map = new LinkedHashMap<>();
+            for (int i = 0; i < selection.fields().size(); i++) {
+                String field = selection.fields().get(i);
+                int dot = field.indexOf('.');
+                if (dot < 0) {
+                    map.put(field, row.get(i));
+                } else {
+                    Map<String, Object> nested = (Map<String, Object>) map.computeIfAbsent(field.substring(0, dot), key -> new LinkedHashMap<>());
+                    nested.put(field.substring(dot + 1), row.get(i));
+                }
+            }
+            result.add(map);
+        }
+        return result;
+    }
+}
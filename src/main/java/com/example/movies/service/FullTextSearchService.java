@@ -0,0 +1,158 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025 Kudzeri
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.example.movies.service;
+
+import com.example.movies.repository.AuthorRepository;
+import com.example.movies.repository.MovieRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.dialect.PostgreSQLDialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Полнотекстовый поиск PostgreSQL для /search: генерируемые колонки search_vector (tsvector,
+ * название/имя с весом A, описание/биография с весом B) с GIN-индексами, запрос разбирается
+ * websearch_to_tsquery, результаты упорядочены по ts_rank. Колонки и индексы создаются при старте;
+ * на другой СУБД сервис недоступен и поиск остаётся на LIKE.
+ */
+@Service
+@ConditionalOnProperty(prefix = "movies.search.full-text", name = "enabled", havingValue = "true")
+public class FullTextSearchService implements CatalogSearch {
+
+    private static final Logger logger = LoggerFactory.getLogger(FullTextSearchService.class);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private MovieRepository movieRepository;
+
+    @Autowired
+    private AuthorRepository authorRepository;
+
+    @Autowired
+    private QueryPlanEstimator queryPlanEstimator;
+
+    // Конфигурация текстового поиска (english, russian, simple); зашита в выражение колонки,
+    // поэтому после её смены колонки search_vector нужно удалить, чтобы они пересоздались
+    @Value("${movies.search.full-text.config:english}")
+    private String config;
+
+    private volatile boolean available;
+
+    @PostConstruct
+    public void createSchema() {
+        Dialect dialect = entityManagerFactory.unwrap(SessionFactoryImplementor.class).getJdbcServices().getDialect();
+        if (!(dialect instanceof PostgreSQLDialect)) {
+            logger.warn("Полнотекстовый поиск требует PostgreSQL, используется поиск по LIKE");
+            return;
+        }
+        if (!config.matches("[a-z_]+")) {
+            throw new IllegalStateException("Invalid text search config: " + config);
+        }
+        try {
+            createColumn("movies", "title", "description");
+            createColumn("authors", "name", "biography");
+            available = true;
+        } catch (Exception ex) {
+            logger.error("Ошибка при создании колонок полнотекстового поиска, используется поиск по LIKE", ex);
+        }
+    }
+
+    // Добавление STORED-колонки переписывает таблицу; на существующей колонке выполняется мгновенно
+    private void createColumn(String table, String primary, String secondary) {
+        jdbcTemplate.execute("ALTER TABLE " + table + " ADD COLUMN IF NOT EXISTS search_vector tsvector GENERATED ALWAYS AS ("
+                + "setweight(to_tsvector('" + config + "', coalesce(" + primary + ", '')), 'A') || "
+                + "setweight(to_tsvector('" + config + "', coalesce(" + secondary + ", '')), 'B')) STORED");
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_" + table + "_search_vector ON " + table + " USING GIN (search_vector)");
+        logger.info("Полнотекстовый поиск по {}: колонка search_vector ({}) и GIN-индекс готовы", table, config);
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return available;
+    }
+
+    @Override
+    public Slice<Long> searchMovieIds(String query, Pageable pageable) {
+        return movieRepository.searchIdsFullText(query, config, pageable);
+    }
+
+    @Override
+    public Slice<Long> searchAuthorIds(String query, Pageable pageable) {
+        return authorRepository.searchIdsFullText(query, config, pageable);
+    }
+
+    @Override
+    public long countMovies(String query) {
+        return movieRepository.countFullText(query, config);
+    }
+
+    @Override
+    public long countAuthors(String query) {
+        return authorRepository.countFullText(query, config);
+    }
+
+    @Override
+    public List<FacetRow> movieFacets(String query) {
+        List<FacetRow> rows = new ArrayList<>();
+        for (Object[] row : movieRepository.countFullTextByGenreAndAuthor(query, config)) {
+            rows.add(new FacetRow(row[0] != null ? ((Number) row[0]).longValue() : null,
+                    row[1] != null ? ((Number) row[1]).longValue() : null, ((Number) row[2]).longValue()));
+        }
+        return rows;
+    }
+
+    // Оценка планировщика опирается на статистику GIN-индекса по лексемам запроса
+    @Override
+    public Long estimateMovies(String query) {
+        return estimate("movies", query);
+    }
+
+    @Override
+    public Long estimateAuthors(String query) {
+        return estimate("authors", query);
+    }
+
+    private Long estimate(String table, String query) {
+        return queryPlanEstimator.estimateRows("SELECT 1 FROM " + table
+                + " WHERE search_vector @@ websearch_to_tsquery(CAST(? AS regconfig), ?)", config, query);
+    }
+}
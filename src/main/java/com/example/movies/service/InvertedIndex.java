@@ -0,0 +1,297 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025 Kudzeri
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.example.movies.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.LongConsumer;
+
+/**
+ * Компактный инвертированный индекс с ранжированием BM25 для CatalogSearchIndex. Постинги – пары
+ * массивов int (номер документа по возрастанию, взвешенная частота). Документ при изменении получает
+ * новый номер в конце, старый помечается удалённым, поэтому постинги только дописываются и остаются
+ * упорядоченными; удалённые номера вычищаются сжатием, когда их становится больше живых.
+ * <p>
+ * Поле документа учитывается с весом (название важнее описания): частота термина и длина документа
+ * суммируются с весами полей, как в BM25F. Не потокобезопасен – синхронизацию обеспечивает владелец.
+ */
+final class InvertedIndex {
+
+    private static final float K1 = 1.2f;
+    private static final float B = 0.75f;
+
+    record Field(String text, int weight) { }
+
+    record Hits(int total, List<Long> ids) { }
+
+    private static final class Postings {
+        int[] docs = new int[4];
+        int[] freqs = new int[4];
+        int size;
+
+        void add(int doc, int freq) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                freqs = Arrays.copyOf(freqs, size * 2);
+            }
+            docs[size] = doc;
+            freqs[size++] = freq;
+        }
+
+        int freq(int doc) {
+            int i = Arrays.binarySearch(docs, 0, size, doc);
+            return i >= 0 ? freqs[i] : 0;
+        }
+    }
+
+    private final Map<String, Postings> terms = new HashMap<>();
+    private final Map<Long, Integer> docsById = new HashMap<>();
+    private long[] ids = new long[16];
+    private int[] lengths = new int[16];
+    private final BitSet deleted = new BitSet();
+    private int deletedCount;
+    private int maxDoc;
+    private long totalLength;
+    private long postings;
+
+    /**
+     * Разбивает текст на термины: последовательности букв и цифр в нижнем регистре.
+     */
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean letter = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (letter && start < 0) {
+                start = i;
+            } else if (!letter && start >= 0) {
+                tokens.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Добавляет или заменяет документ.
+     */
+    void put(long id, List<Field> fields) {
+        remove(id);
+        Map<String, Integer> freqs = new HashMap<>();
+        int length = 0;
+        for (Field field : fields) {
+            for (String token : tokenize(field.text())) {
+                freqs.merge(token, field.weight(), Integer::sum);
+                length += field.weight();
+            }
+        }
+        int doc = maxDoc++;
+        if (doc == ids.length) {
+            ids = Arrays.copyOf(ids, doc * 2);
+            lengths = Arrays.copyOf(lengths, doc * 2);
+        }
+        ids[doc] = id;
+        lengths[doc] = length;
+        totalLength += length;
+        docsById.put(id, doc);
+        freqs.forEach((term, freq) -> terms.computeIfAbsent(term, t -> new Postings()).add(doc, freq));
+        postings += freqs.size();
+    }
+
+    boolean remove(long id) {
+        Integer doc = docsById.remove(id);
+        if (doc == null) {
+            return false;
+        }
+        deleted.set(doc);
+        deletedCount++;
+        totalLength -= lengths[doc];
+        if (deletedCount > 1024 && deletedCount > docsById.size()) {
+            compact();
+        }
+        return true;
+    }
+
+    boolean contains(long id) {
+        return docsById.containsKey(id);
+    }
+
+    int size() {
+        return docsById.size();
+    }
+
+    int termCount() {
+        return terms.size();
+    }
+
+    long postingCount() {
+        return postings;
+    }
+
+    // Приблизительный объём: 8 байт на постинг, массивы документов и ~64 байта на термин и ИД
+    long estimatedBytes() {
+        return postings * 8 + (long) ids.length * 12 + (terms.size() + docsById.size()) * 64L;
+    }
+
+    /**
+     * Документы, содержащие все термины запроса, по убыванию BM25, при равенстве – по ИД.
+     * Частота документа термина (df) включает ещё не сжатые удалённые документы. limit = 0 – только число совпадений.
+     */
+    Hits search(String query, int offset, int limit) {
+        List<Postings> lists = postings(query);
+        if (lists == null) {
+            return new Hits(0, List.of());
+        }
+        int live = docsById.size();
+        float averageLength = live > 0 ? (float) totalLength / live : 1f;
+        float[] idf = new float[lists.size()];
+        for (int t = 0; t < lists.size(); t++) {
+            int df = lists.get(t).size;
+            idf[t] = (float) Math.log(1 + (live - df + 0.5) / (df + 0.5));
+        }
+
+        Postings rarest = lists.get(0);
+        int[] matches = new int[rarest.size];
+        float[] scores = new float[rarest.size];
+        int count = 0;
+        candidates:
+        for (int i = 0; i < rarest.size; i++) {
+            int doc = rarest.docs[i];
+            if (deleted.get(doc)) {
+                continue;
+            }
+            float norm = K1 * (1 - B + B * lengths[doc] / averageLength);
+            float score = 0;
+            for (int t = 0; t < lists.size(); t++) {
+                int freq = t == 0 ? rarest.freqs[i] : lists.get(t).freq(doc);
+                if (freq == 0) {
+                    continue candidates;
+                }
+                score += idf[t] * freq * (K1 + 1) / (freq + norm);
+            }
+            matches[count] = doc;
+            scores[count++] = score;
+        }
+
+        if (limit == 0 || offset >= count) {
+            return new Hits(count, List.of());
+        }
+        Integer[] order = new Integer[count];
+        for (int i = 0; i < count; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> scores[a] != scores[b] ? Float.compare(scores[b], scores[a]) : Long.compare(ids[matches[a]], ids[matches[b]]));
+        List<Long> page = new ArrayList<>();
+        for (int i = offset; i < count && i < (long) offset + limit; i++) {
+            page.add(ids[matches[order[i]]]);
+        }
+        return new Hits(count, page);
+    }
+
+    /**
+     * ИД всех документов, содержащих все термины запроса, без ранжирования и в порядке номеров документов.
+     */
+    void forEachMatch(String query, LongConsumer action) {
+        List<Postings> lists = postings(query);
+        if (lists == null) {
+            return;
+        }
+        Postings rarest = lists.get(0);
+        candidates:
+        for (int i = 0; i < rarest.size; i++) {
+            int doc = rarest.docs[i];
+            if (deleted.get(doc)) {
+                continue;
+            }
+            for (int t = 1; t < lists.size(); t++) {
+                if (lists.get(t).freq(doc) == 0) {
+                    continue candidates;
+                }
+            }
+            action.accept(ids[doc]);
+        }
+    }
+
+    // Постинги терминов запроса от самого редкого; null – какого-то термина нет или запрос пуст
+    private List<Postings> postings(String query) {
+        Set<String> queryTerms = new LinkedHashSet<>(tokenize(query));
+        List<Postings> lists = new ArrayList<>(queryTerms.size());
+        for (String term : queryTerms) {
+            Postings list = terms.get(term);
+            if (list == null) {
+                return null;
+            }
+            lists.add(list);
+        }
+        if (lists.isEmpty()) {
+            return null;
+        }
+        lists.sort(Comparator.comparingInt(list -> list.size));
+        return lists;
+    }
+
+    // Перенумерация живых документов подряд; порядок сохраняется, поэтому постинги остаются упорядоченными
+    private void compact() {
+        int[] remap = new int[maxDoc];
+        int next = 0;
+        for (int doc = 0; doc < maxDoc; doc++) {
+            if (deleted.get(doc)) {
+                remap[doc] = -1;
+            } else {
+                remap[doc] = next;
+                ids[next] = ids[doc];
+                lengths[next++] = lengths[doc];
+            }
+        }
+        postings = 0;
+        terms.values().removeIf(list -> {
+            int size = 0;
+            for (int i = 0; i < list.size; i++) {
+                int doc = remap[list.docs[i]];
+                if (doc >= 0) {
+                    list.docs[size] = doc;
+                    list.freqs[size++] = list.freqs[i];
+                }
+            }
+            list.size = size;
+            postings += size;
+            return size == 0;
+        });
+        docsById.replaceAll((id, doc) -> remap[doc]);
+        deleted.clear();
+        deletedCount = 0;
+        maxDoc = next;
+    }
+}
@@ -0,0 +1,415 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025 Kudzeri
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.example.movies.service;
+
+import com.example.movies.model.AdminJob;
+import com.example.movies.model.JobStatus;
+import com.example.movies.model.JobType;
+import com.example.movies.repository.AdminJobRepository;
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Фоновые задачи администратора (заполнение БД, импорт, пересборка индексов и агрегатов), чтобы
+ * долгие операции не занимали поток HTTP-запроса: запрос ставит задачу и сразу получает её ИД,
+ * состояние опрашивается через /admin/jobs/{id}.
+ * <p>
+ * Задачи выполняются в ограниченном пуле из workers потоков с очередью на queue-capacity задач;
+ * при заполненной очереди постановка отклоняется. Состояние пишется в таблицу admin_jobs: прогресс –
+ * не чаще раза в секунду, пульс – раз в heartbeat-interval. Задачи, чей экземпляр перестал обновлять
+ * пульс дольше stale-after, любой экземпляр помечает FAILED.
+ * <p>
+ * Отмена кооперативная: задача проверяет {@link JobProgress#isCancelled()} между порциями работы и
+ * прерывается {@link CancellationException}; уже закоммиченные порции остаются в БД.
+ * <p>
+ * Метрики: movies.jobs (длительность по type и status), movies.jobs.items (обработанные единицы),
+ * movies.jobs.queued и movies.jobs.running (задачи этого экземпляра).
+ */
+@Service
+public class JobService {
+
+    private static final Logger logger = LoggerFactory.getLogger(JobService.class);
+
+    private static final long PROGRESS_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+    // Длина колонок admin_jobs.result и admin_jobs.error
+    private static final int MAX_RESULT_LENGTH = 4000;
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    /**
+     * Прогресс задачи в единицах, которые она выбирает сама (строки, порции, шаги).
+     */
+    public interface JobProgress {
+
+        // Для вызовов вне задач: прогресс никуда не пишется, отмены не бывает
+        JobProgress NONE = new JobProgress() {
+            @Override
+            public void setTotal(long total) { }
+
+            @Override
+            public void advance(long delta) { }
+
+            @Override
+            public boolean isCancelled() { return false; }
+        };
+
+        void setTotal(long total);
+
+        void advance(long delta);
+
+        boolean isCancelled();
+
+        default void checkCancelled() {
+            if (isCancelled()) {
+                throw new CancellationException("Job cancelled");
+            }
+        }
+    }
+
+    @FunctionalInterface
+    public interface JobTask {
+        // Результат сериализуется в JSON и сохраняется в admin_jobs.result
+        Object run(JobProgress progress) throws Exception;
+    }
+
+    public record JobView(Long id, JobType type, JobStatus status, String parameters, long processed, Long total,
+                          Double percent, Double itemsPerSecond, boolean cancelRequested, Instant createdAt,
+                          Instant startedAt, Instant finishedAt, Long durationMillis, String error,
+                          @JsonRawValue String result) { }
+
+    public record JobStatsRow(JobType type, JobStatus status, Long jobs, Double avgMillis, Long maxMillis,
+                              Long processed, Long totalMillis) { }
+
+    public record JobStats(JobType type, JobStatus status, long jobs, Double avgMillis, Long maxMillis,
+                           long processed, Double itemsPerSecond) { }
+
+    @PersistenceContext
+    private EntityManager entityManager;
+    @Autowired
+    private AdminJobRepository jobRepository;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${movies.jobs.workers:2}")
+    private int workers;
+    @Value("${movies.jobs.queue-capacity:20}")
+    private int queueCapacity;
+    @Value("${movies.jobs.stale-after:5m}")
+    private Duration staleAfter;
+    @Value("${movies.jobs.shutdown-timeout:30s}")
+    private Duration shutdownTimeout;
+
+    private ThreadPoolExecutor executor;
+    // Состояние пишется в отдельной транзакции: задача может вызывать прогресс внутри своей
+    private TransactionTemplate writes;
+    // Задачи этого экземпляра: в очереди и выполняющиеся
+    private final Map<Long, LocalJob> localJobs = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void start() {
+        writes = new TransactionTemplate(transactionManager);
+        writes.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        executor = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueCapacity),
+                Thread.ofPlatform().name("admin-job-", 1).factory());
+        Gauge.builder("movies.jobs.queued", executor, pool -> pool.getQueue().size())
+                .description("Admin jobs waiting for a worker on this instance").register(meterRegistry);
+        Gauge.builder("movies.jobs.running", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Admin jobs running on this instance").register(meterRegistry);
+    }
+
+    /**
+     * Сохраняет задачу со статусом QUEUED и ставит её в очередь пула.
+     *
+     * @throws RejectedExecutionException если очередь заполнена; задача сохраняется как FAILED
+     */
+    public JobView submit(JobType type, String parameters, JobTask task) {
+        AdminJob job = writes.execute(status -> jobRepository.save(new AdminJob(type, parameters)));
+        LocalJob local = new LocalJob(job.getId(), type, task);
+        localJobs.put(job.getId(), local);
+        try {
+            executor.execute(local);
+        } catch (RejectedExecutionException ex) {
+            localJobs.remove(job.getId());
+            finish(job.getId(), JobStatus.FAILED, 0, null, null, "Job queue is full", null);
+            throw ex;
+        }
+        logger.info("Задача {} {} поставлена в очередь ({})", job.getId(), type, parameters);
+        return view(job);
+    }
+
+    public Optional<JobView> find(Long id) {
+        return jobRepository.findById(id).map(this::view);
+    }
+
+    public List<JobView> list(JobStatus status, int limit) {
+        return jobRepository.findLatest(status, PageRequest.of(0, limit)).stream().map(this::view).toList();
+    }
+
+    /**
+     * Запрашивает отмену задачи. Задачу другого экземпляра тот увидит при следующем пульсе.
+     *
+     * @throws IllegalStateException если задача уже завершена
+     */
+    public Optional<JobView> cancel(Long id) {
+        Optional<AdminJob> job = jobRepository.findById(id);
+        if (job.isEmpty()) {
+            return Optional.empty();
+        }
+        if (job.get().getStatus().isFinished() || writes.execute(status -> jobRepository.requestCancel(id)) == 0) {
+            throw new IllegalStateException("Job " + id + " is already finished");
+        }
+        LocalJob local = localJobs.get(id);
+        if (local != null) {
+            local.cancelled = true;
+        }
+        logger.info("Запрошена отмена задачи {}", id);
+        // UPDATE выполнен запросом в обход сущности, а загруженная выше строка остаётся в контексте
+        // персистентности запроса (open-in-view), поэтому её нужно перечитать
+        return Optional.of(writes.execute(status -> {
+            AdminJob current = entityManager.find(AdminJob.class, id);
+            entityManager.refresh(current);
+            return view(current);
+        }));
+    }
+
+    // Длительность и скорость по типам задач; скорость – обработанные единицы за суммарное время
+    public List<JobStats> stats() {
+        return jobRepository.summarize().stream()
+                .map(row -> new JobStats(row.type(), row.status(), row.jobs(), row.avgMillis(), row.maxMillis(),
+                        row.processed() != null ? row.processed() : 0,
+                        perSecond(row.processed() != null ? row.processed() : 0, row.totalMillis())))
+                .toList();
+    }
+
+    @Scheduled(fixedDelayString = "${movies.jobs.heartbeat-interval:30s}",
+            initialDelayString = "${movies.jobs.heartbeat-interval:30s}")
+    public void heartbeat() {
+        try {
+            Instant now = Instant.now();
+            Set<Long> ids = Set.copyOf(localJobs.keySet());
+            if (!ids.isEmpty()) {
+                List<Long> cancelled = writes.execute(status -> {
+                    jobRepository.touch(ids, now);
+                    return jobRepository.findCancelRequested(ids);
+                });
+                for (Long id : cancelled) {
+                    LocalJob local = localJobs.get(id);
+                    if (local != null) {
+                        local.cancelled = true;
+                    }
+                }
+            }
+            int stale = writes.execute(status -> jobRepository.failStale(now.minus(staleAfter), now,
+                    "Job stopped sending heartbeats for more than " + staleAfter));
+            if (stale > 0) {
+                logger.warn("Задач без пульса дольше {} помечено FAILED: {}", staleAfter, stale);
+            }
+        } catch (Exception ex) {
+            logger.warn("Ошибка при обновлении пульса задач", ex);
+        }
+    }
+
+    /**
+     * Выполняющиеся задачи получают отмену, задачи из очереди завершаются, не начавшись. Задачи, не
+     * успевшие остановиться за shutdown-timeout, другие экземпляры пометят FAILED по пульсу.
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        localJobs.values().forEach(local -> local.cancelled = true);
+        executor.shutdown();
+        if (!executor.awaitTermination(shutdownTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+            logger.warn("Задачи не остановились за {}: {}", shutdownTimeout, localJobs.keySet());
+            executor.shutdownNow();
+        }
+    }
+
+    private JobView view(AdminJob job) {
+        LocalJob local = job.getStatus().isFinished() ? null : localJobs.get(job.getId());
+        // Прогресс выполняющейся здесь задачи свежее записанного в БД
+        long processed = local != null ? Math.max(local.processed.get(), job.getProcessed()) : job.getProcessed();
+        Long total = local != null && local.total != null ? local.total : job.getTotal();
+        Double percent = null;
+        if (total != null && total > 0) {
+            percent = Math.min(100, Math.round(processed * 1000.0 / total) / 10.0);
+        } else if (job.getStatus() == JobStatus.SUCCEEDED) {
+            percent = 100.0;
+        }
+        Long elapsedMillis = job.getDurationMillis() != null ? job.getDurationMillis()
+                : job.getStartedAt() != null && !job.getStatus().isFinished()
+                ? Duration.between(job.getStartedAt(), Instant.now()).toMillis() : null;
+        return new JobView(job.getId(), job.getType(), job.getStatus(), job.getParameters(), processed, total, percent,
+                perSecond(processed, elapsedMillis), job.isCancelRequested() || (local != null && local.cancelled),
+                job.getCreatedAt(), job.getStartedAt(), job.getFinishedAt(), job.getDurationMillis(), job.getError(),
+                job.getResult());
+    }
+
+    private static Double perSecond(long processed, Long millis) {
+        return millis != null && millis > 0 ? Math.round(processed * 10_000.0 / millis) / 10.0 : null;
+    }
+
+    private void finish(Long id, JobStatus status, long processed, Long total, String result, String error, Long durationMillis) {
+        writes.executeWithoutResult(tx -> jobRepository.finish(id, status, processed, total, result,
+                truncate(error, MAX_ERROR_LENGTH), Instant.now(), durationMillis));
+    }
+
+    private String toJson(Object result) throws Exception {
+        if (result == null) {
+            return null;
+        }
+        String json = objectMapper.writeValueAsString(result);
+        // Усечённый JSON не разобрать, поэтому вместо него сохраняется только его длина
+        return json.length() <= MAX_RESULT_LENGTH ? json : "{\"truncated\":true,\"length\":" + json.length() + "}";
+    }
+
+    private static String truncate(String value, int maxLength) {
+        return value == null || value.length() <= maxLength ? value : value.substring(0, maxLength);
+    }
+
+    private class LocalJob implements JobProgress, Runnable {
+        private final Long id;
+        private final JobType type;
+        private final JobTask task;
+        private final AtomicLong processed = new AtomicLong();
+        private final AtomicLong flushedAt = new AtomicLong(System.nanoTime());
+        private volatile Long total;
+        private volatile boolean cancelled;
+
+        LocalJob(Long id, JobType type, JobTask task) {
+            this.id = id;
+            this.type = type;
+            this.task = task;
+        }
+
+        @Override
+        public void setTotal(long total) {
+            this.total = total;
+            flush(true);
+        }
+
+        @Override
+        public void advance(long delta) {
+            processed.addAndGet(delta);
+            flush(false);
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        @Override
+        public void run() {
+            try {
+                if (cancelled) {
+                    finish(id, JobStatus.CANCELLED, 0, null, null, null, null);
+                    return;
+                }
+                // 0 строк: задачу уже пометили FAILED по пульсу, пока она ждала в очереди
+                if (writes.execute(status -> jobRepository.markRunning(id, Instant.now())) == 0) {
+                    return;
+                }
+                execute();
+            } catch (Exception ex) {
+                logger.error("Не удалось сохранить состояние задачи {}", id, ex);
+            } finally {
+                localJobs.remove(id);
+            }
+        }
+
+        private void execute() throws Exception {
+            long startedAt = System.nanoTime();
+            JobStatus status;
+            String result = null;
+            String error = null;
+            try {
+                result = toJson(task.run(this));
+                status = JobStatus.SUCCEEDED;
+            } catch (Exception ex) {
+                if (cancelled || ex instanceof CancellationException) {
+                    status = JobStatus.CANCELLED;
+                } else {
+                    logger.error("Задача {} {} завершилась с ошибкой", id, type, ex);
+                    status = JobStatus.FAILED;
+                    error = ex.getMessage() != null ? ex.getMessage() : ex.getClass().getName();
+                }
+            }
+            long nanos = System.nanoTime() - startedAt;
+            long millis = Math.max(1, nanos / 1_000_000);
+            Timer.builder("movies.jobs").description("Admin job duration")
+                    .tag("type", type.name()).tag("status", status.name())
+                    .register(meterRegistry).record(nanos, TimeUnit.NANOSECONDS);
+            meterRegistry.counter("movies.jobs.items", "type", type.name()).increment(processed.get());
+            finish(id, status, processed.get(), total, result, error, millis);
+            logger.info("Задача {} {}: {}, обработано {} за {} мс ({}/с)", id, type, status, processed.get(), millis,
+                    perSecond(processed.get(), millis));
+        }
+
+        // Не чаще раза в PROGRESS_INTERVAL: задача может сообщать о каждой строке
+        private void flush(boolean force) {
+            long now = System.nanoTime();
+            long last = flushedAt.get();
+            if ((force || now - last >= PROGRESS_INTERVAL_NANOS) && flushedAt.compareAndSet(last, now)) {
+                try {
+                    writes.executeWithoutResult(status -> jobRepository.updateProgress(id, processed.get(), total, Instant.now()));
+                } catch (Exception ex) {
+                    logger.warn("Не удалось сохранить прогресс задачи {}", id, ex);
+                }
+            }
+        }
+    }
+}
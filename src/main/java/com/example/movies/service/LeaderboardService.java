@@ -0,0 +1,333 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025 Kudzeri
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.example.movies.service;
+
+import com.example.movies.model.Genre;
+import com.example.movies.repository.GenreRepository;
+import com.example.movies.repository.MovieRatingStatsRepository;
+import com.example.movies.repository.ReviewRepository;
+import com.example.movies.service.MovieRatingService.RatingChangedEvent;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.DefaultTypedTuple;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations.TypedTuple;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.temporal.IsoFields;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Рейтинги для главной страницы в sorted set Redis: лучшие фильмы жанра (score – средняя оценка,
+ * только фильмы минимум с min-reviews одобренными отзывами) и тренды недели (score – число одобрений
+ * за ISO-неделю по UTC). Чтение – ZREVRANGE и HMGET названий, без обращения к БД.
+ * <p>
+ * Наборы обновляются после фиксации транзакции отзыва (в отдельном потоке, не задерживая ответ
+ * модератору) и периодически пересобираются из
+ * movie_rating_stats: новые данные пишутся во временные ключи и атомарно подменяют старые через
+ * RENAME. Удалённые фильмы убираются из наборов по MoviesDeletedEvent; изменения, пришедшие во время
+ * пересборки, видны после следующей пересборки.
+ */
+@Service
+@ConditionalOnProperty(prefix = "movies.leaderboard", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class LeaderboardService {
+
+    private static final Logger logger = LoggerFactory.getLogger(LeaderboardService.class);
+
+    private static final String PREFIX = "movies:leaderboard:";
+    private static final String TITLES_KEY = PREFIX + "titles";
+    private static final String REBUILD_SUFFIX = ":rebuild";
+    private static final int WRITE_CHUNK_SIZE = 1000;
+
+    public record LeaderboardRow(Long movieId, String title, Long genreId, double averageRating, int reviewCount) { }
+
+    public record LeaderboardEntry(Long movieId, String title, double score) { }
+
+    public record RebuildResult(int movies, int genres, int trending) { }
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+    @Autowired
+    private MovieRatingStatsRepository movieRatingStatsRepository;
+    @Autowired
+    private ReviewRepository reviewRepository;
+    @Autowired
+    private GenreRepository genreRepository;
+
+    @Value("${movies.leaderboard.min-reviews:3}")
+    private int minReviews;
+
+    @Value("${movies.leaderboard.trending-retention:28d}")
+    private Duration trendingRetention;
+
+    @Value("${movies.leaderboard.update-queue-capacity:10000}")
+    private int updateQueueCapacity;
+
+    // Один поток сохраняет порядок фиксаций; переполнение очереди исправляется пересборкой
+    private ThreadPoolExecutor updates;
+
+    @PostConstruct
+    void start() {
+        updates = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(updateQueueCapacity),
+                Thread.ofPlatform().name("leaderboard-update").daemon(true).factory());
+    }
+
+    @PreDestroy
+    void stop() {
+        updates.shutdownNow();
+    }
+
+    static String genreKey(Long genreId) {
+        return PREFIX + "genre:" + genreId;
+    }
+
+    static String trendingKey(LocalDate day) {
+        return PREFIX + "trending:%d-W%02d".formatted(day.get(IsoFields.WEEK_BASED_YEAR), day.get(IsoFields.WEEK_OF_WEEK_BASED_YEAR));
+    }
+
+    private static LocalDate today() {
+        return LocalDate.now(ZoneOffset.UTC);
+    }
+
+    public List<LeaderboardEntry> topInGenre(Long genreId, int limit) {
+        return read(genreKey(genreId), limit);
+    }
+
+    public List<LeaderboardEntry> trending(int limit) {
+        return read(trendingKey(today()), limit);
+    }
+
+    private List<LeaderboardEntry> read(String key, int limit) {
+        Set<TypedTuple<String>> top = redisTemplate.opsForZSet().reverseRangeWithScores(key, 0, limit - 1);
+        if (top == null || top.isEmpty()) {
+            return List.of();
+        }
+        List<Object> ids = new ArrayList<>(top.size());
+        top.forEach(tuple -> ids.add(tuple.getValue()));
+        List<Object> titles = redisTemplate.opsForHash().multiGet(TITLES_KEY, ids);
+        List<LeaderboardEntry> entries = new ArrayList<>(top.size());
+        int i = 0;
+        for (TypedTuple<String> tuple : top) {
+            Object title = titles.get(i++);
+            entries.add(new LeaderboardEntry(Long.valueOf(tuple.getValue()), (String) title, tuple.getScore()));
+        }
+        return entries;
+    }
+
+    /**
+     * Ставит перенос изменения агрегатов фильма в Redis в очередь после фиксации транзакции отзыва:
+     * запрос названия и жанра и запись в Redis не выполняются в потоке запроса. Ошибка Redis не влияет
+     * на уже сохранённый отзыв и, как и отброшенное при переполнении очереди изменение, исправляется
+     * следующей пересборкой.
+     */
+    @TransactionalEventListener
+    public void onRatingChanged(RatingChangedEvent event) {
+        try {
+            updates.execute(() -> apply(event));
+        } catch (RejectedExecutionException ex) {
+            logger.warn("Очередь обновления рейтингов заполнена, изменение фильма с ИД {} дождётся пересборки", event.movieId());
+        }
+    }
+
+    /**
+     * Убирает удалённые фильмы из рейтингов жанров, трендов текущей недели и названий. Жанр удалённого
+     * фильма уже неизвестен, поэтому фильмы убираются из наборов всех жанров.
+     */
+    @TransactionalEventListener
+    public void onMoviesDeleted(MoviesDeletedEvent event) {
+        try {
+            updates.execute(() -> remove(event));
+        } catch (RejectedExecutionException ex) {
+            logger.warn("Очередь обновления рейтингов заполнена, удаление {} фильмов дождётся пересборки", event.movieIds().size());
+        }
+    }
+
+    private void remove(MoviesDeletedEvent event) {
+        try {
+            List<Long> genreIds = genreRepository.findAll().stream().map(Genre::getId).toList();
+            Object[] members = event.movieIds().stream().map(String::valueOf).toArray();
+            String trendingKey = trendingKey(today());
+            pipelined(ops -> {
+                genreIds.forEach(genreId -> ops.opsForZSet().remove(genreKey(genreId), members));
+                ops.opsForZSet().remove(trendingKey, members);
+                ops.opsForHash().delete(TITLES_KEY, members);
+            });
+        } catch (Exception ex) {
+            logger.warn("Не удалось убрать из рейтингов в Redis {} удалённых фильмов: {}", event.movieIds().size(), ex.getMessage());
+        }
+    }
+
+    private void apply(RatingChangedEvent event) {
+        try {
+            Optional<LeaderboardRow> row = movieRatingStatsRepository.findLeaderboardRow(event.movieId());
+            if (row.isEmpty() || row.get().genreId() == null) {
+                return;
+            }
+            String member = event.movieId().toString();
+            String genreKey = genreKey(row.get().genreId());
+            pipelined(ops -> {
+                ops.opsForHash().put(TITLES_KEY, member, Objects.toString(row.get().title(), ""));
+                if (event.reviewCount() >= minReviews) {
+                    ops.opsForZSet().add(genreKey, member, event.averageRating());
+                } else {
+                    ops.opsForZSet().remove(genreKey, member);
+                }
+                if (event.approvedAt() != null && event.approvals() > 0) {
+                    String trendingKey = trendingKey(LocalDate.ofInstant(event.approvedAt(), ZoneOffset.UTC));
+                    ops.opsForZSet().incrementScore(trendingKey, member, event.approvals());
+                    ops.expire(trendingKey, trendingRetention);
+                }
+            });
+        } catch (Exception ex) {
+            logger.warn("Не удалось обновить рейтинги в Redis для фильма с ИД {}: {}", event.movieId(), ex.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${movies.leaderboard.rebuild-interval:15m}",
+            initialDelayString = "${movies.leaderboard.rebuild-initial-delay:10s}")
+    @Transactional(readOnly = true)
+    public RebuildResult rebuild() {
+        List<Long> genreIds = genreRepository.findAll().stream().map(Genre::getId).toList();
+        String trendingKey = trendingKey(today());
+        pipelined(ops -> {
+            genreIds.forEach(genreId -> ops.delete(genreKey(genreId) + REBUILD_SUFFIX));
+            ops.delete(TITLES_KEY + REBUILD_SUFFIX);
+            ops.delete(trendingKey + REBUILD_SUFFIX);
+        });
+
+        Map<Long, List<TypedTuple<String>>> genreBuffers = new HashMap<>();
+        Map<String, String> titleBuffer = new HashMap<>();
+        Set<Long> writtenGenres = new HashSet<>();
+        int[] movies = { 0 };
+        try (Stream<LeaderboardRow> rows = movieRatingStatsRepository.streamLeaderboardRows(1)) {
+            rows.forEach(row -> {
+                movies[0]++;
+                String member = row.movieId().toString();
+                titleBuffer.put(member, Objects.toString(row.title(), ""));
+                if (titleBuffer.size() >= WRITE_CHUNK_SIZE) {
+                    flushTitles(titleBuffer);
+                }
+                if (row.reviewCount() >= minReviews && row.genreId() != null) {
+                    List<TypedTuple<String>> buffer = genreBuffers.computeIfAbsent(row.genreId(), id -> new ArrayList<>());
+                    buffer.add(new DefaultTypedTuple<>(member, row.averageRating()));
+                    writtenGenres.add(row.genreId());
+                    if (buffer.size() >= WRITE_CHUNK_SIZE) {
+                        flushScores(genreKey(row.genreId()) + REBUILD_SUFFIX, buffer);
+                    }
+                }
+            });
+        }
+        flushTitles(titleBuffer);
+        genreBuffers.forEach((genreId, buffer) -> flushScores(genreKey(genreId) + REBUILD_SUFFIX, buffer));
+
+        LocalDate weekStart = today().with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+        List<TypedTuple<String>> trending = new ArrayList<>();
+        for (Object[] row : reviewRepository.countApprovalsByMovie(weekStart.atStartOfDay(ZoneOffset.UTC).toInstant(),
+                weekStart.plusWeeks(1).atStartOfDay(ZoneOffset.UTC).toInstant())) {
+            trending.add(new DefaultTypedTuple<>(row[0].toString(), ((Number) row[1]).doubleValue()));
+        }
+        int trendingCount = trending.size();
+        flushScores(trendingKey + REBUILD_SUFFIX, trending);
+
+        // Подмена ключей: читатели видят либо старый набор, либо новый целиком
+        pipelined(ops -> {
+            for (Long genreId : genreIds) {
+                if (writtenGenres.contains(genreId)) {
+                    ops.rename(genreKey(genreId) + REBUILD_SUFFIX, genreKey(genreId));
+                } else {
+                    ops.delete(genreKey(genreId));
+                }
+            }
+            if (movies[0] > 0) {
+                ops.rename(TITLES_KEY + REBUILD_SUFFIX, TITLES_KEY);
+            } else {
+                ops.delete(TITLES_KEY);
+            }
+            if (trendingCount > 0) {
+                ops.rename(trendingKey + REBUILD_SUFFIX, trendingKey);
+                ops.expire(trendingKey, trendingRetention);
+            } else {
+                ops.delete(trendingKey);
+            }
+        });
+        logger.info("Рейтинги в Redis пересобраны: фильмов {}, жанров {}, в трендах недели {}",
+                movies[0], writtenGenres.size(), trendingCount);
+        return new RebuildResult(movies[0], writtenGenres.size(), trendingCount);
+    }
+
+    private void flushTitles(Map<String, String> buffer) {
+        if (!buffer.isEmpty()) {
+            redisTemplate.opsForHash().putAll(TITLES_KEY + REBUILD_SUFFIX, buffer);
+            buffer.clear();
+        }
+    }
+
+    private void flushScores(String key, List<TypedTuple<String>> buffer) {
+        if (!buffer.isEmpty()) {
+            redisTemplate.opsForZSet().add(key, new HashSet<>(buffer));
+            buffer.clear();
+        }
+    }
+
+    // Команды отправляются одним пакетом без ожидания ответа на каждую
+    private void pipelined(Consumer<RedisOperations<String, String>> commands) {
+        redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(RedisOperations<K, V> operations) {
+                commands.accept((RedisOperations<String, String>) operations);
+                return null;
+            }
+        });
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025 Kudzeri
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.example.movies.service;
+
+import com.example.movies.model.Author;
+import com.example.movies.model.Movie;
+import com.example.movies.service.FieldProjectionService.FieldSelection;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Service;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Поиск по подстроке (upper(attr) LIKE %QUERY%) – движок /search по умолчанию. Условие не использует
+ * индексы, поэтому точное число совпадений стоит столько же, сколько сам поиск; оценка берётся из плана
+ * запроса PostgreSQL. Порядок результатов – по ИД.
+ */
+@Service
+public class LikeCatalogSearch implements CatalogSearch {
+
+    private static final String[] MOVIE_ATTRIBUTES = {"title", "description"};
+    private static final String[] AUTHOR_ATTRIBUTES = {"name", "biography"};
+
+    @Autowired
+    private FieldProjectionService fieldProjectionService;
+
+    @Autowired
+    private QueryPlanEstimator queryPlanEstimator;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // То же условие, что у derived-запросов ...ContainingIgnoreCase: upper(attr) like %QUERY% с экранированием
+    public static <T> Specification<T> containsIgnoreCase(String query, String... attributes) {
+        String pattern = pattern(query);
+        return (root, q, cb) -> cb.or(Arrays.stream(attributes)
+                .map(attribute -> cb.like(cb.upper(root.get(attribute)), pattern, '\\'))
+                .toArray(Predicate[]::new));
+    }
+
+    private static String pattern(String query) {
+        return "%" + query.toUpperCase().replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return true;
+    }
+
+    @Override
+    public Slice<Long> searchMovieIds(String query, Pageable pageable) {
+        return searchIds(Movie.class, query, pageable, MOVIE_ATTRIBUTES);
+    }
+
+    @Override
+    public Slice<Long> searchAuthorIds(String query, Pageable pageable) {
+        return searchIds(Author.class, query, pageable, AUTHOR_ATTRIBUTES);
+    }
+
+    @Override
+    public long countMovies(String query) {
+        return fieldProjectionService.count(Movie.class, containsIgnoreCase(query, MOVIE_ATTRIBUTES));
+    }
+
+    @Override
+    public long countAuthors(String query) {
+        return fieldProjectionService.count(Author.class, containsIgnoreCase(query, AUTHOR_ATTRIBUTES));
+    }
+
+    @Override
+    public Long estimateMovies(String query) {
+        return estimate("movies", query, MOVIE_ATTRIBUTES);
+    }
+
+    @Override
+    public Long estimateAuthors(String query) {
+        return estimate("authors", query, AUTHOR_ATTRIBUTES);
+    }
+
+    @Override
+    public List<FacetRow> movieFacets(String query) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<FacetRow> facets = cb.createQuery(FacetRow.class);
+        Root<Movie> movie = facets.from(Movie.class);
+        // ИД связей читаются из внешних ключей, без JOIN
+        Path<Long> genreId = movie.get("genre").get("id");
+        Path<Long> authorId = movie.get("author").get("id");
+        facets.select(cb.construct(FacetRow.class, genreId, authorId, cb.count(movie)))
+                .where(LikeCatalogSearch.<Movie>containsIgnoreCase(query, MOVIE_ATTRIBUTES).toPredicate(movie, facets, cb))
+                .groupBy(genreId, authorId);
+        return entityManager.createQuery(facets).getResultList();
+    }
+
+    private <T> Slice<Long> searchIds(Class<T> type, String query, Pageable pageable, String[] attributes) {
+        FieldSelection<T> ids = fieldProjectionService.parse(type, "id");
+        PageRequest byId = PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), Sort.by("id"));
+        return fieldProjectionService.findSlice(ids, containsIgnoreCase(query, attributes), byId).map(row -> (Long) row.get("id"));
+    }
+
+    // Колонки совпадают с именами атрибутов (физическая стратегия именования для однословных имён)
+    private Long estimate(String table, String query, String[] columns) {
+        String where = String.join(" OR ", Arrays.stream(columns).map(column -> "upper(" + column + ") LIKE ? ESCAPE '\\'").toList());
+        Object[] args = new Object[columns.length];
+        Arrays.fill(args, pattern(query));
+        return queryPlanEstimator.estimateRows("SELECT 1 FROM " + table + " WHERE " + where, args);
+    }
+}
@@ -0,0 +1,216 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025 Kudzeri
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.example.movies.service;
+
+import com.example.movies.model.Author;
+import com.example.movies.model.Genre;
+import com.example.movies.model.Movie;
+import com.example.movies.repository.AuthorRepository;
+import com.example.movies.repository.GenreRepository;
+import com.example.movies.repository.MovieRatingStatsRepository;
+import com.example.movies.repository.MovieRepository;
+import com.example.movies.repository.ReviewRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Пакетное создание, обновление и удаление фильмов.
+ * Persistence context сбрасывается каждые batch_size сущностей, чтобы Hibernate
+ * отправлял INSERT/UPDATE JDBC-пакетами и не накапливал тысячи объектов в памяти.
+ */
+@Service
+public class MovieBulkService {
+
+    private static final int DELETE_CHUNK_SIZE = 1000;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private MovieRepository movieRepository;
+    @Autowired
+    private GenreRepository genreRepository;
+    @Autowired
+    private AuthorRepository authorRepository;
+    @Autowired
+    private ReviewRepository reviewRepository;
+    @Autowired
+    private MovieRatingStatsRepository movieRatingStatsRepository;
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}")
+    private int batchSize;
+
+    public record BulkResult(int requested, int processed, List<Long> ids, List<Long> missingIds) { }
+
+    @Transactional
+    public BulkResult createAll(List<Movie> movies) {
+        for (Movie movie : movies) {
+            if (movie.getId() != null) {
+                throw new IllegalArgumentException("New movies must not have an id: " + movie.getId());
+            }
+        }
+        Map<Long, Genre> genres = loadGenres(movies);
+        Map<Long, Author> authors = loadAuthors(movies);
+
+        List<Long> ids = new ArrayList<>(movies.size());
+        int pending = 0;
+        for (Movie movie : movies) {
+            movie.setGenre(genres.get(movie.getGenre().getId()));
+            movie.setAuthor(authors.get(movie.getAuthor().getId()));
+            entityManager.persist(movie);
+            ids.add(movie.getId());
+            if (++pending == batchSize) {
+                flushAndClear();
+                pending = 0;
+            }
+        }
+        flushAndClear();
+        eventPublisher.publishEvent(CatalogChangedEvent.movies(ids));
+        return new BulkResult(movies.size(), ids.size(), ids, List.of());
+    }
+
+    @Transactional
+    public BulkResult updateAll(List<Movie> movieDetails) {
+        for (Movie details : movieDetails) {
+            if (details.getId() == null) {
+                throw new IllegalArgumentException("Every movie must have an id");
+            }
+        }
+        Map<Long, Genre> genres = loadGenres(movieDetails.stream().filter(m -> m.getGenre() != null).toList());
+        Map<Long, Author> authors = loadAuthors(movieDetails.stream().filter(m -> m.getAuthor() != null).toList());
+
+        List<Long> updated = new ArrayList<>(movieDetails.size());
+        List<Long> missing = new ArrayList<>();
+        for (int from = 0; from < movieDetails.size(); from += batchSize) {
+            List<Movie> chunk = movieDetails.subList(from, Math.min(from + batchSize, movieDetails.size()));
+            Map<Long, Movie> existing = movieRepository.findAllWithAuthorAndGenreByIdIn(chunk.stream().map(Movie::getId).toList()).stream()
+                    .collect(Collectors.toMap(Movie::getId, Function.identity()));
+            for (Movie details : chunk) {
+                Movie movie = existing.get(details.getId());
+                if (movie == null) {
+                    missing.add(details.getId());
+                    continue;
+                }
+                movie.setTitle(details.getTitle());
+                movie.setDescription(details.getDescription());
+                if (details.getGenre() != null) {
+                    movie.setGenre(genres.get(details.getGenre().getId()));
+                }
+                if (details.getAuthor() != null) {
+                    movie.setAuthor(authors.get(details.getAuthor().getId()));
+                }
+                updated.add(movie.getId());
+            }
+            flushAndClear();
+        }
+        eventPublisher.publishEvent(CatalogChangedEvent.movies(updated));
+        return new BulkResult(movieDetails.size(), updated.size(), updated, missing);
+    }
+
+    /**
+     * Удаляет фильмы вместе с их отзывами и агрегатами рейтинга множественными DELETE ... WHERE id IN (...).
+     * Существующие фильмы порции сначала блокируются: в ответе – ИД действительно удалённых фильмов,
+     * а ИД, которых уже нет, возвращаются в missingIds.
+     */
+    @Transactional
+    public BulkResult deleteAll(List<Long> ids) {
+        List<Long> distinctIds = ids.stream().distinct().toList();
+        List<Long> deleted = new ArrayList<>(distinctIds.size());
+        List<Long> missing = new ArrayList<>();
+        for (int from = 0; from < distinctIds.size(); from += DELETE_CHUNK_SIZE) {
+            List<Long> chunk = distinctIds.subList(from, Math.min(from + DELETE_CHUNK_SIZE, distinctIds.size()));
+            Set<Long> existing = new HashSet<>(movieRepository.lockIdsByIdIn(chunk));
+            for (Long id : chunk) {
+                if (existing.contains(id)) {
+                    deleted.add(id);
+                } else {
+                    missing.add(id);
+                }
+            }
+            if (existing.isEmpty()) {
+                continue;
+            }
+            reviewRepository.deleteByMovieIdIn(existing);
+            movieRatingStatsRepository.deleteByMovieIdIn(existing);
+            movieRepository.deleteByIdIn(existing);
+        }
+        eventPublisher.publishEvent(CatalogChangedEvent.movies(deleted));
+        if (!deleted.isEmpty()) {
+            eventPublisher.publishEvent(MoviesDeletedEvent.of(deleted));
+        }
+        return new BulkResult(ids.size(), deleted.size(), deleted, missing);
+    }
+
+    private Map<Long, Genre> loadGenres(List<Movie> movies) {
+        Set<Long> ids = new HashSet<>();
+        for (Movie movie : movies) {
+            if (movie.getGenre() == null || movie.getGenre().getId() == null) {
+                throw new IllegalArgumentException("Every movie must reference a genre id");
+            }
+            ids.add(movie.getGenre().getId());
+        }
+        Map<Long, Genre> genres = genreRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Genre::getId, Function.identity()));
+        requireAll("genre", ids, genres.keySet());
+        return genres;
+    }
+
+    private Map<Long, Author> loadAuthors(List<Movie> movies) {
+        Set<Long> ids = new HashSet<>();
+        for (Movie movie : movies) {
+            if (movie.getAuthor() == null || movie.getAuthor().getId() == null) {
+                throw new IllegalArgumentException("Every movie must reference an author id");
+            }
+            ids.add(movie.getAuthor().getId());
+        }
+        Map<Long, Author> authors = authorRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Author::getId, Function.identity()));
+        requireAll("author", ids, authors.keySet());
+        return authors;
+    }
+
+    private static void requireAll(String type, Set<Long> requested, Set<Long> found) {
+        if (found.size() != requested.size()) {
+            Set<Long> missing = new TreeSet<>(requested);
+            missing.removeAll(found);
+            throw new IllegalArgumentException("Unknown " + type + " ids: " + missing);
+        }
+    }
+
+    private void flushAndClear() {
+        entityManager.flush();
+        entityManager.clear();
+    }
+}
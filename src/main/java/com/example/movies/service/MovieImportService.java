@@ -0,0 +1,367 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025 Kudzeri
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.example.movies.service;
+
+import com.example.movies.model.Author;
+import com.example.movies.model.Genre;
+import com.example.movies.model.Movie;
+import com.example.movies.repository.AuthorRepository;
+import com.example.movies.repository.GenreRepository;
+import com.example.movies.service.JobService.JobProgress;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Потоковый импорт фильмов из NDJSON или CSV.
+ * Тело запроса читается построчно, строки проверяются и коммитятся порциями (chunk),
+ * поэтому расход памяти не зависит от размера файла. Жанры и авторы ищутся по имени
+ * через кэш на время импорта; отсутствующие создаются.
+ */
+@Service
+public class MovieImportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(MovieImportService.class);
+
+    private static final int MAX_FIELD_LENGTH = 255;
+    private static final int MAX_CACHED_NAMES = 10_000;
+    private static final List<String> CSV_COLUMNS = List.of("title", "description", "author", "genre");
+
+    public enum Format { NDJSON, CSV }
+
+    public record MovieImportRow(String title, String description, String author, String genre) { }
+
+    public record ChunkResult(int index, int rows, int imported, int rejected, boolean committed, long millis) { }
+
+    public record ImportReport(Format format, int totalRows, int imported, int rejected, List<ChunkResult> chunks,
+                               List<String> errors, long elapsedMillis, double rowsPerSecond) { }
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private GenreRepository genreRepository;
+    @Autowired
+    private AuthorRepository authorRepository;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${movies.import.max-errors:100}")
+    private int maxErrors;
+
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}")
+    private int batchSize;
+
+    public ImportReport importMovies(InputStream body, Format format, int chunkSize) throws IOException {
+        return importMovies(body, format, chunkSize, JobProgress.NONE);
+    }
+
+    // Прогресс – в прочитанных строках после коммита порции; при отмене текущая порция не записывается
+    public ImportReport importMovies(InputStream body, Format format, int chunkSize, JobProgress progress) throws IOException {
+        ImportRun run = new ImportRun(format, chunkSize, progress);
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        ObjectReader jsonReader = objectMapper.readerFor(MovieImportRow.class);
+
+        int[] csvColumns = null;
+        int lineNumber = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            if (format == Format.CSV && csvColumns == null) {
+                csvColumns = parseCsvHeader(line);
+                continue;
+            }
+            try {
+                MovieImportRow row = format == Format.CSV
+                        ? toRow(parseCsvLine(line), csvColumns)
+                        : jsonReader.readValue(line);
+                run.accept(validate(row));
+            } catch (IllegalArgumentException | IOException ex) {
+                run.reject(lineNumber, ex.getMessage());
+            }
+        }
+        run.finish();
+        return run.report();
+    }
+
+    private static MovieImportRow validate(MovieImportRow row) {
+        requireText("title", row.title());
+        requireText("author", row.author());
+        requireText("genre", row.genre());
+        if (row.description() != null && row.description().length() > MAX_FIELD_LENGTH) {
+            throw new IllegalArgumentException("description is longer than " + MAX_FIELD_LENGTH + " characters");
+        }
+        return new MovieImportRow(row.title().trim(), row.description(), row.author().trim(), row.genre().trim());
+    }
+
+    private static void requireText(String field, String value) {
+        if (value == null || value.isBlank()) {
+            throw new IllegalArgumentException(field + " is required");
+        }
+        if (value.length() > MAX_FIELD_LENGTH) {
+            throw new IllegalArgumentException(field + " is longer than " + MAX_FIELD_LENGTH + " characters");
+        }
+    }
+
+    private static int[] parseCsvHeader(String line) {
+        List<String> header = parseCsvLine(line);
+        int[] columns = new int[CSV_COLUMNS.size()];
+        for (int i = 0; i < CSV_COLUMNS.size(); i++) {
+            columns[i] = -1;
+            for (int j = 0; j < header.size(); j++) {
+                if (header.get(j).trim().equalsIgnoreCase(CSV_COLUMNS.get(i))) {
+                    columns[i] = j;
+                }
+            }
+        }
+        if (columns[0] < 0 || columns[2] < 0 || columns[3] < 0) {
+            throw new IllegalArgumentException("CSV header must contain title, author and genre columns");
+        }
+        return columns;
+    }
+
+    private static MovieImportRow toRow(List<String> fields, int[] columns) {
+        String[] values = new String[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            values[i] = columns[i] >= 0 && columns[i] < fields.size() ? fields.get(columns[i]) : null;
+        }
+        return new MovieImportRow(values[0], values[1], values[2], values[3]);
+    }
+
+    // RFC 4180 без многострочных полей: запятые внутри кавычек, "" – экранированная кавычка
+    static List<String> parseCsvLine(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("unterminated quoted field");
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    /**
+     * Состояние одного импорта: текущая порция, счётчики и кэш имён жанров и авторов.
+     */
+    private class ImportRun {
+        private final Format format;
+        private final int chunkSize;
+        private final JobProgress progress;
+        private final long startedAt = System.nanoTime();
+        private final TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        private final Map<String, Long> genreIds = lruMap();
+        private final Map<String, Long> authorIds = lruMap();
+        private final List<MovieImportRow> pendingRows = new ArrayList<>();
+        private final List<ChunkResult> chunks = new ArrayList<>();
+        private final List<String> errors = new ArrayList<>();
+        private int chunkLines;
+        private int chunkRejected;
+        private int totalRows;
+        private int imported;
+        private int rejected;
+
+        ImportRun(Format format, int chunkSize, JobProgress progress) {
+            this.format = format;
+            this.chunkSize = chunkSize;
+            this.progress = progress;
+        }
+
+        void accept(MovieImportRow row) {
+            pendingRows.add(row);
+            advance();
+        }
+
+        void reject(int lineNumber, String message) {
+            chunkRejected++;
+            addError("line " + lineNumber + ": " + message);
+            advance();
+        }
+
+        void finish() {
+            if (chunkLines > 0) {
+                commitChunk();
+            }
+        }
+
+        ImportReport report() {
+            long elapsedMillis = (System.nanoTime() - startedAt) / 1_000_000;
+            double rowsPerSecond = elapsedMillis > 0 ? totalRows * 1000.0 / elapsedMillis : totalRows;
+            return new ImportReport(format, totalRows, imported, rejected, chunks, errors, elapsedMillis, rowsPerSecond);
+        }
+
+        private void advance() {
+            totalRows++;
+            if (++chunkLines == chunkSize) {
+                commitChunk();
+            }
+        }
+
+        private void commitChunk() {
+            progress.checkCancelled();
+            long chunkStarted = System.nanoTime();
+            int index = chunks.size();
+            Map<String, Long> newGenres = new HashMap<>();
+            Map<String, Long> newAuthors = new HashMap<>();
+            boolean committed = false;
+            int chunkImported = 0;
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    int pending = 0;
+                    List<Long> movieIds = new ArrayList<>(pendingRows.size());
+                    for (MovieImportRow row : pendingRows) {
+                        Genre genre = entityManager.getReference(Genre.class, resolveGenre(row.genre(), newGenres));
+                        Author author = entityManager.getReference(Author.class, resolveAuthor(row.author(), newAuthors));
+                        Movie movie = new Movie(row.title(), row.description(), genre, author);
+                        entityManager.persist(movie);
+                        movieIds.add(movie.getId());
+                        if (++pending % batchSize == 0) {
+                            entityManager.flush();
+                            entityManager.clear();
+                        }
+                    }
+                    entityManager.flush();
+                    entityManager.clear();
+                    eventPublisher.publishEvent(new CatalogChangedEvent(Set.copyOf(movieIds),
+                            Set.copyOf(newAuthors.values()), Set.of(), false));
+                });
+                // Созданные имена попадают в кэш только после успешного коммита
+                genreIds.putAll(newGenres);
+                authorIds.putAll(newAuthors);
+                committed = true;
+                chunkImported = pendingRows.size();
+            } catch (Exception ex) {
+                logger.error("Ошибка при импорте порции {} ({} строк)", index, pendingRows.size(), ex);
+                addError("chunk " + index + ": " + ex.getMessage());
+                entityManager.clear();
+            }
+
+            imported += chunkImported;
+            rejected += chunkRejected + (pendingRows.size() - chunkImported);
+            long millis = (System.nanoTime() - chunkStarted) / 1_000_000;
+            chunks.add(new ChunkResult(index, chunkLines, chunkImported, chunkLines - chunkImported, committed, millis));
+            logger.info("Импорт фильмов: порция {} – {} строк, импортировано {}, {} мс", index, chunkLines, chunkImported, millis);
+            progress.advance(chunkLines);
+
+            pendingRows.clear();
+            chunkLines = 0;
+            chunkRejected = 0;
+        }
+
+        private Long resolveGenre(String name, Map<String, Long> created) {
+            Long id = genreIds.get(name);
+            if (id == null) {
+                id = created.get(name);
+            }
+            if (id == null) {
+                id = genreRepository.findFirstByName(name).map(Genre::getId).orElse(null);
+                if (id == null) {
+                    Genre genre = new Genre(name);
+                    entityManager.persist(genre);
+                    id = genre.getId();
+                    created.put(name, id);
+                } else {
+                    genreIds.put(name, id);
+                }
+            }
+            return id;
+        }
+
+        private Long resolveAuthor(String name, Map<String, Long> created) {
+            Long id = authorIds.get(name);
+            if (id == null) {
+                id = created.get(name);
+            }
+            if (id == null) {
+                id = authorRepository.findFirstByName(name).map(Author::getId).orElse(null);
+                if (id == null) {
+                    Author author = new Author(name, null);
+                    entityManager.persist(author);
+                    id = author.getId();
+                    created.put(name, id);
+                } else {
+                    authorIds.put(name, id);
+                }
+            }
+            return id;
+        }
+
+        private void addError(String error) {
+            if (errors.size() < maxErrors) {
+                errors.add(error);
+            }
+        }
+    }
+
+    private static Map<String, Long> lruMap() {
+        return new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+                return size() > MAX_CACHED_NAMES;
+            }
+        };
+    }
+}
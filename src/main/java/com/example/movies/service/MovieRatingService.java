@@ -0,0 +1,204 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025 Kudzeri
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.example.movies.service;
+
+import com.example.movies.model.Movie;
+import com.example.movies.model.MovieRatingStats;
+import com.example.movies.repository.MovieRatingStatsRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Ведёт movie_rating_stats по одобренным отзывам. Изменения вносятся в транзакции изменения
+ * отзыва после блокировки строки фильма, поэтому параллельные модерации одного фильма не теряют
+ * приращения и не создают строку агрегатов дважды.
+ */
+@Service
+public class MovieRatingService {
+
+    public record TopRatedMovie(Long movieId, String title, double averageRating, int reviewCount) { }
+
+    public record RatingSummary(Long movieId, int reviewCount, double averageRating, int[] histogram) { }
+
+    /**
+     * Публикуется при изменении агрегатов фильма – инкрементальном или пересчётом; approvedAt задан, если
+     * изменение – одобрение approvals отзывов модератором. Слушатели получают его после фиксации транзакции.
+     */
+    public record RatingChangedEvent(Long movieId, double averageRating, int reviewCount, Instant approvedAt, int approvals) {
+
+        public RatingChangedEvent(Long movieId, double averageRating, int reviewCount, Instant approvedAt) {
+            this(movieId, averageRating, reviewCount, approvedAt, approvedAt != null ? 1 : 0);
+        }
+    }
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private MovieRatingStatsRepository movieRatingStatsRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    /**
+     * Блокирует строки отзыва и его фильма до конца транзакции (SELECT ... FOR UPDATE).
+     * Возвращает ИД фильма или null, если отзыва нет.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Long lockMovieOfReview(Long reviewId) {
+        List<?> result = entityManager.createNativeQuery(
+                        "SELECT r.movie_id FROM reviews r JOIN movies m ON m.id = r.movie_id WHERE r.id = :id FOR UPDATE")
+                .setParameter("id", reviewId)
+                .getResultList();
+        return result.isEmpty() ? null : ((Number) result.get(0)).longValue();
+    }
+
+    /**
+     * Блокирует фильмы, к которым относятся отзывы из списка в статусе PENDING, в порядке ИД
+     * (чтобы параллельные пакеты не взаимоблокировались). Возвращает ИД заблокированных фильмов и число
+     * их отзывов из списка в статусе PENDING: под блокировкой фильма оно не меняется до конца транзакции.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Map<Long, Integer> lockMoviesOfPendingReviews(Long[] reviewIds) {
+        List<?> result = entityManager.createNativeQuery(
+                        "SELECT m.id, (SELECT COUNT(*) FROM reviews r WHERE r.movie_id = m.id AND r.id = ANY(:ids) AND r.status = 'PENDING') "
+                                + "FROM movies m WHERE m.id IN (SELECT movie_id FROM reviews WHERE id = ANY(:ids) AND status = 'PENDING') "
+                                + "ORDER BY m.id FOR UPDATE")
+                .setParameter("ids", reviewIds)
+                .getResultList();
+        Map<Long, Integer> pending = new LinkedHashMap<>();
+        for (Object row : result) {
+            Object[] columns = (Object[]) row;
+            pending.put(((Number) columns[0]).longValue(), ((Number) columns[1]).intValue());
+        }
+        return pending;
+    }
+
+    /**
+     * Убирает из агрегатов прежнюю оценку и/или добавляет новую (null – нечего менять).
+     * Вызывается только после lockMovieOfReview для того же фильма.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void applyChange(Long movieId, Double removedRating, Double addedRating) {
+        apply(movieId, removedRating, addedRating, null);
+    }
+
+    // Одобрение модератором: то же, что applyChange, но событие несёт время одобрения
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void applyApproval(Long movieId, double rating, Instant approvedAt) {
+        apply(movieId, null, rating, approvedAt);
+    }
+
+    private void apply(Long movieId, Double removedRating, Double addedRating, Instant approvedAt) {
+        if (removedRating == null && addedRating == null) {
+            return;
+        }
+        MovieRatingStats stats = entityManager.find(MovieRatingStats.class, movieId);
+        if (stats == null && addedRating == null) {
+            return;
+        }
+        boolean created = stats == null;
+        if (created) {
+            stats = new MovieRatingStats(entityManager.getReference(Movie.class, movieId));
+        }
+        if (removedRating != null) {
+            stats.remove(removedRating);
+        }
+        if (addedRating != null) {
+            stats.add(addedRating);
+        }
+        // Новая строка сохраняется уже с итоговыми значениями: один INSERT без последующего UPDATE
+        if (created) {
+            entityManager.persist(stats);
+        }
+        eventPublisher.publishEvent(new RatingChangedEvent(movieId, stats.getAverageRating(), stats.getReviewCount(), approvedAt));
+    }
+
+    // Пересчёт для фильмов, чьи отзывы удалены множественным DELETE
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recompute(Collection<Long> movieIds) {
+        recompute(movieIds, Map.of(), null);
+    }
+
+    /**
+     * Пересчёт после множественного одобрения: approvals – число одобренных отзывов по фильмам
+     * (см. lockMoviesOfPendingReviews), approvedAt – время одобрения из UPDATE.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recomputeApprovals(Map<Long, Integer> approvals, Instant approvedAt) {
+        recompute(approvals.keySet(), approvals, approvedAt);
+    }
+
+    // Событие публикуется по каждому фильму; фильм без одобренных отзывов получает нулевые агрегаты
+    private void recompute(Collection<Long> movieIds, Map<Long, Integer> approvals, Instant approvedAt) {
+        if (movieIds.isEmpty()) {
+            return;
+        }
+        movieRatingStatsRepository.deleteByMovieIdIn(movieIds);
+        movieRatingStatsRepository.insertFromApprovedReviews(movieIds);
+        Map<Long, Object[]> stats = new HashMap<>();
+        for (Object[] row : movieRatingStatsRepository.findAggregates(movieIds)) {
+            stats.put((Long) row[0], row);
+        }
+        for (Long movieId : movieIds) {
+            Object[] row = stats.get(movieId);
+            double averageRating = row != null ? ((Number) row[1]).doubleValue() : 0;
+            int reviewCount = row != null ? ((Number) row[2]).intValue() : 0;
+            int approved = approvals.getOrDefault(movieId, 0);
+            eventPublisher.publishEvent(new RatingChangedEvent(movieId, averageRating, reviewCount,
+                    approved > 0 ? approvedAt : null, approved));
+        }
+    }
+
+    @Transactional
+    public int rebuild() {
+        movieRatingStatsRepository.deleteAllInBatch();
+        return movieRatingStatsRepository.insertFromApprovedReviews();
+    }
+
+    @Transactional(readOnly = true)
+    public RatingSummary getSummary(Long movieId) {
+        return movieRatingStatsRepository.findById(movieId)
+                .map(stats -> new RatingSummary(movieId, stats.getReviewCount(), stats.getAverageRating(), stats.getHistogram()))
+                .orElseGet(() -> new RatingSummary(movieId, 0, 0, new int[MovieRatingStats.BUCKETS]));
+    }
+
+    @Transactional(readOnly = true)
+    public List<TopRatedMovie> getTopRated(int limit, int minReviews) {
+        return movieRatingStatsRepository.findTopRated(minReviews, PageRequest.of(0, limit));
+    }
+}
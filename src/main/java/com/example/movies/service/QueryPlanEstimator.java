@@ -0,0 +1,83 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025 Kudzeri
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.example.movies.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.dialect.PostgreSQLDialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Оценка числа строк запроса по статистике планировщика PostgreSQL (EXPLAIN без выполнения):
+ * вместо COUNT(*) по тому же неиндексируемому условию. Точность зависит от ANALYZE и вида условия –
+ * для LIKE '%…%' это грубая оценка, пригодная для «примерно N результатов».
+ */
+@Service
+public class QueryPlanEstimator {
+
+    private static final Logger logger = LoggerFactory.getLogger(QueryPlanEstimator.class);
+
+    // Первая строка плана: "Seq Scan on movies  (cost=0.00..25.88 rows=6 width=4)"
+    private static final Pattern ROWS = Pattern.compile("rows=(\\d+)");
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private volatile Boolean supported;
+
+    /** Оценка числа строк sql; null – СУБД не PostgreSQL или план не разобран */
+    public Long estimateRows(String sql, Object... args) {
+        if (!isSupported()) {
+            return null;
+        }
+        try {
+            List<String> plan = jdbcTemplate.queryForList("EXPLAIN " + sql, String.class, args);
+            Matcher matcher = plan.isEmpty() ? null : ROWS.matcher(plan.get(0));
+            return matcher != null && matcher.find() ? Long.valueOf(matcher.group(1)) : null;
+        } catch (Exception ex) {
+            logger.warn("Не удалось оценить число строк по плану запроса: {}", ex.getMessage());
+            return null;
+        }
+    }
+
+    private boolean isSupported() {
+        Boolean result = supported;
+        if (result == null) {
+            result = entityManagerFactory.unwrap(SessionFactoryImplementor.class).getJdbcServices().getDialect() instanceof PostgreSQLDialect;
+            supported = result;
+        }
+        return result;
+    }
+}
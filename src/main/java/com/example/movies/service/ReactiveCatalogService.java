@@ -0,0 +1,194 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025 Kudzeri
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.example.movies.service;
+
+import com.example.movies.dto.AuthorDto;
+import com.example.movies.dto.GenreDto;
+import com.example.movies.dto.MovieDto;
+import com.example.movies.dto.ReviewDto;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import io.r2dbc.spi.Readable;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+/**
+ * Неблокирующее чтение каталога через R2DBC для /rx/**.
+ * Пул R2DBC намеренно не публикуется как бин ConnectionFactory: его наличие отключает
+ * автоконфигурацию JDBC DataSource, на которой работают JPA и остальное приложение.
+ * Результаты отдаются как Flux с учётом backpressure: строки читаются порциями fetchSize
+ * по мере того, как клиент забирает ответ.
+ */
+@Service
+@ConditionalOnProperty(prefix = "movies.r2dbc", name = "url")
+public class ReactiveCatalogService implements DisposableBean {
+
+    private static final int FETCH_SIZE = 500;
+
+    private static final String MOVIE_SELECT = """
+            SELECT m.id, m.version, m.title, m.description,
+                   a.id AS author_id, a.version AS author_version, a.name AS author_name, a.biography AS author_biography,
+                   g.id AS genre_id, g.version AS genre_version, g.name AS genre_name
+            FROM movies m
+            JOIN authors a ON a.id = m.author_id
+            JOIN genres g ON g.id = m.genre_id
+            """;
+
+    private static final String REVIEW_SELECT =
+            "SELECT id, version, movie_id, content, rating, reviewer, status FROM reviews";
+
+    private final ConnectionPool pool;
+    private final DatabaseClient databaseClient;
+
+    public ReactiveCatalogService(@Value("${movies.r2dbc.url}") String url,
+                                  @Value("${movies.r2dbc.username:${spring.datasource.username:}}") String username,
+                                  @Value("${movies.r2dbc.password:${spring.datasource.password:}}") String password,
+                                  @Value("${movies.r2dbc.pool.max-size:20}") int maxSize) {
+        ConnectionFactoryOptions.Builder options = ConnectionFactoryOptions.parse(url).mutate();
+        if (!username.isEmpty()) {
+            options.option(ConnectionFactoryOptions.USER, username);
+            options.option(ConnectionFactoryOptions.PASSWORD, password);
+        }
+        this.pool = new ConnectionPool(ConnectionPoolConfiguration.builder(ConnectionFactories.get(options.build()))
+                .name("r2dbc-catalog")
+                .maxSize(maxSize)
+                .maxIdleTime(Duration.ofMinutes(30))
+                .build());
+        this.databaseClient = DatabaseClient.create(pool);
+    }
+
+    public Flux<MovieDto> findMovies() {
+        return databaseClient.sql(MOVIE_SELECT + "ORDER BY m.id")
+                .filter(statement -> statement.fetchSize(FETCH_SIZE))
+                .map(ReactiveCatalogService::toMovie)
+                .all();
+    }
+
+    public Mono<MovieDto> findMovie(Long id) {
+        return databaseClient.sql(MOVIE_SELECT + "WHERE m.id = :id")
+                .bind("id", id)
+                .map(ReactiveCatalogService::toMovie)
+                .one();
+    }
+
+    public Flux<AuthorDto> findAuthors() {
+        return databaseClient.sql("SELECT id, version, name, biography FROM authors ORDER BY id")
+                .filter(statement -> statement.fetchSize(FETCH_SIZE))
+                .map(row -> toAuthor(row, ""))
+                .all();
+    }
+
+    public Mono<AuthorDto> findAuthor(Long id) {
+        return databaseClient.sql("SELECT id, version, name, biography FROM authors WHERE id = :id")
+                .bind("id", id)
+                .map(row -> toAuthor(row, ""))
+                .one();
+    }
+
+    public Flux<GenreDto> findGenres() {
+        return databaseClient.sql("SELECT id, version, name FROM genres ORDER BY id")
+                .map(row -> toGenre(row, ""))
+                .all();
+    }
+
+    public Mono<GenreDto> findGenre(Long id) {
+        return databaseClient.sql("SELECT id, version, name FROM genres WHERE id = :id")
+                .bind("id", id)
+                .map(row -> toGenre(row, ""))
+                .one();
+    }
+
+    public Flux<ReviewDto> findReviews() {
+        return databaseClient.sql(REVIEW_SELECT + " ORDER BY id")
+                .filter(statement -> statement.fetchSize(FETCH_SIZE))
+                .map(ReactiveCatalogService::toReview)
+                .all();
+    }
+
+    public Mono<ReviewDto> findReview(Long id) {
+        return databaseClient.sql(REVIEW_SELECT + " WHERE id = :id")
+                .bind("id", id)
+                .map(ReactiveCatalogService::toReview)
+                .one();
+    }
+
+    public Flux<ReviewDto> findReviewsByMovie(Long movieId) {
+        return databaseClient.sql(REVIEW_SELECT + " WHERE movie_id = :movieId ORDER BY id")
+                .bind("movieId", movieId)
+                .map(ReactiveCatalogService::toReview)
+                .all();
+    }
+
+    @Override
+    public void destroy() {
+        pool.dispose();
+    }
+
+    private static MovieDto toMovie(Readable row) {
+        return new MovieDto(
+                row.get("id", Long.class),
+                row.get("version", Long.class),
+                row.get("title", String.class),
+                row.get("description", String.class),
+                toAuthor(row, "author_"),
+                toGenre(row, "genre_"));
+    }
+
+    private static AuthorDto toAuthor(Readable row, String prefix) {
+        return new AuthorDto(
+                row.get(prefix + "id", Long.class),
+                row.get(prefix + "version", Long.class),
+                row.get(prefix + "name", String.class),
+                row.get(prefix + "biography", String.class));
+    }
+
+    private static GenreDto toGenre(Readable row, String prefix) {
+        return new GenreDto(
+                row.get(prefix + "id", Long.class),
+                row.get(prefix + "version", Long.class),
+                row.get(prefix + "name", String.class));
+    }
+
+    private static ReviewDto toReview(Readable row) {
+        ReviewDto dto = new ReviewDto();
+        dto.id = row.get("id", Long.class);
+        dto.version = row.get("version", Long.class);
+        dto.movieId = row.get("movie_id", Long.class);
+        dto.content = row.get("content", String.class);
+        Double rating = row.get("rating", Double.class);
+        dto.rating = rating != null ? rating : 0;
+        dto.reviewer = row.get("reviewer", String.class);
+        dto.status = row.get("status", String.class);
+        return dto;
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025 Kudzeri
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.example.movies.service;
+
+import com.example.movies.model.Review;
+import com.example.movies.model.ReviewStatus;
+import com.example.movies.repository.ReviewRepository;
+import com.example.movies.service.EntityPatchService.PatchResult;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Изменения отзывов, влияющие на рейтинг фильма: каждое выполняется в одной транзакции
+ * с обновлением movie_rating_stats (см. MovieRatingService).
+ */
+@Service
+public class ReviewService {
+
+    // changed = false: отзыв уже не в статусе PENDING и модерация ничего не изменила
+    public record ModerationResult(Review review, boolean changed) { }
+
+    public record BulkModerationResult(int requested, int updated) { }
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private ReviewRepository reviewRepository;
+    @Autowired
+    private MovieRatingService movieRatingService;
+    @Autowired
+    private EntityPatchService entityPatchService;
+
+    @Transactional
+    public Optional<ModerationResult> moderate(Long id, ReviewStatus status) {
+        Long movieId = movieRatingService.lockMovieOfReview(id);
+        if (movieId == null) {
+            return Optional.empty();
+        }
+        Instant moderatedAt = Instant.now();
+        boolean changed = reviewRepository.moderate(id, status, moderatedAt) == 1;
+        Review review = reviewRepository.findById(id).orElseThrow();
+        if (changed && status == ReviewStatus.APPROVED) {
+            movieRatingService.applyApproval(movieId, review.getRating(), moderatedAt);
+        }
+        return Optional.of(new ModerationResult(review, changed));
+    }
+
+    @Transactional(readOnly = true)
+    public List<Review> findModerationQueue(long afterId, int size) {
+        return reviewRepository.findPendingAfter(afterId, Limit.of(size));
+    }
+
+    /**
+     * Переводит отзывы из PENDING в status одним UPDATE; отзывы в другом статусе пропускаются.
+     * При одобрении агрегаты затронутых фильмов пересчитываются целиком под блокировкой этих фильмов –
+     * число операторов не зависит от размера списка.
+     */
+    @Transactional
+    public BulkModerationResult moderateAll(Collection<Long> ids, ReviewStatus status) {
+        Long[] distinctIds = ids.stream().filter(Objects::nonNull).distinct().toArray(Long[]::new);
+        if (distinctIds.length == 0) {
+            return new BulkModerationResult(ids.size(), 0);
+        }
+        Map<Long, Integer> approvals = status == ReviewStatus.APPROVED
+                ? movieRatingService.lockMoviesOfPendingReviews(distinctIds)
+                : Map.of();
+        Instant moderatedAt = Instant.now();
+        int updated = reviewRepository.moderateAll(distinctIds, status.name(), moderatedAt);
+        movieRatingService.recomputeApprovals(approvals, moderatedAt);
+        return new BulkModerationResult(ids.size(), updated);
+    }
+
+    @Transactional
+    public Optional<Review> update(Long id, Review details) {
+        Long movieId = movieRatingService.lockMovieOfReview(id);
+        if (movieId == null) {
+            return Optional.empty();
+        }
+        Review review = reviewRepository.findById(id).orElseThrow();
+        Double removed = approvedRating(review);
+        review.setContent(details.getContent());
+        review.setRating(details.getRating());
+        // Статус меняется только модерацией (moderate/moderateAll), значение из тела игнорируется
+        movieRatingService.applyChange(movieId, removed, approvedRating(review));
+        return Optional.of(review);
+    }
+
+    @Transactional
+    public PatchResult patch(Long id, Long expectedVersion, Map<String, Object> changes, Set<String> patchable) {
+        // Правка только текста на рейтинг не влияет: остаётся один UPDATE без блокировки
+        if (!changes.containsKey("rating")) {
+            return entityPatchService.patch(Review.class, id, expectedVersion, changes, patchable);
+        }
+        Long movieId = movieRatingService.lockMovieOfReview(id);
+        if (movieId == null) {
+            return new PatchResult(EntityPatchService.Outcome.NOT_FOUND, null);
+        }
+        Review review = reviewRepository.findById(id).orElseThrow();
+        Double removed = approvedRating(review);
+        PatchResult result = entityPatchService.patch(Review.class, id, expectedVersion, changes, patchable);
+        if (result.outcome() == EntityPatchService.Outcome.UPDATED) {
+            entityManager.refresh(review);
+            movieRatingService.applyChange(movieId, removed, approvedRating(review));
+        }
+        return result;
+    }
+
+    @Transactional
+    public boolean delete(Long id) {
+        Long movieId = movieRatingService.lockMovieOfReview(id);
+        Optional<Review> review = reviewRepository.findById(id);
+        if (review.isEmpty()) {
+            return false;
+        }
+        reviewRepository.delete(review.get());
+        if (movieId != null) {
+            movieRatingService.applyChange(movieId, approvedRating(review.get()), null);
+        }
+        return true;
+    }
+
+    private static Double approvedRating(Review review) {
+        return review.getStatus() == ReviewStatus.APPROVED ? review.getRating() : null;
+    }
+}
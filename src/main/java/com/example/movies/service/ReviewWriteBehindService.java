@@ -0,0 +1,248 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025 Kudzeri
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.example.movies.service;
+
+import com.example.movies.model.Review;
+import com.example.movies.model.ReviewStatus;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.generator.BeforeExecutionGenerator;
+import org.hibernate.generator.EventType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Array;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Отложенная запись отзывов (write-behind). Запрос получает ИД отзыва из той же pooled-последовательности,
+ * что и Hibernate (обращение к БД – раз на allocationSize отзывов), и ставится в ограниченную очередь;
+ * один поток сбрасывает очередь пакетами по batch-size или раз в flush-interval: одна выборка
+ * существующих фильмов и один пакетный INSERT на пакет.
+ * <p>
+ * Очередь хранится только в памяти: отзывы, принятые, но не записанные к моменту аварийной остановки
+ * процесса, теряются. При штатной остановке приём прекращается и очередь дописывается.
+ */
+@Service
+@ConditionalOnProperty(prefix = "movies.reviews.write-behind", name = "enabled", havingValue = "true")
+public class ReviewWriteBehindService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReviewWriteBehindService.class);
+
+    private static final String INSERT_SQL = "INSERT INTO reviews (id, movie_id, content, rating, reviewer, status, version) "
+            + "VALUES (?, ?, ?, ?, ?, '" + ReviewStatus.PENDING.name() + "', 0)";
+
+    public record PendingReview(Long id, Long movieId, String content, double rating, String reviewer) { }
+
+    public record Stats(int queued, int capacity, long accepted, long rejected, long written, long dropped, long batches) { }
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${movies.reviews.write-behind.queue-capacity:10000}")
+    private int queueCapacity;
+    @Value("${movies.reviews.write-behind.batch-size:500}")
+    private int batchSize;
+    @Value("${movies.reviews.write-behind.flush-interval:200ms}")
+    private Duration flushInterval;
+    @Value("${movies.reviews.write-behind.offer-timeout:50ms}")
+    private Duration offerTimeout;
+    @Value("${movies.reviews.write-behind.shutdown-timeout:30s}")
+    private Duration shutdownTimeout;
+
+    private BlockingQueue<PendingReview> queue;
+    private BeforeExecutionGenerator idGenerator;
+    private SessionFactoryImplementor sessionFactory;
+    private Thread flusher;
+    private volatile boolean accepting = true;
+
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder written = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+
+    @PostConstruct
+    void start() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        idGenerator = (BeforeExecutionGenerator) sessionFactory.getMappingMetamodel()
+                .getEntityDescriptor(Review.class).getGenerator();
+        flusher = Thread.ofPlatform().name("review-write-behind").daemon(false).start(this::runFlusher);
+    }
+
+    /**
+     * Ставит отзыв в очередь и возвращает его ИД. Если очередь не освободилась за offer-timeout
+     * или приём остановлен, возвращает null – вызывающий отвечает 503.
+     */
+    public Long submit(Long movieId, String content, double rating, String reviewer) throws InterruptedException {
+        if (!accepting) {
+            rejected.increment();
+            return null;
+        }
+        Long id = nextId();
+        if (!queue.offer(new PendingReview(id, movieId, content, rating, reviewer), offerTimeout.toNanos(), TimeUnit.NANOSECONDS)) {
+            rejected.increment();
+            return null;
+        }
+        accepted.increment();
+        return id;
+    }
+
+    public Stats stats() {
+        return new Stats(queue.size(), queueCapacity, accepted.sum(), rejected.sum(), written.sum(), dropped.sum(), batches.sum());
+    }
+
+    private Long nextId() {
+        try (StatelessSession session = sessionFactory.openStatelessSession()) {
+            return (Long) idGenerator.generate((SharedSessionContractImplementor) session, null, null, EventType.INSERT);
+        }
+    }
+
+    private void runFlusher() {
+        List<PendingReview> batch = new ArrayList<>(batchSize);
+        while (accepting || !queue.isEmpty()) {
+            try {
+                PendingReview first = queue.poll(flushInterval.toNanos(), TimeUnit.NANOSECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + flushInterval.toNanos();
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long wait = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || wait <= 0) {
+                        break;
+                    }
+                    PendingReview next = queue.poll(wait, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException ex) {
+                // Прерывание используется только при превышении shutdown-timeout
+                queue.drainTo(batch);
+                flush(batch);
+                Thread.currentThread().interrupt();
+                return;
+            }
+            flush(batch);
+            batch.clear();
+        }
+    }
+
+    private void flush(List<PendingReview> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        // Отзывы, отброшенные проверкой фильмов, уже учтены в dropped и построчно не повторяются
+        List<PendingReview> pending = batch;
+        try {
+            Set<Long> movies = existingMovies(batch);
+            List<PendingReview> valid = batch.stream().filter(review -> movies.contains(review.movieId())).toList();
+            dropped.add(batch.size() - valid.size());
+            if (valid.size() < batch.size()) {
+                logger.warn("Отброшено {} отзывов для несуществующих фильмов", batch.size() - valid.size());
+            }
+            pending = valid;
+            if (!valid.isEmpty()) {
+                transactionTemplate.executeWithoutResult(status -> insert(valid));
+                written.add(valid.size());
+                batches.increment();
+            }
+        } catch (Exception ex) {
+            // Фильм удалён между проверкой и вставкой или иная ошибка: пакет дописывается построчно
+            logger.warn("Ошибка пакетной записи {} отзывов, запись по одному: {}", pending.size(), ex.getMessage());
+            for (PendingReview review : pending) {
+                try {
+                    insert(List.of(review));
+                    written.increment();
+                } catch (Exception rowEx) {
+                    dropped.increment();
+                    logger.error("Не удалось записать отзыв с ИД {} для фильма с ИД {}", review.id(), review.movieId(), rowEx);
+                }
+            }
+        }
+    }
+
+    private Set<Long> existingMovies(List<PendingReview> batch) {
+        Long[] movieIds = batch.stream().map(PendingReview::movieId).distinct().toArray(Long[]::new);
+        return new HashSet<>(jdbcTemplate.query(connection -> {
+            var statement = connection.prepareStatement("SELECT id FROM movies WHERE id = ANY(?)");
+            Array array = connection.createArrayOf("bigint", movieIds);
+            statement.setArray(1, array);
+            return statement;
+        }, (rs, rowNum) -> rs.getLong(1)));
+    }
+
+    private void insert(List<PendingReview> reviews) {
+        jdbcTemplate.batchUpdate(INSERT_SQL, reviews, reviews.size(), (statement, review) -> {
+            statement.setLong(1, review.id());
+            statement.setLong(2, review.movieId());
+            statement.setString(3, review.content());
+            statement.setDouble(4, review.rating());
+            statement.setString(5, review.reviewer());
+        });
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        accepting = false;
+        flusher.join(shutdownTimeout.toMillis());
+        if (flusher.isAlive()) {
+            logger.warn("Очередь отзывов не дописана за {}, осталось {}", shutdownTimeout, queue.size());
+            flusher.interrupt();
+            flusher.join();
+        }
+        // Отзывы, поставленные в очередь одновременно с остановкой приёма
+        List<PendingReview> rest = new ArrayList<>();
+        queue.drainTo(rest);
+        flush(rest);
+        logger.info("Отложенная запись отзывов остановлена: записано {}, отброшено {}", written.sum(), dropped.sum());
+    }
+}
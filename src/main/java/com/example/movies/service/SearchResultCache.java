@@ -0,0 +1,197 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025 Kudzeri
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.example.movies.service;
+
+import com.example.movies.config.ReplicaLagMonitor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Кэш страниц /search в Redis: хранятся только id найденных строк и признак следующей страницы,
+ * строки страницы загружаются по первичному ключу. Ключ – версия каталога, движок поиска, номер и размер
+ * страницы, нормализованный запрос. Точное число совпадений хранится отдельным ключом без номера страницы.
+ * <p>
+ * Версия каталога – общий для всех экземпляров счётчик, который увеличивается (INCR) после фиксации
+ * любого изменения фильмов, авторов или жанров. Записи прежних версий больше не читаются и удаляются
+ * Redis по TTL. Версия увеличивается после коммита, поэтому поиск, прочитавший новую версию, видит и
+ * новые данные. Ошибки Redis не ломают поиск: запрос выполняется мимо кэша.
+ * <p>
+ * Источник поиска может отставать от коммита: встроенный индекс применяет изменения раз в
+ * refresh-interval, реплика для чтения – с задержкой до max-lag. Поиск в этом окне прочитал бы уже
+ * новую версию, но старые данные, и сохранил бы их на весь ttl. Поэтому версия увеличивается второй
+ * раз, когда окно закрыто: после того как индекс применил изменения, и через max-lag реплики.
+ * Версия в ключе читается до выполнения поиска, так что результат, полученный после второго
+ * увеличения, построен уже по новым данным, а сохранённые в окне записи больше не читаются.
+ */
+@Service
+@ConditionalOnProperty(prefix = "movies.search.cache", name = "enabled", havingValue = "true")
+public class SearchResultCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(SearchResultCache.class);
+
+    static final String VERSION_KEY = "movies:catalog:version";
+    private static final String PREFIX = "movies:search:";
+    // Длинные запросы почти не повторяются, а ключ с ними занимает лишнюю память Redis
+    private static final int MAX_QUERY_LENGTH = 200;
+
+    public record Stats(long hits, long misses, long errors, double hitRatio, long catalogVersion) { }
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    @Autowired(required = false)
+    private ReplicaLagMonitor replicaLagMonitor;
+    @Autowired
+    private TaskScheduler taskScheduler;
+
+    @Value("${movies.search.cache.ttl:10m}")
+    private Duration ttl;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+
+    static String normalize(String query) {
+        return query.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Страница id из кэша или, при промахе, из search с сохранением результата.
+     * scope различает сущность и движок поиска: у разных движков разный порядок и состав результатов.
+     * Все движки ищут без учёта регистра, поэтому запрос в ключе приводится к нижнему регистру.
+     */
+    public Slice<Long> get(String scope, String query, Pageable pageable, Supplier<Slice<Long>> search) {
+        String key = scope + ":" + pageable.getPageNumber() + ":" + pageable.getPageSize();
+        return decode(cached(key, query, () -> encode(search.get())), pageable);
+    }
+
+    /** Точное число совпадений: хранится отдельно от страниц и общее для всех страниц запроса */
+    public long count(String scope, String query, LongSupplier count) {
+        return Long.parseLong(cached(scope + ":count", query, () -> String.valueOf(count.getAsLong())));
+    }
+
+    private String cached(String name, String query, Supplier<String> load) {
+        String normalized = normalize(query);
+        if (normalized.length() > MAX_QUERY_LENGTH) {
+            return load.get();
+        }
+        String key;
+        String cached;
+        try {
+            String version = redisTemplate.opsForValue().get(VERSION_KEY);
+            key = PREFIX + (version != null ? version : "0") + ":" + name + ":" + normalized;
+            cached = redisTemplate.opsForValue().get(key);
+        } catch(Exception ex) {
+            errors.increment();
+            logger.warn("Кэш поиска недоступен: {}", ex.getMessage());
+            return load.get();
+        }
+        if (cached != null) {
+            hits.increment();
+            return cached;
+        }
+        misses.increment();
+        String value = load.get();
+        try {
+            redisTemplate.opsForValue().set(key, value, ttl);
+        } catch(Exception ex) {
+            errors.increment();
+            logger.warn("Не удалось сохранить результат поиска в кэш: {}", ex.getMessage());
+        }
+        return value;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        incrementVersion();
+        if (replicaLagMonitor != null) {
+            taskScheduler.schedule(this::incrementVersion, Instant.now().plus(replicaLagMonitor.getMaxLag()));
+        }
+    }
+
+    @EventListener
+    public void onIndexRefreshed(CatalogSearchIndex.RefreshedEvent event) {
+        incrementVersion();
+    }
+
+    private void incrementVersion() {
+        try {
+            redisTemplate.opsForValue().increment(VERSION_KEY);
+        } catch(Exception ex) {
+            // Без новой версии результаты поиска устареют не дольше чем на ttl
+            errors.increment();
+            logger.error("Не удалось увеличить версию каталога в Redis", ex);
+        }
+    }
+
+    public Stats getStats() {
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        long version = -1;
+        try {
+            String value = redisTemplate.opsForValue().get(VERSION_KEY);
+            version = value != null ? Long.parseLong(value) : 0;
+        } catch(Exception ex) {
+            logger.warn("Версия каталога недоступна: {}", ex.getMessage());
+        }
+        long lookups = hitCount + missCount;
+        return new Stats(hitCount, missCount, errors.sum(), lookups == 0 ? 0 : (double) hitCount / lookups, version);
+    }
+
+    // "hasNext:id,id,...", hasNext – 0 или 1
+    static String encode(Slice<Long> slice) {
+        return (slice.hasNext() ? "1:" : "0:") + slice.getContent().stream().map(String::valueOf).collect(Collectors.joining(","));
+    }
+
+    static Slice<Long> decode(String value, Pageable pageable) {
+        List<Long> ids = new ArrayList<>();
+        if (value.length() > 2) {
+            for (String id : value.substring(2).split(",")) {
+                ids.add(Long.valueOf(id));
+            }
+        }
+        return new SliceImpl<>(ids, pageable, value.charAt(0) == '1');
+    }
+}
@@ -0,0 +1,294 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025 Kudzeri
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.example.movies.service;
+
+import com.example.movies.repository.AuthorRepository;
+import com.example.movies.repository.MovieRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.stream.Stream;
+
+/**
+ * Подсказки для строки поиска (/search/suggest): названия фильмов и имена авторов, начинающиеся
+ * с введённого префикса (с начала или с любого слова), по убыванию популярности – числа одобренных
+ * отзывов фильма или всех фильмов автора. Запрос обслуживается из памяти без обращения к БД.
+ * <p>
+ * Индекс неизменяемый: отсортированный массив ключей, префикс – диапазон двоичного поиска; для
+ * префиксов до трёх символов лучшие варианты посчитаны заранее. После изменений каталога и раз
+ * в max-age индекс собирается заново и подменяется целиком. Объём ограничен max-entries самых
+ * популярных записей.
+ */
+@Service
+@ConditionalOnProperty(prefix = "movies.search.suggest", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class SuggestService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SuggestService.class);
+
+    public static final int MAX_LIMIT = 20;
+
+    private static final int SHORT_PREFIX = 3;
+    private static final int MAX_TEXT_LENGTH = 100;
+    private static final int MAX_WORD_KEYS = 8;
+
+    public enum Type { MOVIE, AUTHOR }
+
+    public record Suggestion(Type type, Long id, String text) { }
+
+    public record MovieSuggestRow(Long id, String title, Long authorId, int reviewCount) { }
+
+    public record BuildResult(int entries, int keys, int prefixes, Instant builtAt, long millis) { }
+
+    private record Candidate(Type type, Long id, String text, int weight) { }
+
+    @Autowired
+    private MovieRepository movieRepository;
+
+    @Autowired
+    private AuthorRepository authorRepository;
+
+    @Value("${movies.search.suggest.max-entries:100000}")
+    private int maxEntries;
+
+    @Value("${movies.search.suggest.max-age:15m}")
+    private Duration maxAge;
+
+    private volatile Snapshot snapshot;
+    private volatile boolean dirty = true;
+
+    // Без транзакции (запись через save() репозитория) событие обрабатывается сразу
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        dirty = true;
+    }
+
+    public List<Suggestion> suggest(String prefix, int limit) {
+        Snapshot current = snapshot;
+        return current != null ? current.lookup(normalize(prefix), Math.min(limit, MAX_LIMIT)) : List.of();
+    }
+
+    /**
+     * Собирает индекс, если каталог менялся или текущий старше max-age (популярность меняется постепенно).
+     */
+    @Scheduled(fixedDelayString = "${movies.search.suggest.refresh-interval:10s}")
+    @Transactional(readOnly = true)
+    public void refresh() {
+        Snapshot current = snapshot;
+        if (dirty || current == null || current.builtAt.plus(maxAge).isBefore(Instant.now())) {
+            try {
+                rebuild();
+            } catch (Exception ex) {
+                logger.error("Ошибка при сборке индекса подсказок", ex);
+            }
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public BuildResult rebuild() {
+        // Сбрасывается до чтения: изменения во время сборки вызовут следующую
+        dirty = false;
+        long startedAt = System.nanoTime();
+        PriorityQueue<Candidate> top = new PriorityQueue<>(Comparator.comparingInt(Candidate::weight));
+        Map<Long, Integer> authorWeights = new HashMap<>();
+        try (Stream<MovieSuggestRow> rows = movieRepository.streamSuggestRows()) {
+            rows.forEach(row -> {
+                offer(top, new Candidate(Type.MOVIE, row.id(), row.title(), row.reviewCount()));
+                authorWeights.merge(row.authorId(), row.reviewCount() + 1, Integer::sum);
+            });
+        }
+        for (Object[] row : authorRepository.findAllIdAndName()) {
+            Long id = (Long) row[0];
+            offer(top, new Candidate(Type.AUTHOR, id, (String) row[1], authorWeights.getOrDefault(id, 0)));
+        }
+        Snapshot built = new Snapshot(new ArrayList<>(top), Instant.now());
+        snapshot = built;
+        BuildResult result = new BuildResult(built.entries.length, built.keys.length, built.top.size(),
+                built.builtAt, (System.nanoTime() - startedAt) / 1_000_000);
+        logger.info("Индекс подсказок собран за {} мс: записей {}, ключей {}, префиксов {}",
+                result.millis(), result.entries(), result.keys(), result.prefixes());
+        return result;
+    }
+
+    private void offer(PriorityQueue<Candidate> top, Candidate candidate) {
+        if (candidate.text() == null || normalize(candidate.text()).isEmpty()) {
+            return;
+        }
+        top.add(candidate);
+        if (top.size() > maxEntries) {
+            top.poll();
+        }
+    }
+
+    // Нижний регистр, любые разделители – один пробел: «Howl's Moving» → «howl s moving»
+    static String normalize(String text) {
+        StringBuilder normalized = new StringBuilder(Math.min(text.length(), MAX_TEXT_LENGTH));
+        boolean space = false;
+        for (int i = 0; i < text.length() && normalized.length() < MAX_TEXT_LENGTH; i++) {
+            char c = text.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                if (space && !normalized.isEmpty()) {
+                    normalized.append(' ');
+                }
+                normalized.append(Character.toLowerCase(c));
+                space = false;
+            } else {
+                space = true;
+            }
+        }
+        return normalized.toString();
+    }
+
+    /**
+     * Неизменяемый снимок. Записи упорядочены по популярности, поэтому лучшие варианты диапазона –
+     * записи с наименьшими номерами.
+     */
+    private static final class Snapshot {
+        final Suggestion[] entries;
+        final String[] keys;
+        final int[] keyEntries;
+        final Map<String, int[]> top = new HashMap<>();
+        final Instant builtAt;
+
+        Snapshot(List<Candidate> candidates, Instant builtAt) {
+            this.builtAt = builtAt;
+            candidates.sort(Comparator.comparingInt(Candidate::weight).reversed()
+                    .thenComparingInt(candidate -> candidate.text().length())
+                    .thenComparing(Candidate::id));
+            entries = new Suggestion[candidates.size()];
+            List<String> keyList = new ArrayList<>();
+            List<Integer> keyEntryList = new ArrayList<>();
+            for (int entry = 0; entry < entries.length; entry++) {
+                Candidate candidate = candidates.get(entry);
+                entries[entry] = new Suggestion(candidate.type(), candidate.id(), candidate.text());
+                String key = normalize(candidate.text());
+                // Ключ с начала текста и с начала каждого следующего слова
+                for (int start = 0, words = 0; start >= 0 && words < MAX_WORD_KEYS; words++) {
+                    keyList.add(key.substring(start));
+                    keyEntryList.add(entry);
+                    int space = key.indexOf(' ', start);
+                    start = space < 0 ? -1 : space + 1;
+                }
+            }
+            Integer[] order = new Integer[keyList.size()];
+            for (int i = 0; i < order.length; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, Comparator.comparing(keyList::get));
+            keys = new String[order.length];
+            keyEntries = new int[order.length];
+            for (int i = 0; i < order.length; i++) {
+                keys[i] = keyList.get(order[i]);
+                keyEntries[i] = keyEntryList.get(order[i]);
+            }
+            // Ключи с общим префиксом идут подряд: один проход на каждую длину префикса
+            for (int length = 1; length <= SHORT_PREFIX; length++) {
+                int from = 0;
+                while (from < keys.length) {
+                    if (keys[from].length() < length) {
+                        from++;
+                        continue;
+                    }
+                    String prefix = keys[from].substring(0, length);
+                    int to = from + 1;
+                    while (to < keys.length && keys[to].startsWith(prefix)) {
+                        to++;
+                    }
+                    top.put(prefix, best(from, to, MAX_LIMIT));
+                    from = to;
+                }
+            }
+        }
+
+        List<Suggestion> lookup(String prefix, int limit) {
+            if (prefix.isEmpty()) {
+                return List.of();
+            }
+            int[] best;
+            if (prefix.length() <= SHORT_PREFIX) {
+                best = top.getOrDefault(prefix, new int[0]);
+            } else {
+                best = best(lowerBound(prefix), lowerBound(prefix + Character.MAX_VALUE), limit);
+            }
+            List<Suggestion> result = new ArrayList<>(Math.min(limit, best.length));
+            for (int i = 0; i < best.length && i < limit; i++) {
+                result.add(entries[best[i]]);
+            }
+            return result;
+        }
+
+        private int lowerBound(String key) {
+            int low = 0;
+            int high = keys.length;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (keys[middle].compareTo(key) < 0) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+
+        // До limit различных записей диапазона ключей с наименьшими номерами, по возрастанию
+        private int[] best(int from, int to, int limit) {
+            int[] best = new int[limit];
+            int size = 0;
+            for (int i = from; i < to; i++) {
+                int entry = keyEntries[i];
+                if (size == limit && entry >= best[size - 1]) {
+                    continue;
+                }
+                int position = Arrays.binarySearch(best, 0, size, entry);
+                if (position >= 0) {
+                    continue;
+                }
+                position = -position - 1;
+                int moved = Math.min(size, limit - 1) - position;
+                if (moved > 0) {
+                    System.arraycopy(best, position, best, position + 1, moved);
+                }
+                best[position] = entry;
+                size = Math.min(size + 1, limit);
+            }
+            return Arrays.copyOf(best, size);
+        }
+    }
+}
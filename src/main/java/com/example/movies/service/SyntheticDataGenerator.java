@@ -0,0 +1,293 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025 Kudzeri
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.example.movies.service;
+
+import com.example.movies.model.Genre;
+import com.example.movies.model.ReviewStatus;
+import com.example.movies.repository.GenreRepository;
+import com.example.movies.service.JobService.JobProgress;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Генератор синтетического каталога для нагрузочного тестирования: authors авторов, movies фильмов и
+ * reviews отзывов дописываются к существующим данным. Популярность распределена по Ципфу: число фильмов
+ * у автора, число отзывов у фильма и частота слов в названиях и описаниях.
+ * <p>
+ * Строки пишутся пакетами JDBC (с reWriteBatchedInserts драйвер PostgreSQL склеивает их в многострочные
+ * INSERT) порциями по CHUNK_ROWS, каждая порция – отдельная транзакция в одном из parallelism потоков.
+ * Содержимое порции зависит только от seed и её номера, поэтому при одном seed данные совпадают при
+ * любом parallelism; ИД – смещение от начала заранее зарезервированного диапазона последовательности,
+ * время модерации – смещение от начала текущих суток (UTC).
+ */
+@Service
+public class SyntheticDataGenerator {
+
+    private static final Logger logger = LoggerFactory.getLogger(SyntheticDataGenerator.class);
+
+    static final int CHUNK_ROWS = 10_000;
+    private static final int MAX_ROWS = 100_000_000;
+    private static final int MAX_PARALLELISM = 32;
+    // Шаг последовательностей Hibernate (allocationSize): экземпляр приложения может выдать до 50 ИД вперёд
+    private static final int SEQUENCE_STEP = 50;
+    // Отображение ранга популярности в номер строки: простое число, взаимно простое с любым размером выборки
+    private static final long RANK_SPREAD = 2_147_483_647L;
+    private static final int MODERATION_WINDOW_DAYS = 56;
+    // Длина строковых колонок по умолчанию (varchar(255))
+    private static final int MAX_TEXT_LENGTH = 255;
+
+    private static final List<String> DEFAULT_GENRES = List.of("Action", "Comedy", "Drama", "Fantasy", "Horror", "Mystery",
+            "Romance", "Thriller", "Western", "Sci-Fi", "Documentary", "Animation");
+    private static final String[] FIRST_NAMES = {"Akira", "Agnes", "Alfred", "Andrei", "Ang", "Bong", "Chantal", "Claire",
+            "David", "Denis", "Federico", "Greta", "Hayao", "Ingmar", "Isao", "Jane", "Jean", "Kathryn", "Ken", "Lynne",
+            "Mamoru", "Martin", "Mira", "Park", "Pedro", "Satoshi", "Sofia", "Spike", "Stanley", "Wong"};
+    private static final String[] LAST_NAMES = {"Almodovar", "Bergman", "Bigelow", "Campion", "Chan-wook", "Coppola",
+            "Denis", "Fellini", "Fincher", "Gerwig", "Hitchcock", "Hosoda", "Joon-ho", "Kar-wai", "Kon", "Kubrick", "Kurosawa",
+            "Lee", "Loach", "Miyazaki", "Nair", "Ramsay", "Scorsese", "Shinkai", "Takahata", "Tarkovsky", "Varda", "Villeneuve"};
+    // Слова по убыванию частоты: ранг Ципфа – индекс в массиве
+    private static final String[] WORDS = {"the", "of", "night", "love", "city", "last", "house", "dark", "world", "time",
+            "girl", "man", "war", "secret", "life", "dream", "river", "star", "king", "road", "summer", "ghost", "fire",
+            "shadow", "heart", "winter", "island", "castle", "garden", "journey", "storm", "moon", "mountain", "sea",
+            "empire", "memory", "wolf", "spirit", "forest", "machine", "mirror", "silence", "blood", "light", "stranger",
+            "promise", "train", "letter", "crown", "paradise", "harbor", "desert", "angel", "tower", "witch", "kingdom",
+            "hunter", "voyage", "bridge", "festival", "orchard", "lantern", "whisper", "clockwork", "labyrinth", "tide",
+            "meadow", "comet", "ember", "glacier", "monsoon", "nocturne", "odyssey", "requiem", "sanctuary", "twilight"};
+
+    public record Spec(int authors, int movies, int reviews, long seed, double zipfExponent, int parallelism) { }
+
+    public record Report(int authors, int movies, int reviews, long seed, Long firstAuthorId, Long firstMovieId,
+                         Long firstReviewId, long elapsedMillis, double rowsPerSecond) { }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private GenreRepository genreRepository;
+    @Autowired
+    private MovieRatingService movieRatingService;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    public Report generate(Spec spec) {
+        return generate(spec, JobProgress.NONE);
+    }
+
+    // Прогресс – в записанных строках; отмена проверяется перед каждой порцией
+    public Report generate(Spec spec, JobProgress progress) {
+        validate(spec);
+        progress.setTotal((long) spec.authors() + spec.movies() + spec.reviews());
+        long startedAt = System.nanoTime();
+        List<Long> genreIds = genreIds();
+        long firstAuthorId = reserve("authors_seq", spec.authors());
+        long firstMovieId = reserve("movies_seq", spec.movies());
+        long firstReviewId = reserve("reviews_seq", spec.reviews());
+        Instant today = LocalDate.now(ZoneOffset.UTC).atStartOfDay(ZoneOffset.UTC).toInstant();
+
+        ZipfSampler words = new ZipfSampler(WORDS.length, spec.zipfExponent());
+        ZipfSampler authorPopularity = spec.authors() > 0 ? new ZipfSampler(spec.authors(), spec.zipfExponent()) : null;
+        ZipfSampler moviePopularity = spec.movies() > 0 ? new ZipfSampler(spec.movies(), spec.zipfExponent()) : null;
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(spec.parallelism())) {
+            run(executor, progress, spec.authors(), spec.seed(), 1, "INSERT INTO authors (id, version, name, biography) VALUES (?, 0, ?, ?)",
+                    (random, row) -> {
+                        String name = pick(random, FIRST_NAMES) + " " + pick(random, LAST_NAMES) + " " + (row + 1);
+                        return new Object[]{firstAuthorId + row, name, truncate("Biography of " + name + ": " + text(random, words, 12, 40))};
+                    });
+            run(executor, progress, spec.movies(), spec.seed(), 2,
+                    "INSERT INTO movies (id, version, title, description, genre_id, author_id) VALUES (?, 0, ?, ?, ?, ?)",
+                    (random, row) -> new Object[]{firstMovieId + row, capitalize(text(random, words, 1, 4)), truncate(text(random, words, 10, 40)),
+                            genreIds.get(random.nextInt(genreIds.size())), firstAuthorId + popular(random, authorPopularity, spec.authors())});
+            run(executor, progress, spec.reviews(), spec.seed(), 3,
+                    "INSERT INTO reviews (id, version, movie_id, content, rating, status, moderated_at, reviewer) VALUES (?, 0, ?, ?, ?, ?, ?, ?)",
+                    (random, row) -> {
+                        long movie = popular(random, moviePopularity, spec.movies());
+                        // У каждого фильма своё «качество», отзывы разбросаны вокруг него
+                        double quality = 1.5 + 3 * (mix(spec.seed() ^ movie) >>> 11) * 0x1.0p-53;
+                        double rating = Math.round(Math.max(0, Math.min(5, quality + random.nextGaussian() * 0.8)) * 10) / 10.0;
+                        int status = random.nextInt(20);
+                        ReviewStatus reviewStatus = status < 17 ? ReviewStatus.APPROVED : status < 19 ? ReviewStatus.PENDING : ReviewStatus.REJECTED;
+                        Timestamp moderatedAt = reviewStatus == ReviewStatus.PENDING ? null
+                                : Timestamp.from(today.minusSeconds(random.nextLong(MODERATION_WINDOW_DAYS * 86_400L)));
+                        return new Object[]{firstReviewId + row, firstMovieId + movie, truncate(capitalize(text(random, words, 5, 60))), rating,
+                                reviewStatus.name(), moderatedAt, "loadtest-user-" + (1 + random.nextInt(Math.max(1, spec.reviews() / 10)))};
+                    });
+        }
+
+        // Отзывы записаны минуя ReviewService, поэтому агрегаты строим одним запросом
+        movieRatingService.rebuild();
+        eventPublisher.publishEvent(CatalogChangedEvent.all());
+        long elapsedMillis = Math.max(1, (System.nanoTime() - startedAt) / 1_000_000);
+        long rows = (long) spec.authors() + spec.movies() + spec.reviews();
+        logger.info("Синтетические данные (seed {}): авторов {}, фильмов {}, отзывов {} за {} мс",
+                spec.seed(), spec.authors(), spec.movies(), spec.reviews(), elapsedMillis);
+        return new Report(spec.authors(), spec.movies(), spec.reviews(), spec.seed(),
+                spec.authors() > 0 ? firstAuthorId : null, spec.movies() > 0 ? firstMovieId : null,
+                spec.reviews() > 0 ? firstReviewId : null, elapsedMillis, rows * 1000.0 / elapsedMillis);
+    }
+
+    public static void validate(Spec spec) {
+        if (spec.authors() < 0 || spec.movies() < 0 || spec.reviews() < 0
+                || spec.authors() > MAX_ROWS || spec.movies() > MAX_ROWS || spec.reviews() > MAX_ROWS) {
+            throw new IllegalArgumentException("Row counts must be between 0 and " + MAX_ROWS);
+        }
+        if (spec.movies() > 0 && spec.authors() == 0) {
+            throw new IllegalArgumentException("Movies require at least one author");
+        }
+        if (spec.reviews() > 0 && spec.movies() == 0) {
+            throw new IllegalArgumentException("Reviews require at least one movie");
+        }
+        if (!(spec.zipfExponent() > 0) || spec.zipfExponent() > 10) {
+            throw new IllegalArgumentException("zipf must be greater than 0 and at most 10");
+        }
+        if (spec.parallelism() < 1 || spec.parallelism() > MAX_PARALLELISM) {
+            throw new IllegalArgumentException("parallelism must be between 1 and " + MAX_PARALLELISM);
+        }
+    }
+
+    private List<Long> genreIds() {
+        List<Genre> genres = genreRepository.findAll();
+        if (genres.isEmpty()) {
+            genres = genreRepository.saveAll(DEFAULT_GENRES.stream().map(Genre::new).toList());
+        }
+        return genres.stream().map(Genre::getId).sorted(Comparator.naturalOrder()).toList();
+    }
+
+    /**
+     * Резервирует count ИД последовательности: возвращает первый, а последовательность переводит за
+     * конец диапазона с запасом в шаг, чтобы блоки, которые Hibernate выдаёт из неё, не пересекались с ним.
+     * <p>
+     * Чтение и перевод выполняются в одной транзакции, которая начинается с ALTER SEQUENCE без изменений:
+     * в PostgreSQL он блокирует nextval других сеансов (и других экземпляров приложения) до её фиксации,
+     * поэтому между чтением и RESTART никто не получит ИД из резервируемого диапазона.
+     */
+    private long reserve(String sequence, int count) {
+        return new TransactionTemplate(transactionManager).execute(status -> {
+            jdbcTemplate.execute("ALTER SEQUENCE " + sequence + " NO CYCLE");
+            Long current = jdbcTemplate.queryForObject("SELECT nextval('" + sequence + "')", Long.class);
+            long first = current + 1;
+            jdbcTemplate.execute("ALTER SEQUENCE " + sequence + " RESTART WITH " + (first + count + SEQUENCE_STEP));
+            return first;
+        });
+    }
+
+    @FunctionalInterface
+    private interface RowFactory {
+        Object[] row(SplittableRandom random, long row);
+    }
+
+    // Порции пишутся параллельно; фаза заканчивается, когда записаны все её порции
+    private void run(ExecutorService executor, JobProgress progress, int rows, long seed, int table, String sql, RowFactory factory) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        List<Future<?>> chunks = new ArrayList<>();
+        for (int from = 0; from < rows; from += CHUNK_ROWS) {
+            int start = from;
+            int end = Math.min(rows, from + CHUNK_ROWS);
+            chunks.add(executor.submit(() -> {
+                progress.checkCancelled();
+                SplittableRandom random = new SplittableRandom(mix(seed ^ ((long) table << 56) ^ (start / CHUNK_ROWS)));
+                List<Object[]> batch = new ArrayList<>(end - start);
+                for (long row = start; row < end; row++) {
+                    batch.add(factory.row(random, row));
+                }
+                transaction.executeWithoutResult(status -> jdbcTemplate.batchUpdate(sql, batch));
+                progress.advance(batch.size());
+            }));
+        }
+        try {
+            for (Future<?> chunk : chunks) {
+                chunk.get();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Synthetic data generation interrupted", ex);
+        } catch (ExecutionException ex) {
+            chunks.forEach(chunk -> chunk.cancel(true));
+            if (ex.getCause() instanceof CancellationException cancelled) {
+                throw cancelled;
+            }
+            throw new IllegalStateException("Synthetic data generation failed: " + ex.getCause().getMessage(), ex.getCause());
+        }
+    }
+
+    // Номер строки (0..n-1) по рангу Ципфа; ранги разбросаны по ИД, а не собраны в начале диапазона
+    private static long popular(SplittableRandom random, ZipfSampler sampler, int n) {
+        return (sampler.sample(random) - 1) * RANK_SPREAD % n;
+    }
+
+    private static String text(SplittableRandom random, ZipfSampler words, int minWords, int maxWords) {
+        int count = minWords + random.nextInt(maxWords - minWords + 1);
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                text.append(' ');
+            }
+            text.append(WORDS[words.sample(random) - 1]);
+        }
+        return text.toString();
+    }
+
+    private static String truncate(String text) {
+        if (text.length() <= MAX_TEXT_LENGTH) {
+            return text;
+        }
+        int cut = text.lastIndexOf(' ', MAX_TEXT_LENGTH);
+        return text.substring(0, cut > 0 ? cut : MAX_TEXT_LENGTH);
+    }
+
+    private static String capitalize(String text) {
+        return text.isEmpty() ? text : Character.toUpperCase(text.charAt(0)) + text.substring(1);
+    }
+
+    private static String pick(SplittableRandom random, String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+
+    // Финализатор SplitMix64: разные seed и номера порций дают несвязанные последовательности
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
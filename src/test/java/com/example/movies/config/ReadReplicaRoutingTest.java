@@ -0,0 +1,108 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025 Kudzeri
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.example.movies.config;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Основная БД и реплика – две независимые H2 в памяти; DATABASE() показывает, куда ушёл запрос
+@SpringBootTest(properties = {
+        "movies.datasource.replica.url=jdbc:h2:mem:replica;MODE=PostgreSQL;DB_CLOSE_DELAY=-1;"
+                + "INIT=CREATE TABLE IF NOT EXISTS replica_lag AS SELECT CAST(0 AS DOUBLE PRECISION) AS lag_seconds",
+        "movies.datasource.replica.lag-query=SELECT lag_seconds FROM replica_lag",
+        "movies.datasource.replica.max-lag=5s",
+        "movies.datasource.replica.lag-check-interval=1h"
+})
+@ActiveProfiles("test")
+class ReadReplicaRoutingTest {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    @Qualifier("replicaDataSource")
+    private DataSource replicaDataSource;
+
+    @Autowired
+    private ReplicaLagMonitor replicaLagMonitor;
+
+    @Autowired
+    private ReadReplicaRoutingDataSource routingDataSource;
+
+    private JdbcTemplate replica;
+
+    @BeforeEach
+    void setUp() {
+        replica = new JdbcTemplate(replicaDataSource);
+        replica.update("UPDATE replica_lag SET lag_seconds = 0");
+        replicaLagMonitor.check();
+    }
+
+    @Test
+    void readOnlyTransactionsUseReplicaAndWritesUsePrimary() {
+        long replicaConnections = routingDataSource.getReplicaConnections();
+
+        assertThat(currentDatabase(true)).isEqualTo("REPLICA");
+        assertThat(currentDatabase(false)).isEqualTo("MOVIES");
+        assertThat(routingDataSource.getReplicaConnections()).isEqualTo(replicaConnections + 1);
+    }
+
+    @Test
+    void readsFallBackToPrimaryWhileReplicaLags() {
+        replica.update("UPDATE replica_lag SET lag_seconds = 60");
+        replicaLagMonitor.check();
+        long fallbacks = routingDataSource.getReplicaFallbacks();
+
+        assertThat(replicaLagMonitor.isUsable()).isFalse();
+        assertThat(currentDatabase(true)).isEqualTo("MOVIES");
+        assertThat(routingDataSource.getReplicaFallbacks()).isEqualTo(fallbacks + 1);
+
+        replica.update("UPDATE replica_lag SET lag_seconds = 1");
+        replicaLagMonitor.check();
+        assertThat(currentDatabase(true)).isEqualTo("REPLICA");
+    }
+
+    private String currentDatabase(boolean readOnly) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(readOnly);
+        return transaction.execute(status ->
+                (String) entityManager.createNativeQuery("SELECT DATABASE()").getSingleResult());
+    }
+}
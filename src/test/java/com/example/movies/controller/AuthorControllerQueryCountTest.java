@@ -0,0 +1,105 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025 Kudzeri
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.example.movies.controller;
+
+import com.example.movies.model.Author;
+import com.example.movies.support.QueryCountTestSupport;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WithMockUser(authorities = "ROLE_ADMIN")
+class AuthorControllerQueryCountTest extends QueryCountTestSupport {
+
+    @Test
+    void getAll() throws Exception {
+        // авторы + ленивая коллекция movies каждого автора при сериализации
+        perform(1 + authors.size(), get("/admin/authors"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(authors.size()));
+    }
+
+    @Test
+    void getById() throws Exception {
+        perform(2, get("/admin/authors/{id}", authors.get(0).getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.movies.length()").value(MOVIES_PER_AUTHOR));
+    }
+
+    @Test
+    void create() throws Exception {
+        perform(1, post("/admin/authors").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\": \"New author\", \"biography\": \"Biography\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value("New author"));
+    }
+
+    @Test
+    void update() throws Exception {
+        perform(3, put("/admin/authors/{id}", authors.get(0).getId()).contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\": \"Renamed\", \"biography\": \"Biography\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value("Renamed"));
+    }
+
+    @Test
+    void patchCannotReassignMovies() throws Exception {
+        Author author = authors.get(0);
+        // у автора нет изменяемых связей: ссылки на фильмы, в том числе несуществующие, отклоняются до UPDATE
+        perform(0, patch("/admin/authors/{id}", author.getId()).contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"movies\": [{\"id\": 987654}]}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(status().reason("Field cannot be patched: movies"));
+
+        assertThat(movieRepository.count()).isEqualTo(movies.size());
+        assertThat(authorRepository.findById(author.getId()).orElseThrow().getVersion()).isZero();
+    }
+
+    @Test
+    void deleteAuthor() throws Exception {
+        Author author = authorRepository.save(new Author("Without movies", "Biography"));
+        perform(5, delete("/admin/authors/{id}", author.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.authors").value(1));
+    }
+
+    @Test
+    void deleteProlificAuthorUsesSetBasedDeletes() throws Exception {
+        Author author = authors.get(0);
+        // ИД фильмов для событий, затем отзывы → агрегаты рейтинга → фильмы → автор: четыре DELETE независимо от числа фильмов
+        perform(5, delete("/admin/authors/{id}", author.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.reviews").value(MOVIES_PER_AUTHOR * REVIEWS_PER_MOVIE))
+                .andExpect(jsonPath("$.movies").value(MOVIES_PER_AUTHOR))
+                .andExpect(jsonPath("$.authors").value(1));
+
+        assertThat(authorRepository.findById(author.getId())).isEmpty();
+        assertThat(movieRepository.count()).isEqualTo(movies.size() - MOVIES_PER_AUTHOR);
+    }
+}
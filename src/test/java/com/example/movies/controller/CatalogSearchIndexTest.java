@@ -0,0 +1,160 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025 Kudzeri
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.example.movies.controller;
+
+import com.example.movies.model.Author;
+import com.example.movies.model.Movie;
+import com.example.movies.service.CatalogSearchIndex;
+import com.example.movies.support.QueryCountTestSupport;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.TestPropertySource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Обновление по расписанию отключено длинным интервалом: тесты вызывают refresh() сами
+@WithMockUser(authorities = "ROLE_ADMIN")
+@TestPropertySource(properties = {
+        "movies.search.index.enabled=true",
+        "movies.search.index.refresh-interval=1h"
+})
+class CatalogSearchIndexTest extends QueryCountTestSupport {
+
+    @Autowired
+    private CatalogSearchIndex searchIndex;
+
+    @BeforeEach
+    void buildIndex() {
+        // Данные базового класса сохранены напрямую репозиториями, без событий
+        searchIndex.rebuild();
+    }
+
+    @Test
+    void rankingAndCountingDoNotQueryTheDatabase() throws Exception {
+        Movie movie = movies.get(4);
+        // одна загрузка найденных строк по ИД + ленивая коллекция author.movies
+        perform(2, get("/search/movies").param("query", movie.getTitle()).param("fields", "title"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalElements").value(1))
+                .andExpect(jsonPath("$.content[0].id").value(movie.getId()));
+
+        perform(1, get("/search/movies").param("query", "no such words"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalElements").value(0));
+    }
+
+    @Test
+    void moviesAreFoundByAuthorAndGenreNames() throws Exception {
+        Author author = authors.get(1);
+        mockMvc.perform(patch("/admin/authors/{id}", author.getId()).contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\": \"Isao Takahata\"}"))
+                .andExpect(status().isNoContent());
+        searchIndex.refresh();
+
+        mockMvc.perform(get("/search/movies").param("query", "takahata"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalElements").value(MOVIES_PER_AUTHOR))
+                .andExpect(jsonPath("$.content[0].author.id").value(author.getId()));
+
+        mockMvc.perform(get("/search/authors").param("query", "biography author 3"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalElements").value(1))
+                .andExpect(jsonPath("$.content[0].name").value("Author 3"));
+    }
+
+    @Test
+    void writesAreAppliedAfterRefresh() throws Exception {
+        Author author = authors.get(0);
+        String body = """
+                {"title": "Howl's Moving Castle", "description": "A wizard", "genre": {"id": %d}, "author": {"id": %d}}
+                """.formatted(genres.get(0).getId(), author.getId());
+        mockMvc.perform(post("/admin/movies").contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isOk());
+        mockMvc.perform(put("/admin/authors/{id}", author.getId()).contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\": \"Hayao Miyazaki\", \"biography\": \"Animator\"}"))
+                .andExpect(status().isOk());
+        mockMvc.perform(delete("/admin/movies/{id}", movies.get(8).getId())).andExpect(status().isOk());
+
+        assertThat(searchIndex.getStats().pendingChanges()).isEqualTo(3);
+        searchIndex.refresh();
+        assertThat(searchIndex.getStats().pendingChanges()).isZero();
+
+        mockMvc.perform(get("/search/movies").param("query", "moving castle"))
+                .andExpect(jsonPath("$.totalElements").value(1));
+        // Переименование автора переиндексирует все его фильмы
+        mockMvc.perform(get("/search/movies").param("query", "miyazaki"))
+                .andExpect(jsonPath("$.totalElements").value(MOVIES_PER_AUTHOR + 1));
+        mockMvc.perform(get("/search/authors").param("query", "author 1"))
+                .andExpect(jsonPath("$.totalElements").value(0));
+        mockMvc.perform(get("/search/movies").param("query", movies.get(8).getTitle()))
+                .andExpect(jsonPath("$.totalElements").value(0));
+    }
+
+    @Test
+    void filterDeleteRemovesMoviesOfAuthor() throws Exception {
+        Author author = authors.get(2);
+        mockMvc.perform(delete("/admin/movies").param("authorId", author.getId().toString()))
+                .andExpect(status().isOk());
+        searchIndex.refresh();
+
+        mockMvc.perform(get("/search/movies").param("query", movies.get(6).getTitle()))
+                .andExpect(jsonPath("$.totalElements").value(0));
+        assertThat(searchIndex.getStats().movies()).isEqualTo(movies.size() - MOVIES_PER_AUTHOR);
+    }
+
+    @Test
+    void statsAreExposed() throws Exception {
+        mockMvc.perform(get("/admin/search/index"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.ready").value(true))
+                .andExpect(jsonPath("$.movies").value(movies.size()))
+                .andExpect(jsonPath("$.authors").value(authors.size()));
+    }
+
+    @Test
+    void unifiedSearchCountsFacetsFromTheIndex() throws Exception {
+        Author author = authors.get(1);
+        mockMvc.perform(patch("/admin/authors/{id}", author.getId()).contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\": \"Isao Takahata\"}"))
+                .andExpect(status().isNoContent());
+        searchIndex.refresh();
+
+        // без запросов к БД для поиска и фасетов: только названия фильмов, имена авторов и названия жанров
+        perform(3, get("/search").param("query", "takahata"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.movieCount").value(MOVIES_PER_AUTHOR))
+                .andExpect(jsonPath("$.authorCount").value(1))
+                .andExpect(jsonPath("$.results[1].type").value("AUTHOR"))
+                .andExpect(jsonPath("$.results[1].id").value(author.getId()))
+                .andExpect(jsonPath("$.authors.length()").value(1))
+                .andExpect(jsonPath("$.authors[0].name").value("Isao Takahata"))
+                .andExpect(jsonPath("$.authors[0].count").value(MOVIES_PER_AUTHOR));
+    }
+}
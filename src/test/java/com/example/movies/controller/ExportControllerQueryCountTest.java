@@ -0,0 +1,68 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025 Kudzeri
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.example.movies.controller;
+
+import com.example.movies.support.QueryCountTestSupport;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WithMockUser(authorities = "ROLE_ADMIN")
+class ExportControllerQueryCountTest extends QueryCountTestSupport {
+
+    @Test
+    void exportMoviesStreamsWithSingleQuery() throws Exception {
+        String body = export(1, "/admin/export/movies");
+
+        String[] lines = body.split("\n");
+        assertThat(lines).hasSize(movies.size());
+        assertThat(lines[0]).startsWith("{\"id\":").contains("\"author\":{").contains("\"genre\":{");
+    }
+
+    @Test
+    void exportReviewsStreamsWithSingleQuery() throws Exception {
+        String body = export(1, "/admin/export/reviews");
+
+        String[] lines = body.split("\n");
+        assertThat(lines).hasSize(reviews.size());
+        assertThat(lines[0]).contains("\"movieId\":" + movies.get(0).getId());
+    }
+
+    private String export(long maxStatements, String url) throws Exception {
+        return queryCounter.assertAtMost(maxStatements, () -> {
+            MvcResult started = mockMvc.perform(get(url))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+            return mockMvc.perform(asyncDispatch(started))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString();
+        });
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025 Kudzeri
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.example.movies.controller;
+
+import com.example.movies.model.Movie;
+import com.example.movies.service.FullTextSearchService;
+import com.example.movies.support.QueryCountTestSupport;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.TestPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// DDL и запросы полнотекстового поиска (tsvector, GIN, websearch_to_tsquery, EXPLAIN) на настоящем PostgreSQL;
+// без Docker тест пропускается
+@WithMockUser
+@Testcontainers(disabledWithoutDocker = true)
+@TestPropertySource(properties = "movies.search.full-text.enabled=true")
+class FullTextSearchPostgresTest extends QueryCountTestSupport {
+
+    @Container
+    @ServiceConnection
+    static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @Autowired
+    private FullTextSearchService fullTextSearch;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void generatedColumnsAndGinIndexesAreCreated() {
+        assertThat(fullTextSearch.isAvailable()).isTrue();
+        for (String table : List.of("movies", "authors")) {
+            assertThat(jdbcTemplate.queryForObject("SELECT is_generated FROM information_schema.columns "
+                    + "WHERE table_name = ? AND column_name = 'search_vector'", String.class, table)).isEqualTo("ALWAYS");
+            assertThat(jdbcTemplate.queryForObject("SELECT indexdef FROM pg_indexes WHERE indexname = ?",
+                    String.class, "idx_" + table + "_search_vector")).contains("USING gin");
+        }
+    }
+
+    @Test
+    void titleMatchesRankAboveDescriptionMatches() throws Exception {
+        Movie byDescription = movieRepository.save(new Movie("Quiet Harbor", "A ghost haunts the harbor", genres.get(0), authors.get(0)));
+        Movie byTitle = movieRepository.save(new Movie("Ghost Story", "Told at night", genres.get(1), authors.get(1)));
+
+        // стемминг english: ghosts -> ghost
+        mockMvc.perform(get("/search/movies").param("query", "ghosts"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalElements").value(2))
+                .andExpect(jsonPath("$.content[0].id").value(byTitle.getId()))
+                .andExpect(jsonPath("$.content[1].id").value(byDescription.getId()));
+        // синтаксис websearch: исключение слова
+        mockMvc.perform(get("/search/movies").param("query", "ghost -harbor"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalElements").value(1))
+                .andExpect(jsonPath("$.content[0].id").value(byTitle.getId()));
+        mockMvc.perform(get("/search/authors").param("query", "biography author 2").param("fields", "name"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalElements").value(1))
+                .andExpect(jsonPath("$.content[0].name").value("Author 2"));
+    }
+
+    @Test
+    void estimatedCountComesFromThePlanner() throws Exception {
+        assertThat(fullTextSearch.estimateMovies("movie")).isPositive();
+
+        // страница не последняя: оценка EXPLAIN, но не меньше уже увиденного
+        mockMvc.perform(get("/search/movies").param("query", "movie").param("size", "2").param("count", "estimate"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.hasNext").value(true))
+                .andExpect(jsonPath("$.estimatedTotal").value(greaterThanOrEqualTo(3)));
+    }
+
+    @Test
+    void facetsCountMatchedMoviesByGenreAndAuthor() throws Exception {
+        // жанры чередуются: 5 фильмов в первом, 4 во втором; у каждого автора по MOVIES_PER_AUTHOR
+        mockMvc.perform(get("/search").param("query", "movie"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.movieCount").value(movies.size()))
+                .andExpect(jsonPath("$.authorCount").value(0))
+                .andExpect(jsonPath("$.genres[0].id").value(genres.get(0).getId()))
+                .andExpect(jsonPath("$.genres[0].count").value(5))
+                .andExpect(jsonPath("$.genres[1].id").value(genres.get(1).getId()))
+                .andExpect(jsonPath("$.genres[1].count").value(4))
+                .andExpect(jsonPath("$.authors.length()").value(authors.size()))
+                .andExpect(jsonPath("$.authors[0].count").value(MOVIES_PER_AUTHOR));
+    }
+}
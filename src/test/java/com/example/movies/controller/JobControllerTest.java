@@ -0,0 +1,124 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025 Kudzeri
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.example.movies.controller;
+
+import com.example.movies.model.JobType;
+import com.example.movies.service.JobService;
+import com.example.movies.service.JobService.JobView;
+import com.example.movies.support.QueryCountTestSupport;
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.test.context.support.WithMockUser;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.startsWith;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WithMockUser(authorities = "ROLE_ADMIN")
+class JobControllerTest extends QueryCountTestSupport {
+
+    @Autowired
+    private JobService jobService;
+
+    @Test
+    void rebuildRunsInBackgroundAndReportsDuration() throws Exception {
+        String job = awaitJob(mockMvc.perform(post("/admin/jobs").param("type", "RATINGS_REBUILD"))
+                .andExpect(header().string("Location", startsWith("/admin/jobs/")))
+                .andExpect(jsonPath("$.status").value("QUEUED")));
+
+        assertThat((String) JsonPath.read(job, "$.status")).isEqualTo("SUCCEEDED");
+        assertThat((Integer) JsonPath.read(job, "$.result.movies")).isEqualTo(movies.size());
+        assertThat((Double) JsonPath.read(job, "$.percent")).isEqualTo(100.0);
+        assertThat(((Number) JsonPath.read(job, "$.durationMillis")).longValue()).isPositive();
+
+        mockMvc.perform(get("/admin/jobs/stats"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[?(@.type == 'RATINGS_REBUILD' && @.status == 'SUCCEEDED')].jobs").isNotEmpty());
+        mockMvc.perform(get("/admin/jobs").param("status", "SUCCEEDED").param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1));
+    }
+
+    @Test
+    void asyncImportReportsProgressInRows() throws Exception {
+        String body = """
+                {"title":"Spirited Away","author":"Hayao Miyazaki","genre":"Animation"}
+                {"title":"Ponyo","author":"Hayao Miyazaki","genre":"Animation"}
+                {"title":"","author":"Hayao Miyazaki","genre":"Animation"}
+                """;
+        String job = awaitJob(mockMvc.perform(post("/admin/movies/import").param("async", "true").param("chunkSize", "2")
+                .contentType("application/x-ndjson").content(body)));
+
+        assertThat((String) JsonPath.read(job, "$.status")).isEqualTo("SUCCEEDED");
+        assertThat((Integer) JsonPath.read(job, "$.processed")).isEqualTo(3);
+        assertThat((Integer) JsonPath.read(job, "$.total")).isEqualTo(3);
+        assertThat((Integer) JsonPath.read(job, "$.result.imported")).isEqualTo(2);
+        assertThat((Integer) JsonPath.read(job, "$.result.rejected")).isEqualTo(1);
+        assertThat(movieRepository.count()).isEqualTo(movies.size() + 2);
+    }
+
+    @Test
+    void runningJobStopsAfterCancel() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        JobView submitted = jobService.submit(JobType.RATINGS_REBUILD, "test", progress -> {
+            started.countDown();
+            assertThat(release.await(10, TimeUnit.SECONDS)).isTrue();
+            progress.checkCancelled();
+            return null;
+        });
+        assertThat(started.await(10, TimeUnit.SECONDS)).isTrue();
+
+        // Задача ещё выполняется: ответ отражает запрошенную отмену
+        mockMvc.perform(post("/admin/jobs/" + submitted.id() + "/cancel"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("RUNNING"))
+                .andExpect(jsonPath("$.cancelRequested").value(true));
+        release.countDown();
+        String job = awaitJob(submitted.id());
+
+        assertThat((String) JsonPath.read(job, "$.status")).isEqualTo("CANCELLED");
+        mockMvc.perform(post("/admin/jobs/" + submitted.id() + "/cancel"))
+                .andExpect(status().isConflict());
+    }
+
+    @Test
+    void unavailableJobsAreRejectedBeforeQueueing() throws Exception {
+        // Поисковый индекс в тестах выключен
+        mockMvc.perform(post("/admin/jobs").param("type", "SEARCH_INDEX_REBUILD"))
+                .andExpect(status().isConflict());
+        mockMvc.perform(post("/admin/jobs").param("type", "MOVIE_IMPORT"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/admin/jobs/" + Long.MAX_VALUE))
+                .andExpect(status().isNotFound());
+    }
+}
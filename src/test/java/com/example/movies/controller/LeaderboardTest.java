@@ -0,0 +1,246 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025 Kudzeri
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.example.movies.controller;
+
+import com.example.movies.model.Movie;
+import com.example.movies.model.Review;
+import com.example.movies.support.QueryCountTestSupport;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.redis.core.DefaultTypedTuple;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Redis в тестах нет: операции sorted set и hash подменены моками, пакет команд выполняется на них же
+@WithMockUser(authorities = "ROLE_ADMIN")
+@TestPropertySource(properties = {
+        "movies.leaderboard.enabled=true",
+        "movies.leaderboard.min-reviews=3",
+        "movies.leaderboard.rebuild-initial-delay=1h"
+})
+class LeaderboardTest extends QueryCountTestSupport {
+
+    private static final long ASYNC_TIMEOUT_MILLIS = 5_000;
+
+    @MockitoBean
+    private StringRedisTemplate redisTemplate;
+
+    private ZSetOperations<String, String> zSetOperations;
+    private HashOperations<String, Object, Object> hashOperations;
+    // Пакет команд ждёт этого сигнала: проверяет, что запись в Redis не держит поток запроса
+    private CountDownLatch redisAvailable;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void stubRedis() {
+        zSetOperations = mock(ZSetOperations.class);
+        hashOperations = mock(HashOperations.class);
+        redisAvailable = new CountDownLatch(0);
+        when(redisTemplate.opsForZSet()).thenReturn(zSetOperations);
+        when(redisTemplate.opsForHash()).thenReturn(hashOperations);
+        when(redisTemplate.executePipelined(any(SessionCallback.class))).thenAnswer(invocation -> {
+            redisAvailable.await(ASYNC_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+            invocation.<SessionCallback<Object>>getArgument(0).execute(redisTemplate);
+            return List.of();
+        });
+    }
+
+    @Test
+    void approvalUpdatesRedisAfterTheResponse() throws Exception {
+        Movie movie = movies.get(0);
+        Long reviewId = reviewRepository.save(new Review(movie, "Third review", 5.0, "user3")).getId();
+        String genreKey = "movies:leaderboard:genre:" + movie.getGenre().getId();
+        redisAvailable = new CountDownLatch(1);
+
+        mockMvc.perform(put("/admin/reviews/{id}/approve", reviewId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("APPROVED"));
+        verify(zSetOperations, never()).add(anyString(), anyString(), anyDouble());
+
+        redisAvailable.countDown();
+        // третий одобренный отзыв: фильм попадает в рейтинг жанра и в тренды текущей недели
+        verify(zSetOperations, timeout(ASYNC_TIMEOUT_MILLIS)).add(genreKey, movie.getId().toString(), (4.0 + 4.0 + 5.0) / 3);
+        verify(zSetOperations, timeout(ASYNC_TIMEOUT_MILLIS))
+                .incrementScore(startsWith("movies:leaderboard:trending:"), eq(movie.getId().toString()), eq(1.0));
+        verify(redisTemplate, timeout(ASYNC_TIMEOUT_MILLIS))
+                .expire(startsWith("movies:leaderboard:trending:"), any(Duration.class));
+        verify(hashOperations, timeout(ASYNC_TIMEOUT_MILLIS))
+                .put("movies:leaderboard:titles", movie.getId().toString(), movie.getTitle());
+    }
+
+    @Test
+    void bulkApprovalUpdatesRedisPerMovie() throws Exception {
+        Movie first = movies.get(0);
+        Movie second = movies.get(1);
+        List<Long> ids = List.of(
+                reviewRepository.save(new Review(first, "Third review", 5.0, "user3")).getId(),
+                reviewRepository.save(new Review(first, "Fourth review", 5.0, "user4")).getId(),
+                reviewRepository.save(new Review(second, "Third review", 2.0, "user3")).getId());
+
+        mockMvc.perform(put("/admin/reviews/approve").contentType(MediaType.APPLICATION_JSON).content(ids.toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.updated").value(3));
+
+        // одно событие на фильм: пересчитанная средняя и все одобрения пакета в трендах
+        verify(zSetOperations, timeout(ASYNC_TIMEOUT_MILLIS)).add("movies:leaderboard:genre:" + first.getGenre().getId(),
+                first.getId().toString(), (4.0 + 4.0 + 5.0 + 5.0) / 4);
+        verify(zSetOperations, timeout(ASYNC_TIMEOUT_MILLIS)).add("movies:leaderboard:genre:" + second.getGenre().getId(),
+                second.getId().toString(), (4.0 + 4.0 + 2.0) / 3);
+        verify(zSetOperations, timeout(ASYNC_TIMEOUT_MILLIS))
+                .incrementScore(startsWith("movies:leaderboard:trending:"), eq(first.getId().toString()), eq(2.0));
+        verify(zSetOperations, timeout(ASYNC_TIMEOUT_MILLIS))
+                .incrementScore(startsWith("movies:leaderboard:trending:"), eq(second.getId().toString()), eq(1.0));
+        assertThat(reviewRepository.findAllById(ids)).allMatch(review -> review.getModeratedAt() != null);
+    }
+
+    @Test
+    void movieLosingApprovedReviewsLeavesGenreLeaderboard() throws Exception {
+        Movie movie = movies.get(0);
+        String member = movie.getId().toString();
+
+        mockMvc.perform(delete("/admin/reviews").param("status", "APPROVED").param("movieId", member))
+                .andExpect(status().isOk());
+
+        // агрегатов больше нет: фильм остаётся в каталоге, но ниже min-reviews
+        verify(zSetOperations, timeout(ASYNC_TIMEOUT_MILLIS)).remove("movies:leaderboard:genre:" + movie.getGenre().getId(), member);
+        verify(hashOperations, timeout(ASYNC_TIMEOUT_MILLIS)).put("movies:leaderboard:titles", member, movie.getTitle());
+    }
+
+    @Test
+    void deletedMovieIsRemovedFromEveryGenreAndTitles() throws Exception {
+        String member = movies.get(0).getId().toString();
+
+        mockMvc.perform(delete("/admin/movies/{id}", movies.get(0).getId())).andExpect(status().isOk());
+
+        for (var genre : genres) {
+            verify(zSetOperations, timeout(ASYNC_TIMEOUT_MILLIS)).remove("movies:leaderboard:genre:" + genre.getId(), member);
+        }
+        verify(zSetOperations, timeout(ASYNC_TIMEOUT_MILLIS)).remove(startsWith("movies:leaderboard:trending:"), eq(member));
+        verify(hashOperations, timeout(ASYNC_TIMEOUT_MILLIS)).delete("movies:leaderboard:titles", member);
+    }
+
+    @Test
+    void deletedAuthorTakesAllMoviesOutOfLeaderboards() throws Exception {
+        Long authorId = authors.get(0).getId();
+        List<String> authorMovies = movies.stream().filter(movie -> movie.getAuthor().getId().equals(authorId))
+                .map(movie -> movie.getId().toString()).toList();
+
+        mockMvc.perform(delete("/admin/authors/{id}", authorId)).andExpect(status().isOk());
+
+        ArgumentCaptor<Object[]> members = ArgumentCaptor.forClass(Object[].class);
+        verify(hashOperations, timeout(ASYNC_TIMEOUT_MILLIS)).delete(eq("movies:leaderboard:titles"), members.capture());
+        assertThat(members.getValue()).containsExactlyInAnyOrderElementsOf(authorMovies);
+    }
+
+    @Test
+    void genreLeaderboardIsReadFromRedisOnly() throws Exception {
+        Movie first = movies.get(0);
+        Movie second = movies.get(2);
+        String genreKey = "movies:leaderboard:genre:" + first.getGenre().getId();
+        Set<ZSetOperations.TypedTuple<String>> top = new LinkedHashSet<>(List.of(
+                new DefaultTypedTuple<>(first.getId().toString(), 4.5),
+                new DefaultTypedTuple<>(second.getId().toString(), 4.0)));
+        when(zSetOperations.reverseRangeWithScores(genreKey, 0, 9)).thenReturn(top);
+        when(hashOperations.multiGet(eq("movies:leaderboard:titles"), any()))
+                .thenReturn(List.of(first.getTitle(), second.getTitle()));
+
+        perform(0, get("/movies/leaderboard/genre/{genreId}", first.getGenre().getId()).param("limit", "10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].movieId").value(first.getId()))
+                .andExpect(jsonPath("$[0].title").value(first.getTitle()))
+                .andExpect(jsonPath("$[0].score").value(4.5))
+                .andExpect(jsonPath("$[1].movieId").value(second.getId()));
+    }
+
+    @Test
+    void rebuildReplacesKeysFromDatabase() throws Exception {
+        Movie movie = movies.get(0);
+        Long reviewId = reviewRepository.save(new Review(movie, "Third review", 5.0, "user3")).getId();
+        mockMvc.perform(put("/admin/reviews/{id}/approve", reviewId)).andExpect(status().isOk());
+        // дожидаемся асинхронного обновления, чтобы оно не смешалось с проверками пересборки
+        verify(zSetOperations, timeout(ASYNC_TIMEOUT_MILLIS)).add(anyString(), anyString(), anyDouble());
+        // буфер названий очищается после записи: копируем его в момент вызова
+        Map<Object, Object> titles = new HashMap<>();
+        doAnswer(invocation -> {
+            titles.putAll(invocation.<Map<?, ?>>getArgument(1));
+            return null;
+        }).when(hashOperations).putAll(eq("movies:leaderboard:titles:rebuild"), anyMap());
+
+        // у остальных фильмов по два отзыва: в рейтинг жанра попадает только этот, в тренды – его одобрение
+        mockMvc.perform(post("/admin/leaderboards/rebuild"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.movies").value(movies.size()))
+                .andExpect(jsonPath("$.genres").value(1))
+                .andExpect(jsonPath("$.trending").value(1));
+
+        String genreKey = "movies:leaderboard:genre:" + movie.getGenre().getId();
+        verify(zSetOperations).add(eq(genreKey + ":rebuild"),
+                argThat((Set<ZSetOperations.TypedTuple<String>> tuples) -> tuples.size() == 1
+                        && tuples.iterator().next().getValue().equals(movie.getId().toString())));
+        verify(redisTemplate).rename(genreKey + ":rebuild", genreKey);
+        verify(redisTemplate).delete("movies:leaderboard:genre:" + genres.get(1).getId());
+        verify(redisTemplate).rename("movies:leaderboard:titles:rebuild", "movies:leaderboard:titles");
+        verify(redisTemplate).rename(startsWith("movies:leaderboard:trending:"), startsWith("movies:leaderboard:trending:"));
+        assertThat(titles).hasSize(movies.size()).containsEntry(movie.getId().toString(), movie.getTitle());
+        assertThat(reviewRepository.findById(reviewId).orElseThrow().getModeratedAt()).isNotNull();
+    }
+}
@@ -0,0 +1,277 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025 Kudzeri
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.example.movies.controller;
+
+import com.example.movies.model.Movie;
+import com.example.movies.support.QueryCountTestSupport;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+
+import java.util.StringJoiner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WithMockUser(authorities = "ROLE_ADMIN")
+class MovieControllerQueryCountTest extends QueryCountTestSupport {
+
+    @Test
+    void getAll() throws Exception {
+        // фильмы + отдельные запросы на eager-связи author и genre
+        perform(1 + authors.size() + genres.size(), get("/admin/movies"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(movies.size()));
+    }
+
+    @Test
+    void getById() throws Exception {
+        perform(1, get("/admin/movies/{id}", movies.get(0).getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.title").value(movies.get(0).getTitle()))
+                .andExpect(header().string("ETag", "\"0\""));
+    }
+
+    @Test
+    void create() throws Exception {
+        String body = movieJson("New movie", genres.get(0).getId(), authors.get(0).getId());
+        perform(3, post("/admin/movies").contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.genre.name").value(genres.get(0).getName()));
+    }
+
+    @Test
+    void update() throws Exception {
+        String body = movieJson("Renamed", genres.get(1).getId(), authors.get(1).getId());
+        // фильм + новые жанр и автор + update
+        perform(4, put("/admin/movies/{id}", movies.get(0).getId()).contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.title").value("Renamed"));
+    }
+
+    @Test
+    void updateWithCachedReferenceData() throws Exception {
+        genreRepository.findById(genres.get(1).getId());
+        authorRepository.findById(authors.get(1).getId());
+
+        // жанр и автор берутся из кэша второго уровня: только фильм + update
+        String body = movieJson("Renamed", genres.get(1).getId(), authors.get(1).getId());
+        perform(2, put("/admin/movies/{id}", movies.get(0).getId()).contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.genre.name").value(genres.get(1).getName()));
+    }
+
+    @Test
+    void patchWithIfMatchIsSingleUpdate() throws Exception {
+        Movie movie = movies.get(0);
+        // UPDATE ... SET title = ?, genre_id = ?, version = version + 1 WHERE id = ? AND version = ?
+        perform(1, patch("/admin/movies/{id}", movie.getId()).header("If-Match", "\"0\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"title\": \"Patched\", \"genre\": {\"id\": %d}}".formatted(genres.get(1).getId())))
+                .andExpect(status().isNoContent())
+                .andExpect(header().string("ETag", "\"1\""));
+
+        Movie patched = movieRepository.findById(movie.getId()).orElseThrow();
+        assertThat(patched.getTitle()).isEqualTo("Patched");
+        assertThat(patched.getDescription()).isEqualTo(movie.getDescription());
+        assertThat(patched.getGenre().getId()).isEqualTo(genres.get(1).getId());
+        assertThat(patched.getVersion()).isEqualTo(1L);
+    }
+
+    @Test
+    void patchWithStaleVersionFails() throws Exception {
+        perform(2, patch("/admin/movies/{id}", movies.get(0).getId()).header("If-Match", "\"7\"")
+                        .contentType(MediaType.APPLICATION_JSON).content("{\"title\": \"Lost update\"}"))
+                .andExpect(status().isPreconditionFailed());
+
+        assertThat(movieRepository.findById(movies.get(0).getId()).orElseThrow().getTitle())
+                .isEqualTo(movies.get(0).getTitle());
+    }
+
+    @Test
+    void patchMissingMovieReturnsNotFound() throws Exception {
+        mockMvc.perform(patch("/admin/movies/{id}", -1L)
+                        .contentType(MediaType.APPLICATION_JSON).content("{\"title\": \"Nobody\"}"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void patchRejectsUnknownFieldsAndNullReferences() throws Exception {
+        mockMvc.perform(patch("/admin/movies/{id}", movies.get(0).getId())
+                        .contentType(MediaType.APPLICATION_JSON).content("{\"id\": 5}"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(patch("/admin/movies/{id}", movies.get(0).getId())
+                        .contentType(MediaType.APPLICATION_JSON).content("{\"author\": null}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void patchWithUnknownReferenceIsBadRequest() throws Exception {
+        Movie movie = movies.get(0);
+        // EXISTS в UPDATE не находит жанр: ни одной строки, нарушения внешнего ключа нет
+        mockMvc.perform(patch("/admin/movies/{id}", movie.getId()).contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"title\": \"Orphan\", \"genre\": {\"id\": 987654}}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(status().reason("Unknown genre id: 987654"));
+        mockMvc.perform(patch("/admin/movies/{id}", movie.getId()).header("If-Match", "\"0\"")
+                        .contentType(MediaType.APPLICATION_JSON).content("{\"author\": {\"id\": 987654}}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(status().reason("Unknown author id: 987654"));
+
+        Movie unchanged = movieRepository.findById(movie.getId()).orElseThrow();
+        assertThat(unchanged.getTitle()).isEqualTo(movie.getTitle());
+        assertThat(unchanged.getGenre().getId()).isEqualTo(movie.getGenre().getId());
+        assertThat(unchanged.getVersion()).isZero();
+    }
+
+    @Test
+    void deleteMovie() throws Exception {
+        Movie movie = movieRepository.save(new Movie("Without reviews", "d", genres.get(0), authors.get(0)));
+        perform(4, delete("/admin/movies/{id}", movie.getId()))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void deleteMovieWithReviews() throws Exception {
+        // блокировка строки фильма, затем отзывы, агрегаты рейтинга и фильм – три DELETE, без загрузки сущностей
+        perform(4, delete("/admin/movies/{id}", movies.get(0).getId()))
+                .andExpect(status().isOk());
+        assertThat(movieRepository.findById(movies.get(0).getId())).isEmpty();
+        assertThat(reviewRepository.findByMovieId(movies.get(0).getId())).isEmpty();
+        assertThat(movieRatingStatsRepository.findById(movies.get(0).getId())).isEmpty();
+    }
+
+    @Test
+    void deleteByFilterRemovesGenreMoviesWithReviews() throws Exception {
+        Long genreId = genres.get(0).getId();
+        long genreMovies = movies.stream().filter(m -> m.getGenre().getId().equals(genreId)).count();
+        // ИД удаляемых фильмов для событий и три множественных DELETE
+        perform(4, delete("/admin/movies").param("genreId", genreId.toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.movies").value(genreMovies))
+                .andExpect(jsonPath("$.reviews").value(genreMovies * REVIEWS_PER_MOVIE));
+        assertThat(movieRepository.count()).isEqualTo(movies.size() - genreMovies);
+    }
+
+    @Test
+    void deleteByFilterRequiresFilter() throws Exception {
+        mockMvc.perform(delete("/admin/movies"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void createBulkUsesBatchedInserts() throws Exception {
+        int count = 120;
+        StringJoiner body = new StringJoiner(",", "[", "]");
+        for (int i = 0; i < count; i++) {
+            body.add(movieJson("Bulk " + i, genres.get(i % genres.size()).getId(), authors.get(i % authors.size()).getId()));
+        }
+        // жанры + авторы + несколько обращений к последовательности + по пакету INSERT на каждые 50 фильмов
+        perform(10, post("/admin/movies/bulk").contentType(MediaType.APPLICATION_JSON).content(body.toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.processed").value(count))
+                .andExpect(jsonPath("$.ids.length()").value(count));
+    }
+
+    @Test
+    void updateBulkUsesBatchedUpdates() throws Exception {
+        StringJoiner body = new StringJoiner(",", "[", "]");
+        for (Movie movie : movies) {
+            body.add("{\"id\": %d, \"title\": \"Updated\", \"description\": \"d\"}".formatted(movie.getId()));
+        }
+        body.add("{\"id\": -1, \"title\": \"Missing\"}");
+        // выборка фильмов вместе с author/genre + один пакет UPDATE
+        perform(2, put("/admin/movies/bulk").contentType(MediaType.APPLICATION_JSON).content(body.toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.processed").value(movies.size()))
+                .andExpect(jsonPath("$.missingIds[0]").value(-1));
+    }
+
+    @Test
+    void deleteBulkRemovesMoviesWithReviews() throws Exception {
+        StringJoiner body = new StringJoiner(",", "[", "]");
+        movies.forEach(movie -> body.add(movie.getId().toString()));
+        body.add("-1");
+        // блокировка существующих фильмов, затем отзывы, агрегаты рейтинга и фильмы – тремя множественными DELETE
+        perform(4, delete("/admin/movies/bulk").contentType(MediaType.APPLICATION_JSON).content(body.toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.requested").value(movies.size() + 1))
+                .andExpect(jsonPath("$.processed").value(movies.size()))
+                .andExpect(jsonPath("$.ids.length()").value(movies.size()))
+                .andExpect(jsonPath("$.missingIds.length()").value(1))
+                .andExpect(jsonPath("$.missingIds[0]").value(-1));
+        assertThat(movieRepository.count()).isZero();
+    }
+
+    @Test
+    void createBulkRejectsUnknownGenre() throws Exception {
+        mockMvc.perform(post("/admin/movies/bulk").contentType(MediaType.APPLICATION_JSON)
+                        .content("[" + movieJson("Bad", -1L, authors.get(0).getId()) + "]"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void importNdjsonCommitsInChunks() throws Exception {
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            body.append("{\"title\": \"Imported ").append(i).append("\", \"author\": \"")
+                    .append(authors.get(0).getName()).append("\", \"genre\": \"").append(genres.get(0).getName()).append("\"}\n");
+        }
+        body.append("{\"title\": \"\", \"author\": \"x\", \"genre\": \"y\"}\n");
+        // поиск жанра и автора по имени один раз на импорт + последовательность + пакеты INSERT в двух порциях
+        perform(8, post("/admin/movies/import").param("chunkSize", "50")
+                        .contentType("application/x-ndjson").content(body.toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalRows").value(101))
+                .andExpect(jsonPath("$.imported").value(100))
+                .andExpect(jsonPath("$.rejected").value(1))
+                .andExpect(jsonPath("$.chunks.length()").value(3))
+                .andExpect(jsonPath("$.errors[0]").value("line 101: title is required"));
+    }
+
+    @Test
+    void importCsvCreatesMissingAuthorsAndGenres() throws Exception {
+        String body = """
+                title,description,author,genre
+                "Heat, director's cut",Crime saga,Michael Mann,Crime
+                Collateral,"A ""taxi"" night",Michael Mann,Crime
+                """;
+        mockMvc.perform(post("/admin/movies/import").contentType("text/csv").content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported").value(2));
+
+        assertThat(authorRepository.findFirstByName("Michael Mann")).isPresent();
+        assertThat(genreRepository.findFirstByName("Crime")).isPresent();
+        assertThat(movieRepository.findAll()).extracting(Movie::getTitle).contains("Heat, director's cut");
+    }
+
+    private static String movieJson(String title, Long genreId, Long authorId) {
+        return """
+                {"title": "%s", "description": "Description", "genre": {"id": %d}, "author": {"id": %d}}
+                """.formatted(title, genreId, authorId);
+    }
+}
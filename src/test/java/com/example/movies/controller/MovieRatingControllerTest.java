@@ -0,0 +1,156 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025 Kudzeri
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.example.movies.controller;
+
+import com.example.movies.model.Movie;
+import com.example.movies.model.Review;
+import com.example.movies.model.ReviewStatus;
+import com.example.movies.service.MovieRatingService.RatingSummary;
+import com.example.movies.support.QueryCountTestSupport;
+import org.assertj.core.data.Offset;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WithMockUser(authorities = "ROLE_ADMIN")
+class MovieRatingControllerTest extends QueryCountTestSupport {
+
+    @Test
+    void ratingIsSingleRowRead() throws Exception {
+        perform(1, get("/movies/{id}/rating", movies.get(0).getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.reviewCount").value(REVIEWS_PER_MOVIE))
+                .andExpect(jsonPath("$.averageRating").value(4.0))
+                .andExpect(jsonPath("$.histogram[3]").value(REVIEWS_PER_MOVIE));
+    }
+
+    @Test
+    void ratingOfMovieWithoutReviewsIsEmpty() throws Exception {
+        Movie movie = movieRepository.save(new Movie("Without reviews", "d", genres.get(0), authors.get(0)));
+        perform(1, get("/movies/{id}/rating", movie.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.reviewCount").value(0))
+                .andExpect(jsonPath("$.histogram.length()").value(5));
+    }
+
+    @Test
+    void approvingReviewUpdatesAggregates() throws Exception {
+        Long movieId = movies.get(0).getId();
+        Long reviewId = createReview(movieId, 1.0);
+        assertThat(movieRatingService.getSummary(movieId).reviewCount()).isEqualTo(REVIEWS_PER_MOVIE);
+
+        mockMvc.perform(put("/admin/reviews/{id}/approve", reviewId)).andExpect(status().isOk());
+
+        RatingSummary summary = movieRatingService.getSummary(movieId);
+        assertThat(summary.reviewCount()).isEqualTo(REVIEWS_PER_MOVIE + 1);
+        assertThat(summary.averageRating()).isEqualTo(3.0);
+        assertThat(summary.histogram()).containsExactly(1, 0, 0, REVIEWS_PER_MOVIE, 0);
+    }
+
+    @Test
+    void editingAndDeletingApprovedReviewsAdjustsAggregates() throws Exception {
+        Movie movie = movies.get(0);
+        Review first = reviews.get(0);
+        Review second = reviews.get(1);
+
+        mockMvc.perform(patch("/admin/reviews/{id}", first.getId())
+                        .contentType(MediaType.APPLICATION_JSON).content("{\"rating\": 2.0}"))
+                .andExpect(status().isNoContent());
+        assertThat(movieRatingService.getSummary(movie.getId()).averageRating()).isEqualTo(3.0);
+
+        // PUT меняет оценку одобренного отзыва, но не его статус
+        mockMvc.perform(put("/admin/reviews/{id}", second.getId()).contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"content\": \"Edited\", \"rating\": 5, \"status\": \"PENDING\"}"))
+                .andExpect(status().isOk());
+        RatingSummary edited = movieRatingService.getSummary(movie.getId());
+        assertThat(edited.reviewCount()).isEqualTo(2);
+        assertThat(edited.averageRating()).isEqualTo(3.5);
+
+        mockMvc.perform(delete("/reviews/{id}", first.getId())).andExpect(status().isOk());
+        assertThat(movieRatingService.getSummary(movie.getId()).histogram()).containsExactly(0, 0, 0, 0, 1);
+
+        mockMvc.perform(delete("/reviews/{id}", second.getId())).andExpect(status().isOk());
+        RatingSummary summary = movieRatingService.getSummary(movie.getId());
+        assertThat(summary.reviewCount()).isZero();
+        assertThat(summary.histogram()).containsOnly(0);
+    }
+
+    @Test
+    void filterDeleteRecomputesAggregates() throws Exception {
+        Long movieId = movies.get(0).getId();
+        mockMvc.perform(delete("/admin/reviews").param("status", "APPROVED").param("movieId", movieId.toString()))
+                .andExpect(status().isOk());
+        assertThat(movieRatingService.getSummary(movieId).reviewCount()).isZero();
+        assertThat(movieRatingService.getSummary(movies.get(1).getId()).reviewCount()).isEqualTo(REVIEWS_PER_MOVIE);
+    }
+
+    @Test
+    void topRatedIsOrderedByAverageAndFilteredByReviewCount() throws Exception {
+        Movie best = movies.get(2);
+        mockMvc.perform(put("/admin/reviews/{id}/approve", createReview(best.getId(), 5.0))).andExpect(status().isOk());
+
+        perform(1, get("/movies/top-rated").param("limit", "3"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(3))
+                .andExpect(jsonPath("$[0].movieId").value(best.getId()))
+                .andExpect(jsonPath("$[0].title").value(best.getTitle()))
+                .andExpect(jsonPath("$[0].reviewCount").value(REVIEWS_PER_MOVIE + 1));
+
+        mockMvc.perform(get("/movies/top-rated").param("minReviews", String.valueOf(REVIEWS_PER_MOVIE + 1)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1));
+        mockMvc.perform(get("/movies/top-rated").param("limit", "0"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void incrementalAggregatesMatchRebuild() throws Exception {
+        Long movieId = movies.get(3).getId();
+        for (double rating : new double[] { 0.5, 2.4, 3.5, 4.9 }) {
+            mockMvc.perform(put("/admin/reviews/{id}/approve", createReview(movieId, rating))).andExpect(status().isOk());
+        }
+        mockMvc.perform(put("/admin/reviews/{id}/disapprove", createReview(movieId, 1.0))).andExpect(status().isOk());
+        RatingSummary incremental = movieRatingService.getSummary(movieId);
+
+        mockMvc.perform(post("/admin/movies/ratings/rebuild"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.movies").value(movies.size()));
+        RatingSummary rebuilt = movieRatingService.getSummary(movieId);
+
+        assertThat(incremental.reviewCount()).isEqualTo(rebuilt.reviewCount()).isEqualTo(REVIEWS_PER_MOVIE + 4);
+        assertThat(incremental.averageRating()).isCloseTo(rebuilt.averageRating(), Offset.offset(1e-9));
+        assertThat(incremental.histogram()).containsExactly(rebuilt.histogram());
+    }
+
+    private Long createReview(Long movieId, double rating) {
+        Review review = reviewRepository.save(new Review(movieRepository.getReferenceById(movieId), "Pending", rating, "user"));
+        assertThat(review.getStatus()).isEqualTo(ReviewStatus.PENDING);
+        return review.getId();
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025 Kudzeri
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.example.movies.controller;
+
+import com.example.movies.support.QueryCountTestSupport;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// R2DBC подключается к той же H2 в памяти, что и JDBC: ответы /rx сравниваются с блокирующими
+@WithMockUser(authorities = "ROLE_ADMIN")
+@TestPropertySource(properties = "movies.r2dbc.url=r2dbc:h2:mem:///movies?options=DB_CLOSE_DELAY=-1;MODE=PostgreSQL")
+class ReactiveCatalogControllerTest extends QueryCountTestSupport {
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void movieHasSameShapeAsBlockingEndpoint() throws Exception {
+        Long id = movies.get(0).getId();
+        JsonNode blocking = json(mockMvc.perform(get("/admin/movies/{id}", id)).andReturn().getResponse().getContentAsString());
+
+        assertThat(json(reactive(get("/rx/admin/movies/{id}", id)))).isEqualTo(blocking);
+    }
+
+    @Test
+    void moviesListMatchesBlockingEndpoint() throws Exception {
+        JsonNode blocking = json(mockMvc.perform(get("/admin/movies")).andReturn().getResponse().getContentAsString());
+
+        JsonNode reactive = json(reactive(get("/rx/admin/movies")));
+
+        assertThat(reactive).hasSize(movies.size());
+        assertThat(reactive).containsExactlyInAnyOrderElementsOf(blocking);
+    }
+
+    @Test
+    void reviewsOfMovieMatchBlockingEndpoint() throws Exception {
+        Long movieId = movies.get(0).getId();
+        JsonNode blocking = json(mockMvc.perform(get("/reviews/movie/{movieId}", movieId)).andReturn().getResponse().getContentAsString());
+
+        assertThat(json(reactive(get("/rx/reviews/movie/{movieId}", movieId)))).isEqualTo(blocking);
+    }
+
+    @Test
+    void reviewsStreamAsNdjson() throws Exception {
+        String body = reactive(get("/rx/reviews").accept(MediaType.APPLICATION_NDJSON));
+
+        String[] lines = body.split("\n");
+        assertThat(lines).hasSize(reviews.size());
+        assertThat(json(lines[0]).get("movieId").asLong()).isEqualTo(movies.get(0).getId());
+    }
+
+    @Test
+    void genresAndAuthorsMatchEntityFields() throws Exception {
+        JsonNode genre = json(reactive(get("/rx/admin/genres/{id}", genres.get(0).getId())));
+        assertThat(genre.get("name").asText()).isEqualTo(genres.get(0).getName());
+        assertThat(genre.get("version").asLong()).isZero();
+
+        JsonNode authors = json(reactive(get("/rx/admin/authors")));
+        assertThat(authors).hasSize(this.authors.size());
+        assertThat(authors.get(0).has("movies")).isFalse();
+    }
+
+    private String reactive(MockHttpServletRequestBuilder request) throws Exception {
+        MvcResult started = mockMvc.perform(request)
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        return mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+    }
+
+    private JsonNode json(String body) throws Exception {
+        return objectMapper.readTree(body);
+    }
+}
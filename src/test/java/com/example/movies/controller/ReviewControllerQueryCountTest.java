@@ -0,0 +1,261 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025 Kudzeri
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.example.movies.controller;
+
+import com.example.movies.model.Movie;
+import com.example.movies.model.Review;
+import com.example.movies.model.ReviewStatus;
+import com.example.movies.support.QueryCountTestSupport;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithAnonymousUser;
+import org.springframework.security.test.context.support.WithMockUser;
+
+import java.util.StringJoiner;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.everyItem;
+import static org.hamcrest.Matchers.is;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WithMockUser(authorities = "ROLE_ADMIN")
+class ReviewControllerQueryCountTest extends QueryCountTestSupport {
+
+    @Test
+    void getAllReviews() throws Exception {
+        // movie_id берётся из строки отзыва, фильмы не загружаются
+        perform(1, get("/reviews"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(reviews.size()));
+    }
+
+    @Test
+    void getReviewById() throws Exception {
+        perform(1, get("/reviews/{id}", reviews.get(0).getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.movieId").value(movies.get(0).getId()))
+                .andExpect(header().string("ETag", "\"0\""));
+    }
+
+    @Test
+    void getReviewsByMovieId() throws Exception {
+        perform(1, get("/reviews/movie/{movieId}", movies.get(0).getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(REVIEWS_PER_MOVIE));
+    }
+
+    @Test
+    void getApprovedReviewsByMovieIdIsKeysetPaged() throws Exception {
+        Long movieId = movies.get(0).getId();
+        createPendingReview(movieId, 1.0);
+        Review newest = reviews.get(REVIEWS_PER_MOVIE - 1);
+        // проекция в ReviewDto: один SELECT по индексу, фильмы не загружаются
+        perform(1, get("/movies/{movieId}/reviews", movieId).param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.reviews.length()").value(1))
+                .andExpect(jsonPath("$.reviews[0].id").value(newest.getId()))
+                .andExpect(jsonPath("$.reviews[0].movieId").value(movieId))
+                .andExpect(jsonPath("$.nextBeforeId").value(newest.getId()));
+        perform(1, get("/movies/{movieId}/reviews", movieId).param("beforeId", newest.getId().toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.reviews.length()").value(REVIEWS_PER_MOVIE - 1))
+                .andExpect(jsonPath("$.reviews[*].status").value(everyItem(is("APPROVED"))))
+                .andExpect(jsonPath("$.nextBeforeId").doesNotExist());
+    }
+
+    @Test
+    @WithAnonymousUser
+    void approvedReviewsByMovieIdArePublic() throws Exception {
+        mockMvc.perform(get("/movies/{movieId}/reviews", movies.get(0).getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.reviews.length()").value(REVIEWS_PER_MOVIE));
+    }
+
+    @Test
+    void createReview() throws Exception {
+        perform(2, post("/reviews")
+                .param("movieId", movies.get(0).getId().toString())
+                .param("content", "Great")
+                .param("rating", "5")
+                .param("reviewer", "user1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("PENDING"));
+    }
+
+    @Test
+    void updateReview() throws Exception {
+        // блокировка фильма, отзыв, строка агрегатов и два UPDATE: одобренная оценка 4.0 меняется на 2.5
+        perform(5, put("/admin/reviews/{id}", reviews.get(0).getId()).contentType(MediaType.APPLICATION_JSON)
+                .content("{\"content\": \"Edited\", \"rating\": 2.5}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content").value("Edited"))
+                .andExpect(jsonPath("$.status").value("APPROVED"));
+    }
+
+    @Test
+    void updateReviewIgnoresStatus() throws Exception {
+        // статус меняется только модерацией: PUT не одобряет отзыв и не трогает агрегаты
+        Long reviewId = pendingReviewId();
+        perform(3, put("/admin/reviews/{id}", reviewId).contentType(MediaType.APPLICATION_JSON)
+                .content("{\"content\": \"Edited\", \"rating\": 5, \"status\": \"APPROVED\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("PENDING"))
+                .andExpect(jsonPath("$.moderatedAt").doesNotExist());
+        Review review = reviewRepository.findById(reviewId).orElseThrow();
+        assertThat(review.getStatus()).isEqualTo(ReviewStatus.PENDING);
+        assertThat(review.getModeratedAt()).isNull();
+    }
+
+    @Test
+    void approveReview() throws Exception {
+        // блокировка фильма + условный UPDATE + отзыв + чтение и UPDATE агрегатов в той же транзакции
+        perform(5, put("/admin/reviews/{id}/approve", pendingReviewId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("APPROVED"));
+    }
+
+    @Test
+    void disapproveReview() throws Exception {
+        // отклонение из PENDING агрегаты не меняет: блокировка, UPDATE, отзыв
+        perform(3, put("/admin/reviews/{id}/disapprove", pendingReviewId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("REJECTED"));
+    }
+
+    @Test
+    void moderatingNonPendingReviewConflicts() throws Exception {
+        // отзыв уже одобрен: условный UPDATE не затрагивает строк
+        perform(3, put("/admin/reviews/{id}/disapprove", reviews.get(0).getId()))
+                .andExpect(status().isConflict());
+        assertThat(reviewRepository.findById(reviews.get(0).getId()).orElseThrow().getStatus())
+                .isEqualTo(ReviewStatus.APPROVED);
+    }
+
+    @Test
+    void patchReview() throws Exception {
+        Review review = reviews.get(0);
+        // оценка одобренного отзыва меняет агрегаты: блокировка, прежнее состояние, UPDATE, новое состояние, агрегаты
+        perform(6, patch("/admin/reviews/{id}", review.getId()).header("If-Match", "\"0\"")
+                        .contentType(MediaType.APPLICATION_JSON).content("{\"rating\": 1.5}"))
+                .andExpect(status().isNoContent())
+                .andExpect(header().string("ETag", "\"1\""));
+
+        Review patched = reviewRepository.findById(review.getId()).orElseThrow();
+        assertThat(patched.getRating()).isEqualTo(1.5);
+        assertThat(patched.getContent()).isEqualTo(review.getContent());
+    }
+
+    @Test
+    void patchCannotChangeStatus() throws Exception {
+        Long reviewId = pendingReviewId();
+        mockMvc.perform(patch("/admin/reviews/{id}", reviewId)
+                        .contentType(MediaType.APPLICATION_JSON).content("{\"status\": \"APPROVED\"}"))
+                .andExpect(status().isBadRequest());
+
+        Review review = reviewRepository.findById(reviewId).orElseThrow();
+        assertThat(review.getStatus()).isEqualTo(ReviewStatus.PENDING);
+        assertThat(review.getModeratedAt()).isNull();
+    }
+
+    @Test
+    void deleteReview() throws Exception {
+        // блокировка, отзыв, агрегаты (чтение + UPDATE) и DELETE
+        perform(5, delete("/reviews/{id}", reviews.get(0).getId()))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void deleteReviewsByFilter() throws Exception {
+        pendingReviewId();
+        // фильмы с удаляемыми одобренными отзывами, DELETE и пересчёт их агрегатов (DELETE + INSERT ... SELECT + чтение для событий)
+        perform(5, delete("/admin/reviews").param("status", "APPROVED").param("movieId", movies.get(0).getId().toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.reviews").value(REVIEWS_PER_MOVIE - 1));
+        assertThat(reviewRepository.findByMovieId(movies.get(0).getId()))
+                .extracting(Review::getStatus).containsExactly(ReviewStatus.PENDING);
+    }
+
+    @Test
+    void moderationQueueIsKeysetPaged() throws Exception {
+        Long first = createPendingReview(movies.get(0).getId(), 3.0);
+        Long second = createPendingReview(movies.get(1).getId(), 3.0);
+        Long third = createPendingReview(movies.get(2).getId(), 3.0);
+
+        perform(1, get("/admin/reviews/queue").param("size", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.reviews.length()").value(2))
+                .andExpect(jsonPath("$.reviews[0].id").value(first))
+                .andExpect(jsonPath("$.reviews[1].id").value(second))
+                .andExpect(jsonPath("$.nextAfterId").value(second));
+        perform(1, get("/admin/reviews/queue").param("size", "2").param("afterId", second.toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.reviews.length()").value(1))
+                .andExpect(jsonPath("$.reviews[0].id").value(third))
+                .andExpect(jsonPath("$.nextAfterId").doesNotExist());
+    }
+
+    @Test
+    void bulkApproveUsesSingleUpdate() throws Exception {
+        StringJoiner body = new StringJoiner(",", "[", "]");
+        for (Movie movie : movies) {
+            body.add(createPendingReview(movie.getId(), 1.0).toString());
+        }
+        body.add(reviews.get(0).getId().toString());
+        // блокировка фильмов, один UPDATE отзывов и пересчёт агрегатов (DELETE + INSERT ... SELECT + чтение для событий)
+        perform(5, put("/admin/reviews/approve").contentType(MediaType.APPLICATION_JSON).content(body.toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.requested").value(movies.size() + 1))
+                .andExpect(jsonPath("$.updated").value(movies.size()));
+
+        assertThat(reviewRepository.findPendingAfter(0, Limit.unlimited())).isEmpty();
+        assertThat(movieRatingStatsRepository.findById(movies.get(0).getId()).orElseThrow().getReviewCount())
+                .isEqualTo(REVIEWS_PER_MOVIE + 1);
+    }
+
+    @Test
+    void bulkDisapproveSkipsModeratedReviews() throws Exception {
+        Long pending = createPendingReview(movies.get(0).getId(), 1.0);
+        perform(1, put("/admin/reviews/disapprove").contentType(MediaType.APPLICATION_JSON)
+                        .content("[%d, %d]".formatted(pending, reviews.get(0).getId())))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.updated").value(1));
+
+        assertThat(reviewRepository.findById(pending).orElseThrow().getStatus()).isEqualTo(ReviewStatus.REJECTED);
+        assertThat(reviewRepository.findById(reviews.get(0).getId()).orElseThrow().getStatus()).isEqualTo(ReviewStatus.APPROVED);
+    }
+
+    private Long createPendingReview(Long movieId, double rating) {
+        return reviewRepository.save(new Review(movieRepository.getReferenceById(movieId), "Pending", rating, "user")).getId();
+    }
+
+    private Long pendingReviewId() {
+        Review review = reviews.get(0);
+        review.setStatus(ReviewStatus.PENDING);
+        return reviewRepository.save(review).getId();
+    }
+}
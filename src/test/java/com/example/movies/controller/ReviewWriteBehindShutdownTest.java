@@ -0,0 +1,72 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025 Kudzeri
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.example.movies.controller;
+
+import com.example.movies.service.ReviewWriteBehindService;
+import com.example.movies.support.QueryCountTestSupport;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Отдельный контекст: сервис останавливается в тесте, а @DirtiesContext закрыл бы общий JCache-менеджер
+@WithMockUser(authorities = "ROLE_ADMIN")
+@TestPropertySource(properties = {
+        "movies.reviews.write-behind.enabled=true",
+        "movies.reviews.write-behind.batch-size=1000",
+        "movies.reviews.write-behind.flush-interval=300ms"
+})
+class ReviewWriteBehindShutdownTest extends QueryCountTestSupport {
+
+    @Autowired
+    private ReviewWriteBehindService reviewWriteBehind;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void queueIsDrainedOnShutdown() throws Exception {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            ids.add(ReviewWriteBehindTest.submit(mockMvc, objectMapper, movies.get(0).getId(), 2.0));
+        }
+        reviewWriteBehind.stop();
+
+        assertThat(reviewRepository.findAllById(ids)).hasSize(ids.size());
+        assertThat(reviewWriteBehind.stats().queued()).isZero();
+        mockMvc.perform(post("/reviews").param("movieId", movies.get(0).getId().toString())
+                        .param("content", "Late").param("rating", "2").param("reviewer", "user1"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "1"));
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025 Kudzeri
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.example.movies.controller;
+
+import com.example.movies.model.Review;
+import com.example.movies.model.ReviewStatus;
+import com.example.movies.service.ReviewWriteBehindService;
+import com.example.movies.support.QueryCountTestSupport;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WithMockUser(authorities = "ROLE_ADMIN")
+@TestPropertySource(properties = {
+        "movies.reviews.write-behind.enabled=true",
+        "movies.reviews.write-behind.batch-size=20",
+        "movies.reviews.write-behind.flush-interval=100ms"
+})
+class ReviewWriteBehindTest extends QueryCountTestSupport {
+
+    @Autowired
+    private ReviewWriteBehindService reviewWriteBehind;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void submissionsAreAcknowledgedAndWrittenInBatches() throws Exception {
+        long batchesBefore = reviewWriteBehind.stats().batches();
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            ids.add(submit(movies.get(i % movies.size()).getId(), 3.5));
+        }
+        assertThat(ids).doesNotHaveDuplicates().doesNotContainNull();
+
+        awaitUntil(() -> reviewRepository.findAllById(ids).size() == ids.size());
+        Review review = reviewRepository.findById(ids.get(0)).orElseThrow();
+        assertThat(review.getStatus()).isEqualTo(ReviewStatus.PENDING);
+        assertThat(review.getMovie().getId()).isEqualTo(movies.get(0).getId());
+        assertThat(reviewWriteBehind.stats().batches() - batchesBefore).isLessThan(ids.size());
+    }
+
+    @Test
+    void reviewOfUnknownMovieIsDropped() throws Exception {
+        long droppedBefore = reviewWriteBehind.stats().dropped();
+        Long missing = submit(-1L, 4.0);
+        Long valid = submit(movies.get(0).getId(), 4.0);
+
+        awaitUntil(() -> reviewRepository.existsById(valid));
+        awaitUntil(() -> reviewWriteBehind.stats().dropped() > droppedBefore);
+        assertThat(reviewRepository.existsById(missing)).isFalse();
+    }
+
+    @Test
+    void failedBatchIsRetriedWithoutReviewsOfUnknownMovies() throws Exception {
+        long droppedBefore = reviewWriteBehind.stats().dropped();
+        long writtenBefore = reviewWriteBehind.stats().written();
+        // в одном пакете: отзыв к несуществующему фильму, отзыв длиннее колонки (пакет падает) и корректный
+        Long missing = submit(-1L, 4.0);
+        String body = mockMvc.perform(post("/reviews").param("movieId", movies.get(0).getId().toString())
+                        .param("content", "x".repeat(300)).param("rating", "4").param("reviewer", "user1"))
+                .andExpect(status().isAccepted())
+                .andReturn().getResponse().getContentAsString();
+        Long tooLong = objectMapper.readTree(body).get("id").asLong();
+        Long valid = submit(movies.get(0).getId(), 4.0);
+
+        awaitUntil(() -> reviewWriteBehind.stats().written() > writtenBefore);
+        awaitUntil(() -> reviewWriteBehind.stats().dropped() - droppedBefore >= 2);
+        assertThat(reviewRepository.existsById(valid)).isTrue();
+        assertThat(reviewRepository.existsById(missing)).isFalse();
+        assertThat(reviewRepository.existsById(tooLong)).isFalse();
+        assertThat(reviewWriteBehind.stats().dropped() - droppedBefore).isEqualTo(2);
+        assertThat(reviewWriteBehind.stats().written() - writtenBefore).isEqualTo(1);
+    }
+
+    @Test
+    void invalidSubmissionIsRejectedWithoutQueueing() throws Exception {
+        mockMvc.perform(post("/reviews").param("movieId", movies.get(0).getId().toString())
+                        .param("content", "Too good").param("rating", "7").param("reviewer", "user1"))
+                .andExpect(status().isBadRequest());
+    }
+
+    static Long submit(MockMvc mockMvc, ObjectMapper objectMapper, Long movieId, double rating) throws Exception {
+        String body = mockMvc.perform(post("/reviews").param("movieId", movieId.toString())
+                        .param("content", "Queued").param("rating", String.valueOf(rating)).param("reviewer", "user1"))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.status").value("PENDING"))
+                .andExpect(header().exists("Location"))
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body).get("id").asLong();
+    }
+
+    private Long submit(Long movieId, double rating) throws Exception {
+        return submit(mockMvc, objectMapper, movieId, rating);
+    }
+
+    private static void awaitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            assertThat(System.currentTimeMillis()).as("Отзывы не записаны за 5 с").isLessThan(deadline);
+            Thread.sleep(20);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025 Kudzeri
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.example.movies.controller;
+
+import com.example.movies.support.QueryCountTestSupport;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.test.context.support.WithMockUser;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WithMockUser
+class SearchControllerQueryCountTest extends QueryCountTestSupport {
+
+    @Test
+    void searchMovies() throws Exception {
+        // страница + count + eager author/genre; коллекция author.movies не загружается
+        perform(2 + authors.size() + genres.size(), get("/search/movies").param("query", "movie").param("size", "20"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalElements").value(movies.size()));
+    }
+
+    @Test
+    void searchAuthors() throws Exception {
+        // страница + count; коллекция movies у авторов не загружается
+        perform(2, get("/search/authors").param("query", "author"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalElements").value(authors.size()))
+                .andExpect(jsonPath("$.content[0].movies").doesNotExist());
+    }
+
+    @Test
+    void searchWithoutCountFetchesOneExtraRow() throws Exception {
+        // ИД страницы с лишней строкой для hasNext + выбранные поля, без count
+        perform(2, get("/search/movies").param("query", "movie").param("size", "4").param("fields", "title").param("count", "none"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(4))
+                .andExpect(jsonPath("$.hasNext").value(true))
+                .andExpect(jsonPath("$.estimatedTotal").doesNotExist())
+                .andExpect(jsonPath("$.totalElements").doesNotExist());
+    }
+
+    @Test
+    void estimateOnLastPageIsExact() throws Exception {
+        // H2 не даёт оценки, но на последней странице число совпадений известно без запроса
+        perform(2, get("/search/authors").param("query", "author").param("page", "1").param("size", "2")
+                        .param("fields", "name").param("count", "estimate"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.hasNext").value(false))
+                .andExpect(jsonPath("$.estimatedTotal").value(authors.size()));
+        mockMvc.perform(get("/search/authors").param("query", "author").param("size", "2").param("count", "estimate"))
+                .andExpect(jsonPath("$.hasNext").value(true))
+                .andExpect(jsonPath("$.estimatedTotal").doesNotExist());
+    }
+
+    @Test
+    void unknownCountModeIsRejected() throws Exception {
+        mockMvc.perform(get("/search/movies").param("query", "movie").param("count", "approximate"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void unifiedSearchCountsFacetsInOneQuery() throws Exception {
+        // "io" есть в описаниях фильмов и биографиях авторов.
+        // ИД фильмов + ИД авторов + фасеты + названия фильмов + имена авторов + названия жанров
+        perform(6, get("/search").param("query", "io").param("limit", "4"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.movieCount").value(movies.size()))
+                .andExpect(jsonPath("$.authorCount").value(authors.size()))
+                .andExpect(jsonPath("$.results.length()").value(4))
+                .andExpect(jsonPath("$.results[0].type").value("MOVIE"))
+                .andExpect(jsonPath("$.results[0].title").value("Movie 1"))
+                .andExpect(jsonPath("$.results[1].type").value("AUTHOR"))
+                .andExpect(jsonPath("$.results[1].title").value("Author 1"))
+                .andExpect(jsonPath("$.genres[0].id").value(genres.get(0).getId()))
+                .andExpect(jsonPath("$.genres[0].name").value(genres.get(0).getName()))
+                .andExpect(jsonPath("$.genres[0].count").value(5))
+                .andExpect(jsonPath("$.genres[1].count").value(4))
+                .andExpect(jsonPath("$.authors.length()").value(authors.size()))
+                .andExpect(jsonPath("$.authors[0].count").value(MOVIES_PER_AUTHOR));
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025 Kudzeri
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.example.movies.controller;
+
+import com.example.movies.service.CatalogSearchIndex;
+import com.example.movies.support.QueryCountTestSupport;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Кэш поверх встроенного индекса: между коммитом и refresh() индекс ещё отдаёт старые результаты
+@WithMockUser(authorities = "ROLE_ADMIN")
+@TestPropertySource(properties = {
+        "movies.search.cache.enabled=true",
+        "movies.search.index.enabled=true",
+        "movies.search.index.refresh-interval=1h"
+})
+class SearchResultCacheIndexTest extends QueryCountTestSupport {
+
+    @MockitoBean
+    private StringRedisTemplate redisTemplate;
+
+    @Autowired
+    private CatalogSearchIndex searchIndex;
+
+    private final Map<String, String> redis = new ConcurrentHashMap<>();
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void stubRedisAndBuildIndex() {
+        ValueOperations<String, String> operations = mock(ValueOperations.class);
+        when(redisTemplate.opsForValue()).thenReturn(operations);
+        when(operations.get(anyString())).thenAnswer(invocation -> redis.get(invocation.<String>getArgument(0)));
+        doAnswer(invocation -> redis.put(invocation.getArgument(0), invocation.getArgument(1)))
+                .when(operations).set(anyString(), anyString(), any(Duration.class));
+        when(operations.increment(anyString())).thenAnswer(invocation -> Long.valueOf(
+                redis.merge(invocation.getArgument(0), "1", (current, one) -> String.valueOf(Long.parseLong(current) + 1))));
+        searchIndex.rebuild();
+    }
+
+    @Test
+    void resultsCachedBeforeIndexRefreshAreNotServedAfterIt() throws Exception {
+        String body = """
+                {"title": "Howl's Moving Castle", "description": "A wizard", "genre": {"id": %d}, "author": {"id": %d}}
+                """.formatted(genres.get(0).getId(), authors.get(0).getId());
+        mockMvc.perform(post("/admin/movies").contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isOk());
+
+        // Версия уже новая, а индекс ещё не применил изменение: результат кэшируется под новой версией
+        mockMvc.perform(get("/search/movies").param("query", "castle"))
+                .andExpect(jsonPath("$.totalElements").value(0));
+
+        searchIndex.refresh();
+        mockMvc.perform(get("/search/movies").param("query", "castle"))
+                .andExpect(jsonPath("$.totalElements").value(1))
+                .andExpect(jsonPath("$.content[0].title").value("Howl's Moving Castle"));
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025 Kudzeri
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.example.movies.controller;
+
+import com.example.movies.model.Movie;
+import com.example.movies.service.SearchResultCache;
+import com.example.movies.support.QueryCountTestSupport;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Redis в тестах нет: строковые операции подменены картой в памяти
+@WithMockUser(authorities = "ROLE_ADMIN")
+@TestPropertySource(properties = "movies.search.cache.enabled=true")
+class SearchResultCacheTest extends QueryCountTestSupport {
+
+    @MockitoBean
+    private StringRedisTemplate redisTemplate;
+
+    @Autowired
+    private SearchResultCache searchResultCache;
+
+    private final Map<String, String> redis = new ConcurrentHashMap<>();
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void stubRedis() {
+        ValueOperations<String, String> operations = mock(ValueOperations.class);
+        when(redisTemplate.opsForValue()).thenReturn(operations);
+        when(operations.get(anyString())).thenAnswer(invocation -> redis.get(invocation.<String>getArgument(0)));
+        doAnswer(invocation -> redis.put(invocation.getArgument(0), invocation.getArgument(1)))
+                .when(operations).set(anyString(), anyString(), any(Duration.class));
+        when(operations.increment(anyString())).thenAnswer(invocation -> Long.valueOf(
+                redis.merge(invocation.getArgument(0), "1", (current, one) -> String.valueOf(Long.parseLong(current) + 1))));
+    }
+
+    @Test
+    void repeatedSearchLoadsOnlyTheRowsOfThePage() throws Exception {
+        Movie movie = movies.get(4);
+        // промах: запрос id по LIKE + загрузка строк по id + ленивая коллекция author.movies
+        perform(3, get("/search/movies").param("query", movie.getTitle()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalElements").value(1))
+                .andExpect(jsonPath("$.content[0].id").value(movie.getId()));
+        long hits = searchResultCache.getStats().hits();
+
+        // попадание: без LIKE, запрос нормализуется
+        perform(2, get("/search/movies").param("query", "  " + movie.getTitle().toUpperCase() + " "))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalElements").value(1))
+                .andExpect(jsonPath("$.content[0].title").value(movie.getTitle()));
+        perform(2, get("/search/authors").param("query", "author 2").param("fields", "name"))
+                .andExpect(jsonPath("$.content[0].name").value("Author 2"));
+        perform(1, get("/search/authors").param("query", "author 2").param("fields", "name"))
+                .andExpect(jsonPath("$.content[0].name").value("Author 2"));
+        assertThat(searchResultCache.getStats().hits()).isEqualTo(hits + 2);
+    }
+
+    @Test
+    void exactCountIsCachedSeparatelyFromPages() throws Exception {
+        // ИД страницы + count + выбранные поля
+        perform(3, get("/search/movies").param("query", "movie").param("size", "2").param("fields", "title"))
+                .andExpect(jsonPath("$.totalElements").value(movies.size()));
+        // другая страница: count уже в кэше
+        perform(2, get("/search/movies").param("query", "movie").param("page", "1").param("size", "2").param("fields", "title"))
+                .andExpect(jsonPath("$.totalElements").value(movies.size()))
+                .andExpect(jsonPath("$.content[0].id").value(movies.get(2).getId()));
+    }
+
+    @Test
+    void catalogWritesInvalidateCachedPages() throws Exception {
+        mockMvc.perform(get("/search/movies").param("query", "castle"))
+                .andExpect(jsonPath("$.totalElements").value(0));
+        long version = searchResultCache.getStats().catalogVersion();
+
+        String body = """
+                {"title": "Howl's Moving Castle", "description": "A wizard", "genre": {"id": %d}, "author": {"id": %d}}
+                """.formatted(genres.get(0).getId(), authors.get(0).getId());
+        mockMvc.perform(post("/admin/movies").contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isOk());
+
+        assertThat(searchResultCache.getStats().catalogVersion()).isEqualTo(version + 1);
+        mockMvc.perform(get("/search/movies").param("query", "castle"))
+                .andExpect(jsonPath("$.totalElements").value(1))
+                .andExpect(jsonPath("$.content[0].title").value("Howl's Moving Castle"));
+    }
+
+    @Test
+    void statsAreExposed() throws Exception {
+        mockMvc.perform(get("/search/movies").param("query", "description"));
+        mockMvc.perform(get("/search/movies").param("query", "description"));
+
+        mockMvc.perform(get("/admin/search/cache"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.hits").isNumber())
+                .andExpect(jsonPath("$.hitRatio").isNumber());
+        assertThat(searchResultCache.getStats().hitRatio()).isBetween(0.0, 1.0).isPositive();
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025 Kudzeri
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.example.movies.controller;
+
+import com.example.movies.model.Movie;
+import com.example.movies.support.QueryCountTestSupport;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.test.context.support.WithMockUser;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WithMockUser(authorities = "ROLE_ADMIN")
+class SparseFieldsTest extends QueryCountTestSupport {
+
+    @Test
+    void movieListReturnsOnlyRequestedFieldsInOneQuery() throws Exception {
+        perform(1, get("/admin/movies").param("fields", "title"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(movies.size()))
+                .andExpect(jsonPath("$[0].id").value(movies.get(0).getId()))
+                .andExpect(jsonPath("$[0].title").value(movies.get(0).getTitle()))
+                .andExpect(jsonPath("$[0].description").doesNotExist())
+                .andExpect(jsonPath("$[0].author").doesNotExist());
+    }
+
+    @Test
+    void nestedFieldsAreReturnedAsObjects() throws Exception {
+        Movie movie = movies.get(0);
+        perform(1, get("/admin/movies/{id}", movie.getId()).param("fields", "title,author.name,genre.id"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.author.name").value(movie.getAuthor().getName()))
+                .andExpect(jsonPath("$.author.biography").doesNotExist())
+                .andExpect(jsonPath("$.genre.id").value(movie.getGenre().getId()))
+                .andExpect(header().doesNotExist("ETag"));
+
+        perform(1, get("/admin/movies/{id}", movie.getId()).param("fields", "title,version"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("ETag"));
+    }
+
+    @Test
+    void authorListDoesNotLoadMovies() throws Exception {
+        perform(1, get("/admin/authors").param("fields", "name"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(authors.size()))
+                .andExpect(jsonPath("$[0].name").value(authors.get(0).getName()))
+                .andExpect(jsonPath("$[0].movies").doesNotExist());
+    }
+
+    @Test
+    void reviewFieldsUseDtoNames() throws Exception {
+        Long movieId = movies.get(0).getId();
+        perform(1, get("/movies/{movieId}/reviews", movieId).param("fields", "rating,movieId").param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.reviews.length()").value(1))
+                .andExpect(jsonPath("$.reviews[0].movieId").value(movieId))
+                .andExpect(jsonPath("$.reviews[0].rating").value(4.0))
+                .andExpect(jsonPath("$.reviews[0].content").doesNotExist())
+                .andExpect(jsonPath("$.nextBeforeId").value(reviews.get(1).getId()));
+
+        perform(1, get("/reviews").param("fields", "reviewer"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(reviews.size()))
+                .andExpect(jsonPath("$[0].content").doesNotExist());
+    }
+
+    @Test
+    void searchSupportsFields() throws Exception {
+        perform(2, get("/search/movies").param("query", "movie 1").param("fields", "title"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].title").value("Movie 1"))
+                .andExpect(jsonPath("$.content[0].description").doesNotExist());
+    }
+
+    @Test
+    void unknownOrCollectionFieldIsRejected() throws Exception {
+        perform(0, get("/admin/movies").param("fields", "title,budget"))
+                .andExpect(status().isBadRequest());
+        perform(0, get("/admin/authors").param("fields", "movies"))
+                .andExpect(status().isBadRequest());
+        perform(0, get("/reviews").param("fields", "movie"))
+                .andExpect(status().isBadRequest());
+    }
+}
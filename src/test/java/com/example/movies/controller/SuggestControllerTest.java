@@ -0,0 +1,111 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025 Kudzeri
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.example.movies.controller;
+
+import com.example.movies.model.Movie;
+import com.example.movies.model.Review;
+import com.example.movies.model.ReviewStatus;
+import com.example.movies.service.SuggestService;
+import com.example.movies.support.QueryCountTestSupport;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.TestPropertySource;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Сборка по расписанию отключена длинным интервалом: тесты вызывают rebuild()/refresh() сами
+@WithMockUser(authorities = "ROLE_ADMIN")
+@TestPropertySource(properties = {
+        "movies.search.suggest.enabled=true",
+        "movies.search.suggest.refresh-interval=1h"
+})
+class SuggestControllerTest extends QueryCountTestSupport {
+
+    @Autowired
+    private SuggestService suggestService;
+
+    @BeforeEach
+    void buildSuggestions() {
+        suggestService.rebuild();
+    }
+
+    @Test
+    void suggestionsAreServedWithoutQueries() throws Exception {
+        perform(0, get("/search/suggest").param("q", "Auth").param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].type").value("AUTHOR"))
+                .andExpect(jsonPath("$[1].type").value("AUTHOR"));
+        perform(0, get("/search/suggest").param("q", "zzz"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(0));
+    }
+
+    @Test
+    void popularMoviesComeFirst() throws Exception {
+        Movie popular = movies.get(6);
+        for (int i = 0; i < 3; i++) {
+            Review review = new Review(popular, "More", 5.0, "extra" + i);
+            review.setStatus(ReviewStatus.APPROVED);
+            reviewRepository.save(review);
+        }
+        movieRatingService.rebuild();
+        suggestService.rebuild();
+
+        mockMvc.perform(get("/search/suggest").param("q", "movie"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(movies.size()))
+                .andExpect(jsonPath("$[0].id").value(popular.getId()))
+                .andExpect(jsonPath("$[0].text").value(popular.getTitle()));
+    }
+
+    @Test
+    void wordPrefixesMatchAndCatalogChangesAreApplied() throws Exception {
+        String body = """
+                {"title": "Howl's Moving Castle", "description": "A wizard", "genre": {"id": %d}, "author": {"id": %d}}
+                """.formatted(genres.get(0).getId(), authors.get(0).getId());
+        mockMvc.perform(post("/admin/movies").contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/search/suggest").param("q", "moving"))
+                .andExpect(jsonPath("$.length()").value(0));
+
+        suggestService.refresh();
+        mockMvc.perform(get("/search/suggest").param("q", "movin"))
+                .andExpect(jsonPath("$[0].text").value("Howl's Moving Castle"));
+        mockMvc.perform(get("/search/suggest").param("q", "howl's mo"))
+                .andExpect(jsonPath("$.length()").value(1));
+    }
+
+    @Test
+    void limitIsValidated() throws Exception {
+        mockMvc.perform(get("/search/suggest").param("q", "a").param("limit", "21"))
+                .andExpect(status().isBadRequest());
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025 Kudzeri
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.example.movies.controller;
+
+import com.example.movies.support.QueryCountTestSupport;
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.test.context.support.WithMockUser;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WithMockUser(authorities = "ROLE_ADMIN")
+class SyntheticDataGeneratorTest extends QueryCountTestSupport {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void generatesRequestedRowsWithZipfPopularity() throws Exception {
+        long moviesBefore = movieRepository.count();
+        long reviewsBefore = reviewRepository.count();
+
+        String job = awaitJob(mockMvc.perform(post("/admin/seed/synthetic").param("authors", "20").param("movies", "300")
+                .param("reviews", "3000").param("seed", "7").param("parallelism", "3")));
+        assertThat((String) JsonPath.read(job, "$.status")).isEqualTo("SUCCEEDED");
+        assertThat((Integer) JsonPath.read(job, "$.result.movies")).isEqualTo(300);
+        assertThat((Integer) JsonPath.read(job, "$.result.reviews")).isEqualTo(3000);
+        assertThat((Integer) JsonPath.read(job, "$.processed")).isEqualTo(3320);
+        long firstMovieId = ((Number) JsonPath.read(job, "$.result.firstMovieId")).longValue();
+
+        assertThat(movieRepository.count()).isEqualTo(moviesBefore + 300);
+        assertThat(reviewRepository.count()).isEqualTo(reviewsBefore + 3000);
+        // При exponent = 1 на самый популярный из 300 фильмов приходится около 16% отзывов, в среднем – 10
+        Integer top = jdbcTemplate.queryForObject("SELECT max(c) FROM (SELECT count(*) AS c FROM reviews WHERE movie_id >= ? "
+                + "GROUP BY movie_id) t", Integer.class, firstMovieId);
+        assertThat(top).isGreaterThan(200);
+    }
+
+    @Test
+    void sameSeedGivesSameDataRegardlessOfParallelism() throws Exception {
+        List<String> first = generate(4);
+        List<String> second = generate(1);
+
+        assertThat(first).hasSize(25_000);
+        assertThat(second).isEqualTo(first);
+    }
+
+    @Test
+    void moviesWithoutAuthorsAreRejected() throws Exception {
+        mockMvc.perform(post("/admin/seed/synthetic").param("authors", "0").param("movies", "10").param("reviews", "0"))
+                .andExpect(status().isBadRequest());
+    }
+
+    // Строки отзывов относительно начала своих диапазонов ИД: больше одной порции, чтобы проверить разбиение
+    private List<String> generate(int parallelism) throws Exception {
+        String job = awaitJob(mockMvc.perform(post("/admin/seed/synthetic").param("authors", "5").param("movies", "50")
+                .param("reviews", "25000").param("seed", "11").param("parallelism", String.valueOf(parallelism))));
+        long firstMovieId = ((Number) JsonPath.read(job, "$.result.firstMovieId")).longValue();
+        long firstReviewId = ((Number) JsonPath.read(job, "$.result.firstReviewId")).longValue();
+        return jdbcTemplate.query("SELECT r.id - ? AS n, r.movie_id - ? AS movie, r.content, r.rating, r.status, m.title "
+                        + "FROM reviews r JOIN movies m ON m.id = r.movie_id WHERE r.id >= ? AND r.id < ? ORDER BY r.id",
+                (rs, i) -> rs.getLong("n") + "|" + rs.getLong("movie") + "|" + rs.getString("content") + "|"
+                        + rs.getDouble("rating") + "|" + rs.getString("status") + "|" + rs.getString("title"),
+                firstReviewId, firstMovieId, firstReviewId, firstReviewId + 25_000);
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025 Kudzeri
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.example.movies.controller;
+
+import com.example.movies.support.PinningDetector;
+import com.example.movies.support.QueryCountTestSupport;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.web.servlet.RequestBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+// Параллельные запросы на виртуальных потоках через весь стек: безопасность, JPA, пул соединений
+class VirtualThreadPinningTest extends QueryCountTestSupport {
+
+    private static final int CONCURRENT_REQUESTS = 300;
+
+    @Test
+    void readEndpointsDoNotPinCarrierThreads() throws Throwable {
+        List<Integer> statuses = new ArrayList<>();
+        PinningDetector.assertNoPinning(() -> {
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                List<Future<Integer>> futures = new ArrayList<>();
+                for (int i = 0; i < CONCURRENT_REQUESTS; i++) {
+                    RequestBuilder request = request(i);
+                    futures.add(executor.submit(() -> mockMvc.perform(request).andReturn().getResponse().getStatus()));
+                }
+                for (Future<Integer> future : futures) {
+                    statuses.add(future.get());
+                }
+            }
+        });
+
+        assertThat(statuses).hasSize(CONCURRENT_REQUESTS).containsOnly(200);
+    }
+
+    private RequestBuilder request(int index) {
+        Long movieId = movies.get(index % movies.size()).getId();
+        return switch (index % 4) {
+            case 0 -> get("/admin/movies/{id}", movieId).with(user("admin").authorities(() -> "ROLE_ADMIN"));
+            case 1 -> get("/reviews/movie/{movieId}", movieId).with(user("user"));
+            case 2 -> get("/search/movies").param("query", "Movie").with(user("user"));
+            default -> get("/admin/genres").with(user("admin").authorities(() -> "ROLE_ADMIN"));
+        };
+    }
+}
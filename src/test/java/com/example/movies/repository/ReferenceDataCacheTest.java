@@ -0,0 +1,83 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025 Kudzeri
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.example.movies.repository;
+
+import com.example.movies.model.Genre;
+import com.example.movies.model.Role;
+import com.example.movies.support.QueryCountTestSupport;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReferenceDataCacheTest extends QueryCountTestSupport {
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @AfterEach
+    void deleteRoles() {
+        roleRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void genreLookupIsServedFromSecondLevelCache() throws Exception {
+        Long genreId = genres.get(0).getId();
+        genreRepository.findById(genreId);
+
+        Genre cached = queryCounter.assertAtMost(0, () -> genreRepository.findById(genreId).orElseThrow());
+
+        assertThat(cached.getName()).isEqualTo(genres.get(0).getName());
+        assertThat(queryCounter.statistics().getSecondLevelCacheHitCount()).isEqualTo(1);
+    }
+
+    @Test
+    void authorLookupIsServedFromSecondLevelCache() throws Exception {
+        Long authorId = authors.get(0).getId();
+        authorRepository.findById(authorId);
+
+        queryCounter.assertAtMost(0, () -> authorRepository.findById(authorId).orElseThrow());
+    }
+
+    @Test
+    void roleByNameIsServedFromQueryCache() throws Exception {
+        roleRepository.save(new Role("ROLE_USER"));
+        roleRepository.findByName("ROLE_USER");
+
+        Role cached = queryCounter.assertAtMost(0, () -> roleRepository.findByName("ROLE_USER"));
+
+        assertThat(cached.getName()).isEqualTo("ROLE_USER");
+        assertThat(queryCounter.statistics().getQueryCacheHitCount()).isEqualTo(1);
+    }
+
+    @Test
+    void genreUpdateInvalidatesCachedEntry() {
+        Genre genre = genreRepository.findById(genres.get(0).getId()).orElseThrow();
+        genre.setName("Renamed");
+        genreRepository.save(genre);
+
+        assertThat(genreRepository.findById(genre.getId()).orElseThrow().getName()).isEqualTo("Renamed");
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025 Kudzeri
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.example.movies.service;
+
+import com.example.movies.service.InvertedIndex.Field;
+import com.example.movies.service.InvertedIndex.Hits;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InvertedIndexTest {
+
+    private static List<Field> movie(String title, String description) {
+        return List.of(new Field(title, 3), new Field(description, 1));
+    }
+
+    @Test
+    void allTermsMustMatchAndTitleOutranksDescription() {
+        InvertedIndex index = new InvertedIndex();
+        index.put(1, movie("Castle in the Sky", "A flying castle"));
+        index.put(2, movie("Spirited Away", "A girl finds a castle of spirits in the sky"));
+        index.put(3, movie("Porco Rosso", "A pilot over the Adriatic sky"));
+
+        Hits hits = index.search("castle SKY", 0, 10);
+        assertThat(hits.total()).isEqualTo(2);
+        assertThat(hits.ids()).containsExactly(1L, 2L);
+        assertThat(index.search("castle pilot", 0, 10).total()).isZero();
+        assertThat(index.search("  ", 0, 10).total()).isZero();
+    }
+
+    @Test
+    void pagingKeepsTotal() {
+        InvertedIndex index = new InvertedIndex();
+        for (long id = 1; id <= 25; id++) {
+            index.put(id, movie("Movie " + id, "Same description"));
+        }
+        Hits page = index.search("description", 20, 10);
+        assertThat(page.total()).isEqualTo(25);
+        // Одинаковый счёт – порядок по ИД
+        assertThat(page.ids()).containsExactly(21L, 22L, 23L, 24L, 25L);
+    }
+
+    @Test
+    void replacedAndRemovedDocumentsAreNotFound() {
+        InvertedIndex index = new InvertedIndex();
+        index.put(1, movie("Old title", ""));
+        index.put(1, movie("New title", ""));
+        assertThat(index.search("old", 0, 10).total()).isZero();
+        assertThat(index.search("new", 0, 10).ids()).containsExactly(1L);
+
+        assertThat(index.remove(1)).isTrue();
+        assertThat(index.remove(1)).isFalse();
+        assertThat(index.search("title", 0, 10).total()).isZero();
+        assertThat(index.size()).isZero();
+    }
+
+    @Test
+    void compactionKeepsLiveDocuments() {
+        InvertedIndex index = new InvertedIndex();
+        for (int round = 0; round < 5; round++) {
+            for (long id = 1; id <= 1000; id++) {
+                index.put(id, movie("Movie " + id + " round" + round, "text"));
+            }
+        }
+        assertThat(index.size()).isEqualTo(1000);
+        assertThat(index.search("text", 0, 1).total()).isEqualTo(1000);
+        assertThat(index.search("round4", 0, 1).total()).isEqualTo(1000);
+        assertThat(index.search("round0", 0, 1).total()).isZero();
+        assertThat(index.search("movie 500", 0, 5).ids()).containsExactly(500L);
+        // Удалённые версии вычищены: постингов не больше, чем у двух поколений документов
+        assertThat(index.postingCount()).isLessThanOrEqualTo(2 * 1000 * 4);
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025 Kudzeri
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.example.movies.support;
+
+import com.example.movies.model.Author;
+import com.example.movies.model.Genre;
+import com.example.movies.model.Movie;
+import com.example.movies.model.Review;
+import com.example.movies.model.ReviewStatus;
+import com.example.movies.repository.AuthorRepository;
+import com.example.movies.repository.GenreRepository;
+import com.example.movies.repository.MovieRatingStatsRepository;
+import com.example.movies.repository.MovieRepository;
+import com.example.movies.repository.ReviewRepository;
+import com.example.movies.service.MovieRatingService;
+import com.jayway.jsonpath.JsonPath;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Базовый класс для регрессионных тестов на количество SQL-запросов (N+1).
+ * Поднимает контекст на встроенной БД H2, включает статистику Hibernate на время
+ * каждого теста и наполняет каталог небольшим набором данных.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+public abstract class QueryCountTestSupport {
+
+    protected static final int MOVIES_PER_AUTHOR = 3;
+    protected static final int REVIEWS_PER_MOVIE = 2;
+
+    private static final long JOB_TIMEOUT_MILLIS = 60_000;
+
+    @Autowired
+    protected MockMvc mockMvc;
+
+    @Autowired
+    protected GenreRepository genreRepository;
+    @Autowired
+    protected AuthorRepository authorRepository;
+    @Autowired
+    protected MovieRepository movieRepository;
+    @Autowired
+    protected ReviewRepository reviewRepository;
+    @Autowired
+    protected MovieRatingStatsRepository movieRatingStatsRepository;
+    @Autowired
+    protected MovieRatingService movieRatingService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    protected QueryCounter queryCounter;
+
+    protected final List<Genre> genres = new ArrayList<>();
+    protected final List<Author> authors = new ArrayList<>();
+    protected final List<Movie> movies = new ArrayList<>();
+    protected final List<Review> reviews = new ArrayList<>();
+
+    @BeforeEach
+    void setUpCatalog() {
+        for (String name : List.of("Drama", "Comedy")) {
+            genres.add(genreRepository.save(new Genre(name)));
+        }
+        for (int a = 1; a <= 3; a++) {
+            authors.add(authorRepository.save(new Author("Author " + a, "Biography of author " + a)));
+        }
+        int index = 0;
+        for (Author author : authors) {
+            for (int m = 1; m <= MOVIES_PER_AUTHOR; m++) {
+                Genre genre = genres.get(index++ % genres.size());
+                movies.add(movieRepository.save(new Movie("Movie " + index, "Description " + index, genre, author)));
+            }
+        }
+        for (Movie movie : movies) {
+            for (int r = 1; r <= REVIEWS_PER_MOVIE; r++) {
+                Review review = new Review(movie, "Review " + r + " for " + movie.getTitle(), 4.0, "user" + r);
+                review.setStatus(ReviewStatus.APPROVED);
+                reviews.add(reviewRepository.save(review));
+            }
+        }
+        // Отзывы сохранены сразу одобренными, минуя ReviewService
+        movieRatingService.rebuild();
+
+        queryCounter = new QueryCounter(entityManagerFactory);
+        queryCounter.start();
+    }
+
+    @AfterEach
+    void tearDownCatalog() {
+        queryCounter.stop();
+        reviewRepository.deleteAllInBatch();
+        movieRatingStatsRepository.deleteAllInBatch();
+        movieRepository.deleteAllInBatch();
+        authorRepository.deleteAllInBatch();
+        genreRepository.deleteAllInBatch();
+        genres.clear();
+        authors.clear();
+        movies.clear();
+        reviews.clear();
+    }
+
+    /**
+     * Выполняет MockMvc-запрос и проверяет, что он уложился в заданное число SQL-запросов.
+     */
+    protected ResultActions perform(long maxStatements, RequestBuilder request) throws Exception {
+        return queryCounter.assertAtMost(maxStatements, () -> mockMvc.perform(request));
+    }
+
+    /**
+     * Проверяет, что запрос поставил фоновую задачу (202), дожидается её завершения и возвращает
+     * итоговое состояние /admin/jobs/{id}. Тест должен выполняться от имени администратора.
+     */
+    protected String awaitJob(ResultActions submitted) throws Exception {
+        String job = submitted.andExpect(status().isAccepted()).andReturn().getResponse().getContentAsString();
+        return awaitJob(((Number) JsonPath.read(job, "$.id")).longValue());
+    }
+
+    protected String awaitJob(long id) throws Exception {
+        String job;
+        long deadline = System.currentTimeMillis() + JOB_TIMEOUT_MILLIS;
+        while (true) {
+            job = mockMvc.perform(get("/admin/jobs/" + id)).andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString();
+            String state = JsonPath.read(job, "$.status");
+            if (!state.equals("QUEUED") && !state.equals("RUNNING")) {
+                return job;
+            }
+            assertThat(System.currentTimeMillis()).as("Задача %s не завершилась за %d мс", id, JOB_TIMEOUT_MILLIS)
+                    .isLessThan(deadline);
+            Thread.sleep(20);
+        }
+    }
+}
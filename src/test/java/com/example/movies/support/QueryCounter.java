@@ -0,0 +1,85 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025 Kudzeri
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.example.movies.support;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Обёртка над Hibernate {@link Statistics} для подсчёта SQL-запросов в тестах.
+ * Статистика включается на время теста, после него восстанавливается прежнее состояние.
+ */
+public class QueryCounter {
+
+    private final Statistics statistics;
+    private boolean enabledBefore;
+
+    public QueryCounter(EntityManagerFactory entityManagerFactory) {
+        this.statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    public void start() {
+        enabledBefore = statistics.isStatisticsEnabled();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+    }
+
+    public void stop() {
+        statistics.setStatisticsEnabled(enabledBefore);
+        statistics.clear();
+    }
+
+    public void reset() {
+        statistics.clear();
+    }
+
+    /**
+     * Количество JDBC-запросов, подготовленных с момента последнего сброса.
+     */
+    public long statements() {
+        return statistics.getPrepareStatementCount();
+    }
+
+    public Statistics statistics() {
+        return statistics;
+    }
+
+    public <T> T assertAtMost(long maxStatements, ThrowingSupplier<T> call) throws Exception {
+        reset();
+        T result = call.get();
+        long executed = statements();
+        assertThat(executed)
+                .as("Ожидалось не более %d SQL-запросов, выполнено %d", maxStatements, executed)
+                .isLessThanOrEqualTo(maxStatements);
+        return result;
+    }
+
+    @FunctionalInterface
+    public interface ThrowingSupplier<T> {
+        T get() throws Exception;
+    }
+}